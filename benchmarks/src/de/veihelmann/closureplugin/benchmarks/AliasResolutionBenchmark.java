@@ -0,0 +1,63 @@
+package de.veihelmann.closureplugin.benchmarks;
+
+import de.veihelmann.closureplugin.utils.NamespaceAliases;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of resolving a single reference (as done for every PSI node the recognizers look at) depending on
+ * the number of aliased goog.requires in a file. {@link #resolve()} should stay flat across all alias counts, while
+ * {@link #resolveByScanningAllAliases()} (the former implementation) grows linearly.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AliasResolutionBenchmark {
+
+    @Param({"1", "10", "60", "250"})
+    public int aliasCount;
+
+    private final NamespaceAliases aliases = new NamespaceAliases();
+
+    private final Map<String, String> fullNamespacesToShortReferences = new HashMap<>();
+
+    private String[] references;
+
+    private int nextReference;
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < aliasCount; i++) {
+            aliases.put("ts.generated.module" + i + ".Type" + i, "Type" + i);
+            fullNamespacesToShortReferences.put("ts.generated.module" + i + ".Type" + i, "Type" + i);
+        }
+
+        // Mix of aliases, full namespaces and unrelated references, similar to what the recognizers see.
+        references = new String[]{"Type0", "Type" + (aliasCount - 1), "goog.array", "ts.other.Namespace", "this.field", "Type" + (aliasCount / 2)};
+    }
+
+    @Benchmark
+    public String resolve() {
+        return aliases.resolveAndNormalize(nextReference());
+    }
+
+    @Benchmark
+    public String resolveByScanningAllAliases() {
+        String namespace = nextReference();
+        Optional<String> resolvedFullNamespace = fullNamespacesToShortReferences.keySet().stream().filter(
+                key -> fullNamespacesToShortReferences.get(key).equals(namespace)).findFirst();
+        return resolvedFullNamespace.orElse(namespace).replaceAll("[\n\\s]", "");
+    }
+
+    private String nextReference() {
+        nextReference = (nextReference + 1) % references.length;
+        return references[nextReference];
+    }
+}
@@ -0,0 +1,22 @@
+package de.veihelmann.closureplugin.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point for running all benchmarks of this module. Reports throughput together with the allocation rate
+ * (via the GC profiler). An optional argument restricts the run to benchmarks matching the given regular expression.
+ */
+public class ClosureBenchmarks {
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : ClosureBenchmarks.class.getPackage().getName() + ".*")
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,100 @@
+package de.veihelmann.closureplugin.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates synthetic, but realistic Closure files for benchmarks: a class with methods that reference their required
+ * namespaces via constructor calls, static calls, constants, base classes and JSDoc types. The output is
+ * deterministic for a given seed, so benchmark runs are comparable.
+ */
+public class ClosureCorpusGenerator {
+
+    public enum Style {
+        GOOG_PROVIDE, GOOG_MODULE
+    }
+
+    private final Random random;
+
+    public ClosureCorpusGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * @param style         whether the file uses goog.provide or goog.module (with aliased requires)
+     * @param methodCount   number of methods of the generated class, which determines the file size
+     * @param requireCount  number of required (and referenced) namespaces
+     * @param jsDocDensity  share of methods (between 0 and 1) which have a JSDoc comment with type annotations
+     */
+    public String generateFile(Style style, int methodCount, int requireCount, double jsDocDensity) {
+        String namespace = "gen.app.module" + random.nextInt(1000) + ".GeneratedClass";
+        List<String> requiredNamespaces = new ArrayList<>();
+        for (int i = 0; i < requireCount; i++) {
+            requiredNamespaces.add(requiredNamespace(i));
+        }
+
+        boolean isModule = style == Style.GOOG_MODULE;
+        StringBuilder builder = new StringBuilder();
+        builder.append(isModule ? "goog.module('" : "goog.provide('").append(namespace).append("');\n\n");
+
+        for (int i = 0; i < requireCount; i++) {
+            if (isModule) {
+                builder.append("const ").append(shortName(i)).append(" = ");
+            }
+            builder.append("goog.require('").append(requiredNamespaces.get(i)).append("');\n");
+        }
+        builder.append("\n");
+
+        builder.append("/**\n * A generated class.\n");
+        if (requireCount > 0) {
+            builder.append(" * @extends {").append(reference(0, isModule)).append("}\n");
+        }
+        builder.append(" */\n");
+
+        String baseClass = requireCount > 0 ? " extends " + reference(0, isModule) : "";
+        builder.append(isModule ? "class GeneratedClass" + baseClass + " {\n" : namespace + " = class" + baseClass + " {\n");
+
+        for (int i = 0; i < methodCount; i++) {
+            appendMethod(builder, i, requireCount, isModule, random.nextDouble() < jsDocDensity);
+        }
+
+        builder.append(isModule ? "}\n\nexports = GeneratedClass;\n" : "};\n");
+        return builder.toString();
+    }
+
+    private void appendMethod(StringBuilder builder, int methodIndex, int requireCount, boolean isModule, boolean withJsDoc) {
+        String firstDependency = requireCount > 0 ? reference(random.nextInt(requireCount), isModule) : "Object";
+        String secondDependency = requireCount > 0 ? reference(random.nextInt(requireCount), isModule) : "Object";
+        String thirdDependency = requireCount > 0 ? reference(random.nextInt(requireCount), isModule) : "Object";
+
+        if (withJsDoc) {
+            builder.append("    /**\n")
+                    .append("     * Generated method ").append(methodIndex).append(".\n")
+                    .append("     * @param {!").append(firstDependency).append("} first\n")
+                    .append("     * @param {?Array<").append(secondDependency).append(">} second\n")
+                    .append("     * @return {number}\n")
+                    .append("     */\n");
+        }
+        builder.append("    method").append(methodIndex).append("(first, second) {\n")
+                .append("        const instance = new ").append(firstDependency).append("(first);\n")
+                .append("        ").append(secondDependency).append(".staticMethod(second, this.values_['key").append(methodIndex).append("']);\n")
+                .append("        if (instance.isValid() && second.length > 0) {\n")
+                .append("            return ").append(thirdDependency).append(".DEFAULT_VALUE + first.length;\n")
+                .append("        }\n")
+                .append("        return 0;\n")
+                .append("    }\n\n");
+    }
+
+    private String reference(int requireIndex, boolean isModule) {
+        return isModule ? shortName(requireIndex) : requiredNamespace(requireIndex);
+    }
+
+    private static String requiredNamespace(int requireIndex) {
+        return "gen.lib" + (requireIndex % 7) + ".pkg" + requireIndex + "." + shortName(requireIndex);
+    }
+
+    private static String shortName(int requireIndex) {
+        return "Dependency" + requireIndex;
+    }
+}
@@ -0,0 +1,56 @@
+package de.veihelmann.closureplugin.benchmarks;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.testFramework.EdtTestUtil;
+import de.veihelmann.closureplugin.ClosureDependenciesExtractor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a full (uncached) dependency extraction of a generated file, and the cached extraction after editing a
+ * single line of it (which only extracts the changed statement again).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DependencyExtractionBenchmark extends LightFixtureState {
+
+    private boolean spaceInserted;
+
+    @Benchmark
+    public ClosureDependenciesExtractor extractDependencies() {
+        return ReadAction.compute(() -> {
+            ClosureDependenciesExtractor extractor = new ClosureDependenciesExtractor();
+            extractor.extractDependencies(psiFile);
+            return extractor;
+        });
+    }
+
+    @Setup(Level.Invocation)
+    public void editSingleLine() {
+        EdtTestUtil.runInEdtAndWait(() -> WriteCommandAction.runWriteCommandAction(fixture.getProject(), () -> {
+            PsiDocumentManager documentManager = PsiDocumentManager.getInstance(fixture.getProject());
+            Document document = documentManager.getDocument(psiFile);
+            // Within the body of the last method
+            int offset = document.getText().lastIndexOf('{') + 1;
+            if (spaceInserted) {
+                document.deleteString(offset, offset + 1);
+            } else {
+                document.insertString(offset, " ");
+            }
+            spaceInserted = !spaceInserted;
+            documentManager.commitDocument(document);
+        }));
+    }
+
+    @Benchmark
+    public ClosureDependenciesExtractor extractDependenciesAfterEdit() {
+        return ReadAction.compute(() -> ClosureDependenciesExtractor.forFile(psiFile));
+    }
+}
@@ -0,0 +1,77 @@
+package de.veihelmann.closureplugin.benchmarks;
+
+import com.intellij.lang.javascript.psi.JSCallExpression;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.testFramework.EdtTestUtil;
+import de.veihelmann.closureplugin.ClosureDependenciesExtractor;
+import de.veihelmann.closureplugin.fixes.ConvertToGoogModuleFix;
+import de.veihelmann.closureplugin.fixes.FixUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the quick-fix code paths: choosing safe short references for all requires of a file, and converting a
+ * goog.provide file to a goog.module (which is a no-op for the generated goog.module files).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FixBenchmark extends LightFixtureState {
+
+    private List<String> requiredNamespaces;
+
+    private PsiFile fileToConvert;
+
+    @Setup(Level.Trial)
+    public void collectRequires() {
+        requiredNamespaces = new ArrayList<>(ReadAction.compute(() ->
+                ClosureDependenciesExtractor.forFile(psiFile).googRequires.keySet()));
+    }
+
+    @Setup(Level.Invocation)
+    public void createFileToConvert() {
+        EdtTestUtil.runInEdtAndWait(() -> fileToConvert = fixture.configureByText("converted.js", fileText));
+    }
+
+    @Benchmark
+    public List<String> findSafeReferencesForAllRequires() {
+        List<String> result = new ArrayList<>(requiredNamespaces.size());
+        for (String namespace : requiredNamespaces) {
+            result.add(FixUtils.findSafeReferenceForGoogRequire(fileText, namespace));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<String> findSafeReferencesForAllRequiresWithQualifierNames() {
+        Set<String> qualifierNames = new HashSet<>(FixUtils.collectQualifierNames(fileText));
+        List<String> result = new ArrayList<>(requiredNamespaces.size());
+        for (String namespace : requiredNamespaces) {
+            String shortReference = FixUtils.findSafeReferenceForGoogRequire(qualifierNames, namespace);
+            qualifierNames.add(shortReference);
+            result.add(shortReference);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public PsiFile convertToGoogModule() {
+        EdtTestUtil.runInEdtAndWait(() -> WriteCommandAction.runWriteCommandAction(fixture.getProject(), () -> {
+            JSCallExpression provideCall = PsiTreeUtil.findChildOfType(fileToConvert, JSCallExpression.class);
+            if (provideCall != null && provideCall.getText().startsWith("goog.provide(")) {
+                new ConvertToGoogModuleFix(provideCall).invoke(fixture.getProject(), fileToConvert, provideCall, provideCall);
+            }
+        }));
+        return fileToConvert;
+    }
+}
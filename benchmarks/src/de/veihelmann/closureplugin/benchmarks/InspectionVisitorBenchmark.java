@@ -0,0 +1,59 @@
+package de.veihelmann.closureplugin.benchmarks;
+
+import com.intellij.codeInspection.InspectionManager;
+import com.intellij.codeInspection.LocalInspectionTool;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiRecursiveElementWalkingVisitor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the visitor of a single inspection over all elements of a generated file, like the highlighting daemon does.
+ * Each invocation works on a fresh copy of the file, so no analysis results are cached between invocations.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InspectionVisitorBenchmark extends LightFixtureState {
+
+    @Param({"MissingOrObsoleteGoogRequiresInspection", "UseOfBracketNotationInspection", "MisplacedTypeInCommentInspection",
+            "MissingMethodCommentInspection", "ConvertToGoogModuleInspection"})
+    public String inspection;
+
+    private LocalInspectionTool inspectionTool;
+
+    private PsiFile fileToInspect;
+
+    @Setup(Level.Trial)
+    public void createInspection() throws ReflectiveOperationException {
+        inspectionTool = (LocalInspectionTool) Class.forName("de.veihelmann.closureplugin." + inspection).getDeclaredConstructor().newInstance();
+    }
+
+    @Setup(Level.Invocation)
+    public void copyFile() {
+        fileToInspect = copyOfFile();
+    }
+
+    @Benchmark
+    public int runVisitor() {
+        return ReadAction.compute(() -> {
+            ProblemsHolder holder = new ProblemsHolder(InspectionManager.getInstance(fixture.getProject()), fileToInspect, false);
+            PsiElementVisitor visitor = inspectionTool.buildVisitor(holder, false);
+            fileToInspect.accept(new PsiRecursiveElementWalkingVisitor() {
+                @Override
+                public void visitElement(PsiElement element) {
+                    element.accept(visitor);
+                    super.visitElement(element);
+                }
+            });
+            return holder.getResultCount();
+        });
+    }
+}
@@ -0,0 +1,62 @@
+package de.veihelmann.closureplugin.benchmarks;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.psi.PsiFile;
+import com.intellij.testFramework.EdtTestUtil;
+import com.intellij.testFramework.LightProjectDescriptor;
+import com.intellij.testFramework.fixtures.CodeInsightTestFixture;
+import com.intellij.testFramework.fixtures.IdeaProjectTestFixture;
+import com.intellij.testFramework.fixtures.IdeaTestFixtureFactory;
+import com.intellij.testFramework.fixtures.TestFixtureBuilder;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Base state for benchmarks that need PSI: starts a light IntelliJ test fixture once per trial and provides a
+ * generated Closure file in it. Subclasses choose the shape of the generated file via their own parameters.
+ */
+@State(Scope.Benchmark)
+public abstract class LightFixtureState {
+
+    @Param({"GOOG_PROVIDE", "GOOG_MODULE"})
+    public ClosureCorpusGenerator.Style style;
+
+    @Param({"20", "200"})
+    public int methodCount;
+
+    @Param({"10", "60"})
+    public int requireCount;
+
+    @Param({"0.8"})
+    public double jsDocDensity;
+
+    protected CodeInsightTestFixture fixture;
+
+    protected String fileText;
+
+    protected PsiFile psiFile;
+
+    @Setup(Level.Trial)
+    public void setUpFixture() throws Throwable {
+        TestFixtureBuilder<IdeaProjectTestFixture> projectBuilder =
+                IdeaTestFixtureFactory.getFixtureFactory().createLightFixtureBuilder(LightProjectDescriptor.EMPTY_PROJECT_DESCRIPTOR);
+        fixture = IdeaTestFixtureFactory.getFixtureFactory().createCodeInsightFixture(projectBuilder.getFixture());
+        fileText = new ClosureCorpusGenerator(42).generateFile(style, methodCount, requireCount, jsDocDensity);
+
+        EdtTestUtil.runInEdtAndWait(() -> {
+            fixture.setUp();
+            psiFile = fixture.configureByText("generated.js", fileText);
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownFixture() throws Throwable {
+        EdtTestUtil.runInEdtAndWait(() -> fixture.tearDown());
+    }
+
+    /**
+     * @return a fresh, non-physical copy of the generated file, which has none of the caches of the original file.
+     */
+    protected PsiFile copyOfFile() {
+        return ReadAction.compute(() -> (PsiFile) psiFile.copy());
+    }
+}
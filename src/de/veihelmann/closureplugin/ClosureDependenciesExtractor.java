@@ -1,24 +1,35 @@
 package de.veihelmann.closureplugin;
 
+import com.intellij.lang.javascript.psi.JSEmbeddedContent;
+import com.intellij.lang.javascript.psi.JSFunction;
 import com.intellij.lang.javascript.psi.JSStatement;
-import com.intellij.psi.PsiComment;
+import com.intellij.lang.javascript.psi.ecmal4.JSClass;
+import com.intellij.openapi.util.Key;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
-import de.veihelmann.closureplugin.dependency_recognizers.*;
+import com.intellij.psi.PsiWhiteSpace;
+import com.intellij.psi.util.PsiTreeUtil;
+import de.veihelmann.closureplugin.metrics.ClosureMetrics;
 import de.veihelmann.closureplugin.utils.LanguageUtils;
-import de.veihelmann.closureplugin.utils.ListMap;
-import org.jetbrains.debugger.PsiVisitors.FilteringPsiRecursiveElementWalkingVisitor;
+import de.veihelmann.closureplugin.utils.NamespaceAliases;
+import de.veihelmann.closureplugin.utils.NamespaceMultimap;
+import de.veihelmann.closureplugin.utils.NamespacePrefixes;
 
 import java.util.*;
 
-import static java.util.Arrays.asList;
-
 /**
  * Collects (Google Closure-) dependencies of a single file to other namespaces. Found goog.requires, goog.provides and
  * dependencies in the rest of the code will be collected in the corresponding fields, e.g. {@link #googRequires}.
  */
 public class ClosureDependenciesExtractor {
 
+    /**
+     * The version of the extraction results. Must be incremented with each change of the recognizers that changes
+     * their results, so persisted {@link de.veihelmann.closureplugin.summary.DependencySummary summaries} of earlier
+     * versions are dropped.
+     */
+    public static final int VERSION = 2;
+
     /**
      * Namespaces required (via goog.require('x.y.Z') ) by the current file, with their corresponding PSI element.
      */
@@ -39,41 +50,74 @@ public class ClosureDependenciesExtractor {
      * Stores short references to goog.require'd namespaces (can be done combined with goog.module.
      * For example, for
      * <code>const test = goog.require('x.y.test');</code>
-     * the mapping will be 'x.y.test' -> 'test'
+     * the mapping will be 'x.y.test' <-> 'test'
      */
-    public final Map<String, String> fullNamespacesToShortReferences = new HashMap<>();
+    public final NamespaceAliases namespaceAliases = new NamespaceAliases();
 
     /**
      * Actual dependencies to other namespaces in the current file (e.g. new x.y.Z(); ) ), with their corresponding PSI element.
      */
-    public final ListMap<String, PsiElement> dependencies = new ListMap<>();
+    public final NamespaceMultimap<PsiElement> dependencies = new NamespaceMultimap<>();
+
+    /**
+     * The namespaces (and their parent namespaces) mentioned in Closure type comments, e.g. 'ts.my.Namespace' and
+     * 'ts.my' for 'Array<Object<ts.my.Namespace>>'. We store them to identify requires that are optional, meaning that
+     * the Closure compiler does not require them, but it will also not report them as 'obsolete'.
+     */
+    public final Set<String> namespacesInComments = new HashSet<>();
 
     /**
-     * The raw types from Closure type comments, e..g 'Array<Object<ts.my.Namespace>>' or 'string'. We store them to
-     * identify requires that are optional, meaning that  the Closure compiler does not require them, but it will also
-     * not report them as 'obsolete'.
+     * Namespaces referenced via goog.requireType('x.y.Z') or goog.forwardDeclare('x.y.Z') by the current file.
      */
-    public final Set<String> rawTypesInComments = new HashSet<>();
+    public final Set<String> typeRequires = new LinkedHashSet<>();
 
-    private final GoogRequireOrProvideRecognizer googRequireOrProvideRecognizer = new GoogRequireOrProvideRecognizer(googRequires, googProvides, googModules, fullNamespacesToShortReferences);
+    private final NamespaceMultimap<PsiElement> duplicateGoogRequires = new NamespaceMultimap<>();
 
-    private final List<DependencyRecognizerBase> dependencyRecognizers = asList( //
-            googRequireOrProvideRecognizer, //
-            new GoogInheritsLikeDependencyRecognizer(dependencies, fullNamespacesToShortReferences), //
-            new ConstructorDependencyRecognizer(dependencies, fullNamespacesToShortReferences), //
-            new ES6BaseClassDependencyRecognizer(dependencies, fullNamespacesToShortReferences), //
-            new StaticMethodOrConstantDependencyRecognizer(dependencies, fullNamespacesToShortReferences), //
-            new MemberDependencyRecognizer(dependencies, fullNamespacesToShortReferences));
+    private final NamespaceMultimap<PsiElement> duplicateGoogProvides = new NamespaceMultimap<>();
 
-    private final CommentDependencyCollector commentDependencyRecognizer = new CommentDependencyCollector(rawTypesInComments, fullNamespacesToShortReferences);
+    /**
+     * The pieces of the last extraction of a file, by statement. Changed statements are removed by the
+     * {@link StatementDependenciesInvalidator}.
+     */
+    static final Key<Map<PsiElement, StatementDependencies>> STATEMENT_DEPENDENCIES_KEY = Key.create("de.veihelmann.closureplugin.StatementDependencies");
 
+    /**
+     * Returns the dependencies of the given file, as part of its {@link ClosureFileAnalysis}. The result is cached with
+     * the file and only recomputed after the file was modified, so all inspections and quick fixes share one extraction
+     * per file version.
+     * <p>
+     * The returned extractor must be treated as read-only.
+     */
+    public static ClosureDependenciesExtractor forFile(PsiFile file) {
+        return ClosureFileAnalysis.forFile(file).dependencies;
+    }
 
     /**
      * Extracts dependencies of the given file by filling the respective fields of this class (e.g. {@link #dependencies}.
      */
     public void extractDependencies(PsiFile file) {
+        extractDependencies(file, Collections.emptyMap(), new HashMap<>());
+    }
 
-        if (!file.getFileType().getDefaultExtension().equals("js")) {
+    /**
+     * Like {@link #extractDependencies(PsiFile)}, but reuses the given pieces of a previous extraction where possible
+     * (see {@link StatementDependencies}). The pieces of this extraction are stored in the given map, in file order.
+     * <p>
+     * Other JavaScript files than .js files (e.g. TypeScript files or injected fragments) and the JavaScript embedded in
+     * other files (e.g. in <code>&lt;script&gt;</code> tags of HTML files) only get their pieces, which hold the structure
+     * used by the inspections (see {@link ClosureFileAnalysis}), but no Closure dependencies.
+     */
+    void extractDependencies(PsiFile file, Map<PsiElement, StatementDependencies> previousPieces, Map<PsiElement, StatementDependencies> pieces) {
+        boolean isClosureFile = file.getFileType().getDefaultExtension().equals("js");
+        Collection<? extends PsiElement> roots;
+        if (isClosureFile || (LanguageUtils.JAVASCRIPT != null && file.getLanguage().isKindOf(LanguageUtils.JAVASCRIPT))) {
+            roots = Collections.singletonList(file);
+        } else if (LanguageUtils.JAVASCRIPT != null) {
+            roots = PsiTreeUtil.findChildrenOfType(file, JSEmbeddedContent.class);
+        } else {
+            roots = Collections.emptyList();
+        }
+        if (roots.isEmpty()) {
             return;
         }
 
@@ -81,35 +125,121 @@ public class ClosureDependenciesExtractor {
             throw new UnsupportedOperationException("JavaScript is not available as language in your IntelliJ distribution.");
         }
 
-        new RecursiveElementVisitor().visitElement(file);
+        long start = ClosureMetrics.start();
+        int extractedPieces = 0;
+        Set<PsiElement> classMethods = new HashSet<>();
+        List<PsiElement> statements = new ArrayList<>();
+        roots.forEach(root -> collectStatements(root, statements, classMethods));
+        for (PsiElement statement : statements) {
+            StatementDependencies piece = previousPieces.get(statement);
+            if (piece == null || piece.aliasesFingerprint != namespaceAliases.fingerprint()) {
+                // Changed, or the short references visible to the statement changed
+                piece = StatementDependencies.extract(statement, classMethods, namespaceAliases);
+                extractedPieces++;
+                if (ClosureMetrics.isEnabled()) {
+                    piece.recordMetrics();
+                }
+            }
+            pieces.put(statement, piece);
+            if (isClosureFile) {
+                merge(piece);
+            }
+        }
+
+        ClosureMetrics.count("extraction.extractedStatements", extractedPieces);
+        ClosureMetrics.count("extraction.reusedStatements", pieces.size() - extractedPieces);
+        ClosureMetrics.recordTime("extraction", file, start);
     }
 
-    public ListMap<String, PsiElement> getDuplicateGoogRequires() {
-        return googRequireOrProvideRecognizer.duplicateGoogRequires;
+    /**
+     * Adds the top-level statements of the given file or embedded JavaScript to the given list, in file order. Methods of
+     * top-level classes are separate statements (collected in the given set), following their class like in the file.
+     */
+    private static void collectStatements(PsiElement root, List<PsiElement> statements, Set<PsiElement> classMethods) {
+        for (PsiElement child = root.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof PsiWhiteSpace) {
+                continue;
+            }
+            statements.add(child);
+            if (child instanceof JSClass) {
+                for (PsiElement member = child.getFirstChild(); member != null; member = member.getNextSibling()) {
+                    if (member instanceof JSFunction) {
+                        statements.add(member);
+                        classMethods.add(member);
+                    }
+                }
+            }
+        }
     }
 
+    private void merge(StatementDependencies piece) {
+        piece.googRequires.forEach((namespace, element) -> {
+            if (googRequires.containsKey(namespace)) {
+                duplicateGoogRequires.put(namespace, element);
+                return;
+            }
+            googRequires.put(namespace, element);
+            String shortReference = piece.registeredAliases.get(namespace);
+            if (shortReference != null) {
+                namespaceAliases.put(namespace, shortReference);
+            }
+        });
+        piece.googProvides.forEach((namespace, element) -> {
+            if (googProvides.containsKey(namespace)) {
+                duplicateGoogProvides.put(namespace, element);
+            } else {
+                googProvides.put(namespace, element);
+            }
+        });
+        googModules.putAll(piece.googModules);
+
+        duplicateGoogRequires.putAll(piece.duplicateGoogRequires);
+        duplicateGoogProvides.putAll(piece.duplicateGoogProvides);
+        dependencies.putAll(piece.dependencies);
+        namespacesInComments.addAll(piece.namespacesInComments);
+        typeRequires.addAll(piece.typeRequires);
+    }
 
-    public ListMap<String, PsiElement> getDuplicateGoogProvides() {
-        return googRequireOrProvideRecognizer.duplicateGoogProvides;
+    /**
+     * @return whether the given namespace (a key of {@link #dependencies}) is neither required nor provided by the file.
+     */
+    public boolean isMissingRequire(String namespace) {
+        return !googProvides.containsKey(namespace) && !googRequires.containsKey(namespace)
+                && !NamespacePrefixes.isPrefixOfAnyKey(googProvides, namespace);
     }
 
-    class RecursiveElementVisitor extends FilteringPsiRecursiveElementWalkingVisitor {
+    /**
+     * @return whether the given required namespace (a key of {@link #googRequires}) is not used in the file.
+     */
+    public boolean isObsoleteRequire(String requiredNamespace) {
+        if (dependencies.containsKey(requiredNamespace)) {
+            return false;
+        }
+        if (namespaceAliases.containsFullNamespace(requiredNamespace) && dependencies.containsKey(namespaceAliases.getShortReference(requiredNamespace))) {
+            return false;
+        }
+        // If one of the type parameters in the comments contains this namespace, this is an optional dependency and
+        // will not be reported as 'obsolete'.
+        return !namespacesInComments.contains(requiredNamespace);
+    }
 
-        @Override
-        public void visitElement(PsiElement element) {
-            super.visitElement(element);
+    /**
+     * @return the namespaces this file should require: all current requires which are not obsolete, plus all missing
+     * ones.
+     */
+    public SortedSet<String> computeNecessaryRequires() {
+        SortedSet<String> necessaryRequires = new TreeSet<>(Comparator.naturalOrder());
+        googRequires.keySet().stream().filter(namespace -> !isObsoleteRequire(namespace)).forEach(necessaryRequires::add);
+        dependencies.keys().stream().filter(this::isMissingRequire).forEach(necessaryRequires::add);
+        return necessaryRequires;
+    }
 
-            for (DependencyRecognizerBase consumer : dependencyRecognizers) {
-                if (consumer.consumeElement(element)) {
-                    return;
-                }
-            }
-        }
+    public NamespaceMultimap<PsiElement> getDuplicateGoogRequires() {
+        return duplicateGoogRequires;
+    }
 
-        @Override
-        public void visitComment(PsiComment psiComment) {
-            super.visitComment(psiComment);
-            commentDependencyRecognizer.collectTypeDependenciesFromComment(psiComment);
-        }
+
+    public NamespaceMultimap<PsiElement> getDuplicateGoogProvides() {
+        return duplicateGoogProvides;
     }
 }
@@ -0,0 +1,104 @@
+package de.veihelmann.closureplugin;
+
+import com.intellij.lang.javascript.psi.JSCallExpression;
+import com.intellij.lang.javascript.psi.JSFunction;
+import com.intellij.lang.javascript.psi.JSIndexedPropertyAccessExpression;
+import com.intellij.lang.javascript.psi.jsdoc.JSDocTag;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiTreeUtil;
+import de.veihelmann.closureplugin.utils.GoogModuleExports;
+
+import java.util.*;
+
+/**
+ * The Closure-relevant structure of a single file, collected in the same traversal as its dependencies (see
+ * {@link StatementDependencies}). All inspections of this plugin query this model instead of walking the file
+ * themselves.
+ * <p>
+ * The model is cached with the file and must be treated as read-only.
+ */
+public class ClosureFileAnalysis {
+
+    /**
+     * The dependencies of the file.
+     */
+    public final ClosureDependenciesExtractor dependencies = new ClosureDependenciesExtractor();
+
+    /**
+     * The methods of class expressions (e.g. <code>x.y.Z = class { ... }</code>), in file order.
+     */
+    public final List<JSFunction> classMethods = new ArrayList<>();
+
+    /**
+     * The @param tags of all JSDoc comments.
+     */
+    public final List<JSDocTag> paramTags = new ArrayList<>();
+
+    /**
+     * All accesses in bracket notation, e.g. <code>myVar['fieldName']</code>.
+     */
+    public final List<JSIndexedPropertyAccessExpression> bracketAccesses = new ArrayList<>();
+
+    /**
+     * The goog.provide calls of the file, including duplicate ones, in file order.
+     */
+    public final List<JSCallExpression> googProvideCalls = new ArrayList<>();
+
+    /**
+     * The members exported by the file if it is a goog.module, mapped to the element declaring them (see
+     * {@link GoogModuleExports}), in file order.
+     */
+    public final Map<String, PsiElement> moduleExports = new LinkedHashMap<>();
+
+    /**
+     * Whether the file calls goog.module.declareLegacyNamespace().
+     */
+    public boolean declaresLegacyNamespace;
+
+    private ClosureFileAnalysis() {
+    }
+
+    /**
+     * Returns the analysis of the given file. The result is cached with the file and only recomputed after the file was
+     * modified. The recomputation only extracts the changed statements again.
+     */
+    public static ClosureFileAnalysis forFile(PsiFile file) {
+        return CachedValuesManager.getCachedValue(file, () -> {
+            StatementDependenciesInvalidator.ensureRegistered(file.getProject());
+
+            // Only physical files notify the invalidator about changes
+            Map<PsiElement, StatementDependencies> previousPieces = file.isPhysical() ? file.getUserData(ClosureDependenciesExtractor.STATEMENT_DEPENDENCIES_KEY) : null;
+            Map<PsiElement, StatementDependencies> pieces = new LinkedHashMap<>();
+            ClosureFileAnalysis analysis = new ClosureFileAnalysis();
+            analysis.dependencies.extractDependencies(file, previousPieces != null ? previousPieces : Collections.emptyMap(), pieces);
+            analysis.collectStructure(pieces.values());
+            if (file.isPhysical()) {
+                file.putUserData(ClosureDependenciesExtractor.STATEMENT_DEPENDENCIES_KEY, pieces);
+            }
+            return CachedValueProvider.Result.create(analysis, file);
+        });
+    }
+
+    private void collectStructure(Collection<StatementDependencies> pieces) {
+        for (StatementDependencies piece : pieces) {
+            classMethods.addAll(piece.classMethods);
+            paramTags.addAll(piece.paramTags);
+            bracketAccesses.addAll(piece.bracketAccesses);
+            piece.moduleExports.forEach(moduleExports::putIfAbsent);
+            declaresLegacyNamespace |= piece.declaresLegacyNamespace;
+            // From the pieces, as the dependencies are only merged for .js files
+            piece.googProvides.values().forEach(this::addProvideCall);
+            piece.duplicateGoogProvides.forEach((namespace, provideStatement) -> addProvideCall(provideStatement));
+        }
+    }
+
+    private void addProvideCall(PsiElement provideStatement) {
+        JSCallExpression provideCall = PsiTreeUtil.findChildOfType(provideStatement, JSCallExpression.class, false);
+        if (provideCall != null) {
+            googProvideCalls.add(provideCall);
+        }
+    }
+}
@@ -10,7 +10,8 @@ import org.jetbrains.annotations.NotNull;
 public class ClosureInspectionsProvider implements InspectionToolProvider {
     @NotNull
     public Class[] getInspectionClasses() {
-        return new Class[]{MissingOrObsoleteGoogRequiresInspection.class, UseOfBracketNotationInspection.class, MisplacedTypeInCommentInspection.class, MissingMethodCommentInspection.class, ConvertToGoogModuleInspection.class
+        return new Class[]{MissingOrObsoleteGoogRequiresInspection.class, UseOfBracketNotationInspection.class, MisplacedTypeInCommentInspection.class, MissingMethodCommentInspection.class, ConvertToGoogModuleInspection.class, GoogRequireCycleInspection.class,
+                UnusedGoogNamespaceInspection.class, UnusedGoogModuleExportInspection.class
         };
     }
 }
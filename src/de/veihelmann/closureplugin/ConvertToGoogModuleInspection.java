@@ -4,10 +4,10 @@ import com.intellij.codeInsight.daemon.GroupNames;
 import com.intellij.codeInspection.LocalInspectionTool;
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
-import com.intellij.lang.javascript.psi.JSCallExpression;
-import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.PsiFile;
 import de.veihelmann.closureplugin.fixes.ConvertToGoogModuleFix;
+import de.veihelmann.closureplugin.metrics.ClosureMetrics;
 import org.jetbrains.annotations.NotNull;
 
 public class ConvertToGoogModuleInspection extends LocalInspectionTool {
@@ -30,21 +30,15 @@ public class ConvertToGoogModuleInspection extends LocalInspectionTool {
     @NotNull
     @Override
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder problemsHolder, boolean isOnTheFly) {
-        return new PsiElementVisitor() {
+        return ClosureMetrics.withFileTiming("inspection." + getShortName(), new PsiElementVisitor() {
             @Override
-            public void visitElement(PsiElement element) {
-                super.visitElement(element);
-
-                if (!(element instanceof JSCallExpression)) {
-                    return;
-                }
-                JSCallExpression statement = (JSCallExpression) element;
-                if (statement.getText() == null || !statement.getText().startsWith("goog.provide(")) {
-                    return;
-                }
-                problemsHolder.registerProblem(statement, "Convert to goog.module", ProblemHighlightType.WARNING, new ConvertToGoogModuleFix(statement));
+            public void visitFile(PsiFile file) {
+                super.visitFile(file);
+
+                ClosureFileAnalysis.forFile(file).googProvideCalls.forEach(provideCall ->
+                        problemsHolder.registerProblem(provideCall, "Convert to goog.module", ProblemHighlightType.WARNING, new ConvertToGoogModuleFix(provideCall)));
             }
-        };
+        });
     }
 
     public boolean isEnabledByDefault() {
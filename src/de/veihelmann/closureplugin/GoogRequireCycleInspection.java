@@ -0,0 +1,89 @@
+package de.veihelmann.closureplugin;
+
+import com.intellij.codeInsight.daemon.GroupNames;
+import com.intellij.codeInspection.LocalInspectionTool;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.PsiFile;
+import de.veihelmann.closureplugin.index.RequireCycleDetector;
+import de.veihelmann.closureplugin.metrics.ClosureMetrics;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Checks whether the namespaces declared in a file are part of a goog.require cycle (e.g. a requires b, and b requires
+ * a). The cycle is reported at the goog.require statement of the file which is part of it.
+ */
+public class GoogRequireCycleInspection extends LocalInspectionTool {
+
+    @NotNull
+    public String getDisplayName() {
+        return "Cyclic goog.require statements";
+    }
+
+    @NotNull
+    public String getGroupDisplayName() {
+        return GroupNames.MODULARIZATION_GROUP_NAME;
+    }
+
+    @NotNull
+    public String getShortName() {
+        return "GoogRequireCycleInspection";
+    }
+
+    @NotNull
+    @Override
+    public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder problemsHolder, boolean isOnTheFly) {
+        return ClosureMetrics.withFileTiming("inspection." + getShortName(), new PsiElementVisitor() {
+            @Override
+            public void visitFile(PsiFile file) {
+                super.visitFile(file);
+
+                if (DumbService.isDumb(file.getProject())) {
+                    return;
+                }
+                ClosureDependenciesExtractor extractor = ClosureDependenciesExtractor.forFile(file);
+                if (extractor.googRequires.isEmpty()) {
+                    return;
+                }
+
+                Set<String> declaredNamespaces = new TreeSet<>(extractor.googProvides.keySet());
+                declaredNamespaces.addAll(extractor.googModules.keySet());
+
+                Map<String, List<String>> cycles = RequireCycleDetector.getInstance(file.getProject()).findCycles(declaredNamespaces);
+                Set<PsiElement> reportedRequires = new HashSet<>();
+                for (Map.Entry<String, List<String>> namespaceCycle : cycles.entrySet()) {
+                    String namespace = namespaceCycle.getKey();
+                    List<String> cycle = namespaceCycle.getValue();
+                    PsiElement problemElement = findProblemElement(extractor, declaredNamespaces, namespace, cycle);
+                    if (problemElement != null && reportedRequires.add(problemElement)) {
+                        problemsHolder.registerProblem(problemElement, "goog.require cycle: " + String.join(" -> ", cycle));
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * @return the goog.require statement of the file leaving the file in the cycle. Files declaring several namespaces
+     * may enter the cycle with one namespace and leave it with another one, so the first goog.require of the file within
+     * the cycle is taken. Falls back to the declaration of the given namespace.
+     */
+    private static PsiElement findProblemElement(ClosureDependenciesExtractor extractor, Set<String> declaredNamespaces, String namespace, List<String> cycle) {
+        for (int i = 0; i + 1 < cycle.size(); i++) {
+            PsiElement requireStatement = extractor.googRequires.get(cycle.get(i + 1));
+            if (declaredNamespaces.contains(cycle.get(i)) && requireStatement != null) {
+                return requireStatement;
+            }
+        }
+        PsiElement declaration = extractor.googProvides.get(namespace);
+        return declaration != null ? declaration : extractor.googModules.get(namespace);
+    }
+
+    public boolean isEnabledByDefault() {
+        return true;
+    }
+}
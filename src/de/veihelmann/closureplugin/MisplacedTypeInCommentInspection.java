@@ -3,20 +3,14 @@ package de.veihelmann.closureplugin;
 import com.intellij.codeInsight.daemon.GroupNames;
 import com.intellij.codeInspection.LocalInspectionTool;
 import com.intellij.codeInspection.ProblemsHolder;
-import com.intellij.lang.javascript.psi.jsdoc.JSDocComment;
-import com.intellij.lang.javascript.psi.jsdoc.JSDocTag;
-import com.intellij.psi.PsiComment;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiWhiteSpace;
-import de.veihelmann.closureplugin.dependency_recognizers.CommentDependencyCollector;
 import de.veihelmann.closureplugin.fixes.SwappedTypeAndParameterInCommentFix;
+import de.veihelmann.closureplugin.metrics.ClosureMetrics;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.List;
-
 /**
  * The inspection for missing or superfluous goog.require statements in a file.
  */
@@ -41,23 +35,20 @@ public class MisplacedTypeInCommentInspection extends LocalInspectionTool {
     @NotNull
     @Override
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
-        return new PsiElementVisitor() {
+        return ClosureMetrics.withFileTiming("inspection." + getShortName(), new PsiElementVisitor() {
             @Override
-            public void visitComment(PsiComment comment) {
-                super.visitComment(comment);
+            public void visitFile(PsiFile file) {
+                super.visitFile(file);
 
-                if (!(comment instanceof JSDocComment)) {
-                    return;
-                }
-                List<JSDocTag> paramTags = CommentDependencyCollector.collectTagsFromComment((JSDocComment) comment, new HashSet<>(Arrays.asList("param")));
-                paramTags.forEach(tag -> {
-                    if (tag.getChildren().length <= 1) {
+                ClosureFileAnalysis.forFile(file).paramTags.forEach(tag -> {
+                    PsiElement[] tagChildren = tag.getChildren();
+                    if (tagChildren.length <= 1) {
                         return;
                     }
-                    PsiElement afterParamElement = tag.getChildren()[1];
+                    PsiElement afterParamElement = tagChildren[1];
                     if (afterParamElement instanceof PsiWhiteSpace) {
-                        if (tag.getChildren().length > 2) {
-                            afterParamElement = tag.getChildren()[2];
+                        if (tagChildren.length > 2) {
+                            afterParamElement = tagChildren[2];
                         } else {
                             return;
                         }
@@ -75,7 +66,7 @@ public class MisplacedTypeInCommentInspection extends LocalInspectionTool {
                 });
 
             }
-        };
+        });
 
     }
 
@@ -3,12 +3,13 @@ package de.veihelmann.closureplugin;
 import com.intellij.codeInsight.daemon.GroupNames;
 import com.intellij.codeInspection.LocalInspectionTool;
 import com.intellij.codeInspection.ProblemsHolder;
-import com.intellij.lang.ecmascript6.psi.ES6ClassExpression;
 import com.intellij.lang.javascript.psi.JSFunction;
 import com.intellij.psi.PsiComment;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.PsiFile;
 import de.veihelmann.closureplugin.fixes.MissingMethodCommentFix;
+import de.veihelmann.closureplugin.metrics.ClosureMetrics;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Objects;
@@ -36,24 +37,13 @@ public class MissingMethodCommentInspection extends LocalInspectionTool {
     @NotNull
     @Override
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
-        return new PsiElementVisitor() {
+        return ClosureMetrics.withFileTiming("inspection." + getShortName(), new PsiElementVisitor() {
 
             @Override
-            public void visitElement(PsiElement element) {
-                super.visitElement(element);
+            public void visitFile(PsiFile file) {
+                super.visitFile(file);
 
-                if (!(element instanceof ES6ClassExpression)) {
-                    return;
-                }
-
-                ES6ClassExpression classElement = (ES6ClassExpression) element;
-                for (int i = 0; i < classElement.getChildren().length; i++) {
-                    PsiElement child = classElement.getChildren()[i];
-                    if (!(child instanceof JSFunction)) {
-                        continue;
-                    }
-
-                    JSFunction functionElement = (JSFunction) child;
+                for (JSFunction functionElement : ClosureFileAnalysis.forFile(file).classMethods) {
                     boolean isConstructor = Objects.equals(functionElement.getName(), "constructor");
 
                     // Report undocumented method if
@@ -68,7 +58,7 @@ public class MissingMethodCommentInspection extends LocalInspectionTool {
             private boolean methodHasNoComment(PsiElement methodELement) {
                 return !(methodELement.getFirstChild() instanceof PsiComment);
             }
-        };
+        });
 
     }
 
@@ -2,19 +2,20 @@ package de.veihelmann.closureplugin;
 
 import com.intellij.codeInsight.daemon.GroupNames;
 import com.intellij.codeInspection.LocalInspectionTool;
+import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
-import com.intellij.psi.PsiDocumentManager;
+import com.intellij.openapi.project.DumbService;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiFile;
 import de.veihelmann.closureplugin.fixes.MissingGoogRequireFix;
 import de.veihelmann.closureplugin.fixes.ObsoleteRequireOrProvideFix;
-import de.veihelmann.closureplugin.utils.ListMap;
+import de.veihelmann.closureplugin.index.ClosureNamespaceIndex;
+import de.veihelmann.closureplugin.metrics.ClosureMetrics;
+import de.veihelmann.closureplugin.utils.NamespaceMultimap;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import static com.intellij.codeInspection.ProblemHighlightType.GENERIC_ERROR_OR_WARNING;
 
@@ -42,7 +43,7 @@ public class MissingOrObsoleteGoogRequiresInspection extends LocalInspectionTool
     @NotNull
     @Override
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
-        return new ValidateRequirementsPsiRecursiveElementVisitor(holder);
+        return ClosureMetrics.withFileTiming("inspection." + getShortName(), new ValidateRequirementsPsiRecursiveElementVisitor(holder));
     }
 
     public boolean isEnabledByDefault() {
@@ -61,28 +62,34 @@ public class MissingOrObsoleteGoogRequiresInspection extends LocalInspectionTool
         public void visitFile(PsiFile file) {
             super.visitFile(file);
 
-            ClosureDependenciesExtractor extractor = new ClosureDependenciesExtractor();
-            extractor.extractDependencies(file);
+            ClosureDependenciesExtractor extractor = ClosureDependenciesExtractor.forFile(file);
 
             markDuplicationProblem(extractor.getDuplicateGoogRequires(), "Duplicate goog.require");
             markDuplicationProblem(extractor.getDuplicateGoogProvides(), "Duplicate goog.provide");
 
             markMissingRequires(extractor);
             markObsoleteRequires(extractor);
+            markUnknownRequires(file, extractor);
         }
 
-        private void markObsoleteRequires(ClosureDependenciesExtractor extractor) {
+        /**
+         * Marks goog.requires of namespaces which are not declared by any file of the project (or its libraries).
+         */
+        private void markUnknownRequires(PsiFile file, ClosureDependenciesExtractor extractor) {
+            if (DumbService.isDumb(file.getProject())) {
+                return;
+            }
             for (Map.Entry<String, PsiElement> declaredDependency : extractor.googRequires.entrySet()) {
-                String namespace = declaredDependency.getKey();
-                if (extractor.dependencies.containsKey(namespace)) {
-                    continue;
-                }
-                if (extractor.fullNamespacesToShortReferences.containsKey(namespace) && extractor.dependencies.containsKey(extractor.fullNamespacesToShortReferences.get(namespace))) {
-                    continue;
+                if (!ClosureNamespaceIndex.isNamespaceDeclared(file.getProject(), declaredDependency.getKey())) {
+                    problemsHolder.registerProblem(declaredDependency.getValue(), "Unknown namespace: no file declares '" + declaredDependency.getKey() + "'",
+                            ProblemHighlightType.WEAK_WARNING);
                 }
-                if (extractor.rawTypesInComments.stream().anyMatch(commentString -> commentString.contains(namespace))) {
-                    // One of the type parameters in the comments contains this namespace. This is thus an optional
-                    // dependency and will not be reported as 'obsolete'.
+            }
+        }
+
+        private void markObsoleteRequires(ClosureDependenciesExtractor extractor) {
+            for (Map.Entry<String, PsiElement> declaredDependency : extractor.googRequires.entrySet()) {
+                if (!extractor.isObsoleteRequire(declaredDependency.getKey())) {
                     continue;
                 }
                 PsiElement requireElement = declaredDependency.getValue();
@@ -93,33 +100,24 @@ public class MissingOrObsoleteGoogRequiresInspection extends LocalInspectionTool
 
         private void markMissingRequires(ClosureDependenciesExtractor extractor) {
 
-            extractor.dependencies.keys().forEach(namespace -> {
-                List<PsiElement> dependencyLocations = extractor.dependencies.getNullSafe(namespace);
-                if (!isMissingRequire(extractor, namespace)) {
-                    return;
+            NamespaceMultimap<PsiElement> dependencies = extractor.dependencies;
+            for (int key = 0; key < dependencies.keyCount(); key++) {
+                String namespace = dependencies.keyAt(key);
+                if (!extractor.isMissingRequire(namespace)) {
+                    continue;
                 }
-                for (PsiElement location : dependencyLocations) {
-                    MissingGoogRequireFix fix = new MissingGoogRequireFix(location, extractor.googRequires, namespace, extractor.googProvides, extractor.googModules, extractor.fullNamespacesToShortReferences);
+                for (int offset = dependencies.firstValueOffset(key); offset != NamespaceMultimap.NO_VALUE; offset = dependencies.nextValueOffset(offset)) {
+                    PsiElement location = dependencies.valueAt(offset);
+                    MissingGoogRequireFix fix = new MissingGoogRequireFix(location, namespace);
                     problemsHolder.registerProblem(location, "No goog.require for '" + namespace + "'", GENERIC_ERROR_OR_WARNING, fix);
                 }
-            });
-        }
-
-        private boolean isMissingRequire(ClosureDependenciesExtractor extractor, String namespace) {
-            return !extractor.googProvides.containsKey(namespace) && !extractor.googRequires.containsKey(namespace)
-                    && !namespaceIsPrefixOfProvidedNamespace(extractor.googProvides.keySet(), namespace);
-        }
-
-        private boolean namespaceIsPrefixOfProvidedNamespace(Set<String> providedNamespaces, String namespace) {
-            return providedNamespaces.stream().anyMatch(providedNamespace -> providedNamespace.startsWith(namespace));
+            }
         }
 
 
-        private void markDuplicationProblem(ListMap<String, PsiElement> duplicateElements, String message) {
-            duplicateElements.keys().forEach(namespace -> {
-                duplicateElements.getNullSafe(namespace).forEach(element -> problemsHolder.registerProblem(element, message,
-                        new ObsoleteRequireOrProvideFix(element, namespace, false)));
-            });
+        private void markDuplicationProblem(NamespaceMultimap<PsiElement> duplicateElements, String message) {
+            duplicateElements.forEach((namespace, element) -> problemsHolder.registerProblem(element, message,
+                    new ObsoleteRequireOrProvideFix(element, namespace, false)));
         }
     }
 }
@@ -0,0 +1,233 @@
+package de.veihelmann.closureplugin;
+
+import com.intellij.lang.ecmascript6.psi.ES6ClassExpression;
+import com.intellij.lang.javascript.psi.JSAssignmentExpression;
+import com.intellij.lang.javascript.psi.JSCallExpression;
+import com.intellij.lang.javascript.psi.JSExpression;
+import com.intellij.lang.javascript.psi.JSFunction;
+import com.intellij.lang.javascript.psi.JSIndexedPropertyAccessExpression;
+import com.intellij.lang.javascript.psi.JSStatement;
+import com.intellij.lang.javascript.psi.jsdoc.JSDocComment;
+import com.intellij.lang.javascript.psi.jsdoc.JSDocTag;
+import com.intellij.psi.PsiComment;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.util.PsiTreeUtil;
+import de.veihelmann.closureplugin.dependency_recognizers.*;
+import de.veihelmann.closureplugin.metrics.ClosureMetrics;
+import de.veihelmann.closureplugin.utils.GoogModuleExports;
+import de.veihelmann.closureplugin.utils.NamespaceAliases;
+import de.veihelmann.closureplugin.utils.NamespaceMultimap;
+import org.jetbrains.debugger.PsiVisitors.FilteringPsiRecursiveElementWalkingVisitor;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static java.util.Arrays.asList;
+
+/**
+ * The dependencies found in one top-level statement (or class method) of a file. The file-level results of
+ * {@link ClosureDependenciesExtractor} are merged from these pieces, so after a change only the pieces of the changed
+ * statements need to be extracted again.
+ */
+class StatementDependencies {
+
+    /**
+     * Maps a PSI element class to the indices (in {@link #dependencyRecognizers}) of the recognizers handling it, in
+     * recognizer order. Every piece uses the same recognizer order, so the table is shared and each element class is
+     * only resolved once.
+     */
+    private static final Map<Class<?>, int[]> RECOGNIZER_INDICES_BY_ELEMENT_CLASS = new ConcurrentHashMap<>();
+
+    private static final Set<String> PARAM_TAG_NAMES = Collections.singleton("param");
+
+    private static final String DECLARE_LEGACY_NAMESPACE_METHOD = "declareLegacyNamespace";
+
+    private static final String DECLARE_LEGACY_NAMESPACE = "goog.module." + DECLARE_LEGACY_NAMESPACE_METHOD;
+
+    /**
+     * Fingerprint of the aliases the namespaces of this piece were resolved with, see {@link NamespaceAliases#fingerprint()}.
+     */
+    final long aliasesFingerprint;
+
+    final Map<String, PsiElement> googRequires = new LinkedHashMap<>();
+
+    final Map<String, JSStatement> googProvides = new LinkedHashMap<>();
+
+    final Map<String, JSStatement> googModules = new LinkedHashMap<>();
+
+    /**
+     * The short references registered by goog.requires in this piece (full namespace -> short reference).
+     */
+    final Map<String, String> registeredAliases = new LinkedHashMap<>();
+
+    final NamespaceMultimap<PsiElement> dependencies = new NamespaceMultimap<>();
+
+    final Set<String> namespacesInComments = new HashSet<>();
+
+    final NamespaceMultimap<PsiElement> duplicateGoogRequires;
+
+    final NamespaceMultimap<PsiElement> duplicateGoogProvides;
+
+    final Set<String> typeRequires;
+
+    /**
+     * Structure of the statement used by the inspections, see {@link ClosureFileAnalysis}.
+     */
+    final List<JSFunction> classMethods = new ArrayList<>();
+
+    final List<JSDocTag> paramTags = new ArrayList<>();
+
+    final List<JSIndexedPropertyAccessExpression> bracketAccesses = new ArrayList<>();
+
+    final Map<String, PsiElement> moduleExports = new LinkedHashMap<>();
+
+    boolean declaresLegacyNamespace;
+
+    /**
+     * Statistics of the extraction, collected only while {@link ClosureMetrics} are recorded.
+     */
+    int visitedElements;
+
+    final int[] consumedElementsByRecognizer;
+
+    final long[] nanosByRecognizer;
+
+    private final NamespaceAliases namespaceAliases;
+
+    private final List<DependencyRecognizerBase<?>> dependencyRecognizers;
+
+    private final CommentDependencyCollector commentDependencyCollector;
+
+    private StatementDependencies(NamespaceAliases visibleAliases) {
+        this.aliasesFingerprint = visibleAliases.fingerprint();
+        this.namespaceAliases = new NamespaceAliases(visibleAliases);
+
+        GoogRequireOrProvideRecognizer googRequireOrProvideRecognizer = new GoogRequireOrProvideRecognizer(googRequires, googProvides, googModules, namespaceAliases);
+        this.duplicateGoogRequires = googRequireOrProvideRecognizer.duplicateGoogRequires;
+        this.duplicateGoogProvides = googRequireOrProvideRecognizer.duplicateGoogProvides;
+        this.typeRequires = googRequireOrProvideRecognizer.typeRequires;
+        this.dependencyRecognizers = asList( //
+                googRequireOrProvideRecognizer, //
+                new GoogInheritsLikeDependencyRecognizer(dependencies, namespaceAliases), //
+                new ConstructorDependencyRecognizer(dependencies, namespaceAliases), //
+                new ES6BaseClassDependencyRecognizer(dependencies, namespaceAliases), //
+                new StaticMethodOrConstantDependencyRecognizer(dependencies, namespaceAliases), //
+                new MemberDependencyRecognizer(dependencies, namespaceAliases));
+        this.commentDependencyCollector = new CommentDependencyCollector(namespacesInComments, namespaceAliases);
+        this.consumedElementsByRecognizer = new int[dependencyRecognizers.size()];
+        this.nanosByRecognizer = new long[dependencyRecognizers.size()];
+    }
+
+    /**
+     * Adds the statistics of this piece to the {@link ClosureMetrics}.
+     */
+    void recordMetrics() {
+        ClosureMetrics.count("extraction.visitedElements", visitedElements);
+        for (int i = 0; i < dependencyRecognizers.size(); i++) {
+            String recognizerName = dependencyRecognizers.get(i).getClass().getSimpleName();
+            ClosureMetrics.count("recognizer." + recognizerName + ".consumedElements", consumedElementsByRecognizer[i]);
+            ClosureMetrics.count("recognizer." + recognizerName + ".micros", nanosByRecognizer[i] / 1000);
+        }
+    }
+
+    /**
+     * Extracts the dependencies of the given statement, resolving short references with the given aliases (those
+     * registered before the statement).
+     *
+     * @param skippedElements descendants of the statement which are not visited (as they form pieces of their own).
+     */
+    static StatementDependencies extract(PsiElement statement, Set<PsiElement> skippedElements, NamespaceAliases visibleAliases) {
+        StatementDependencies piece = new StatementDependencies(visibleAliases);
+        statement.accept(piece.new RecursiveElementVisitor(statement, skippedElements));
+
+        for (String fullNamespace : piece.namespaceAliases.fullNamespaces()) {
+            String shortReference = piece.namespaceAliases.getShortReference(fullNamespace);
+            if (shortReference != null && !shortReference.equals(visibleAliases.getShortReference(fullNamespace))) {
+                piece.registeredAliases.put(fullNamespace, shortReference);
+            }
+        }
+        return piece;
+    }
+
+    class RecursiveElementVisitor extends FilteringPsiRecursiveElementWalkingVisitor {
+
+        private final PsiElement root;
+
+        private final Set<PsiElement> skippedElements;
+
+        private final boolean recordMetrics = ClosureMetrics.isEnabled();
+
+        RecursiveElementVisitor(PsiElement root, Set<PsiElement> skippedElements) {
+            this.root = root;
+            this.skippedElements = skippedElements;
+        }
+
+        @Override
+        public void visitElement(PsiElement element) {
+            if (element != root && skippedElements.contains(element)) {
+                return;
+            }
+            super.visitElement(element);
+            collectStructure(element);
+
+            int[] recognizerIndices = RECOGNIZER_INDICES_BY_ELEMENT_CLASS.computeIfAbsent(element.getClass(), this::findRecognizerIndices);
+            if (recordMetrics) {
+                visitedElements++;
+                consumeElementRecordingMetrics(element, recognizerIndices);
+                return;
+            }
+            for (int recognizerIndex : recognizerIndices) {
+                if (dependencyRecognizers.get(recognizerIndex).consumeElement(element)) {
+                    return;
+                }
+            }
+        }
+
+        private void consumeElementRecordingMetrics(PsiElement element, int[] recognizerIndices) {
+            for (int recognizerIndex : recognizerIndices) {
+                long start = System.nanoTime();
+                boolean consumed = dependencyRecognizers.get(recognizerIndex).consumeElement(element);
+                nanosByRecognizer[recognizerIndex] += System.nanoTime() - start;
+                if (consumed) {
+                    consumedElementsByRecognizer[recognizerIndex]++;
+                    return;
+                }
+            }
+        }
+
+        private void collectStructure(PsiElement element) {
+            if (element instanceof JSIndexedPropertyAccessExpression) {
+                bracketAccesses.add((JSIndexedPropertyAccessExpression) element);
+            } else if (element instanceof JSAssignmentExpression) {
+                GoogModuleExports.collectExports((JSAssignmentExpression) element, moduleExports);
+            } else if (element instanceof JSCallExpression) {
+                JSExpression method = ((JSCallExpression) element).getMethodExpression();
+                // Only takes the text of methods named like declareLegacyNamespace
+                declaresLegacyNamespace |= method != null && PsiTreeUtil.getDeepestLast(method).textMatches(DECLARE_LEGACY_NAMESPACE_METHOD)
+                        && NamespaceAliases.normalizeNamespace(method.getText()).equals(DECLARE_LEGACY_NAMESPACE);
+            } else if (element instanceof ES6ClassExpression) {
+                for (PsiElement child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+                    if (child instanceof JSFunction) {
+                        classMethods.add((JSFunction) child);
+                    }
+                }
+            }
+        }
+
+        private int[] findRecognizerIndices(Class<?> elementClass) {
+            return IntStream.range(0, dependencyRecognizers.size())
+                    .filter(index -> dependencyRecognizers.get(index).getElementClass().isAssignableFrom(elementClass))
+                    .toArray();
+        }
+
+        @Override
+        public void visitComment(PsiComment psiComment) {
+            super.visitComment(psiComment);
+            commentDependencyCollector.collectTypeDependenciesFromComment(psiComment);
+            if (psiComment instanceof JSDocComment) {
+                paramTags.addAll(CommentDependencyCollector.collectTagsFromComment((JSDocComment) psiComment, PARAM_TAG_NAMES));
+            }
+        }
+    }
+}
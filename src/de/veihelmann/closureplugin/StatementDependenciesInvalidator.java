@@ -0,0 +1,80 @@
+package de.veihelmann.closureplugin;
+
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.*;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+
+/**
+ * Removes the cached {@link StatementDependencies} of all statements containing a PSI change, so only these are
+ * extracted again by {@link ClosureDependenciesExtractor#forFile(PsiFile)}.
+ */
+public class StatementDependenciesInvalidator extends PsiTreeChangeAdapter {
+
+    public StatementDependenciesInvalidator(Project project) {
+        PsiManager.getInstance(project).addPsiTreeChangeListener(this, project);
+    }
+
+    /**
+     * Makes sure the listener is registered before the first pieces of a file are cached.
+     */
+    static void ensureRegistered(Project project) {
+        ServiceManager.getService(project, StatementDependenciesInvalidator.class);
+    }
+
+    @Override
+    public void childAdded(@NotNull PsiTreeChangeEvent event) {
+        invalidate(event.getFile(), event.getParent());
+    }
+
+    @Override
+    public void childRemoved(@NotNull PsiTreeChangeEvent event) {
+        invalidate(event.getFile(), event.getParent());
+    }
+
+    @Override
+    public void childReplaced(@NotNull PsiTreeChangeEvent event) {
+        invalidate(event.getFile(), event.getParent());
+    }
+
+    @Override
+    public void childMoved(@NotNull PsiTreeChangeEvent event) {
+        invalidate(event.getFile(), event.getOldParent());
+        invalidate(event.getFile(), event.getNewParent());
+    }
+
+    @Override
+    public void childrenChanged(@NotNull PsiTreeChangeEvent event) {
+        PsiFile file = event.getFile();
+        if (file != null && event.getParent() == file) {
+            // Unspecific change somewhere in the file
+            file.putUserData(ClosureDependenciesExtractor.STATEMENT_DEPENDENCIES_KEY, null);
+            return;
+        }
+        invalidate(file, event.getParent());
+    }
+
+    @Override
+    public void propertyChanged(@NotNull PsiTreeChangeEvent event) {
+        PsiFile file = event.getFile();
+        if (file != null) {
+            file.putUserData(ClosureDependenciesExtractor.STATEMENT_DEPENDENCIES_KEY, null);
+        }
+    }
+
+    private static void invalidate(PsiFile file, PsiElement changedElement) {
+        if (file == null || changedElement == null) {
+            return;
+        }
+        Map<PsiElement, StatementDependencies> pieces = file.getUserData(ClosureDependenciesExtractor.STATEMENT_DEPENDENCIES_KEY);
+        if (pieces == null) {
+            return;
+        }
+        // Removes the statement (and for class methods also the class) containing the change
+        for (PsiElement element = changedElement; element != null && element != file; element = element.getParent()) {
+            pieces.remove(element);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package de.veihelmann.closureplugin;
+
+import com.intellij.codeInsight.daemon.GroupNames;
+import com.intellij.codeInspection.LocalInspectionTool;
+import com.intellij.codeInspection.ProblemHighlightType;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.PsiFile;
+import de.veihelmann.closureplugin.index.GoogModuleMemberUsageIndex;
+import de.veihelmann.closureplugin.metrics.ClosureMetrics;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+
+/**
+ * Checks for members exported by a goog.module which are not used by any other file of the project (according to the
+ * {@link GoogModuleMemberUsageIndex}). Modules declaring a legacy namespace are skipped, as their members can also be
+ * accessed via their full namespace.
+ */
+public class UnusedGoogModuleExportInspection extends LocalInspectionTool {
+
+    @NotNull
+    public String getDisplayName() {
+        return "Unused goog.module export";
+    }
+
+    @NotNull
+    public String getGroupDisplayName() {
+        return GroupNames.MODULARIZATION_GROUP_NAME;
+    }
+
+    @NotNull
+    public String getShortName() {
+        return "UnusedGoogModuleExport";
+    }
+
+    @NotNull
+    @Override
+    public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder problemsHolder, boolean isOnTheFly) {
+        return ClosureMetrics.withFileTiming("inspection." + getShortName(), new PsiElementVisitor() {
+            @Override
+            public void visitFile(PsiFile file) {
+                super.visitFile(file);
+
+                if (DumbService.isDumb(file.getProject())) {
+                    return;
+                }
+                ClosureFileAnalysis analysis = ClosureFileAnalysis.forFile(file);
+                if (analysis.dependencies.googModules.size() != 1 || analysis.declaresLegacyNamespace) {
+                    return;
+                }
+                String namespace = analysis.dependencies.googModules.keySet().iterator().next();
+
+                for (Map.Entry<String, PsiElement> export : analysis.moduleExports.entrySet()) {
+                    if (!GoogModuleMemberUsageIndex.isMemberUsed(file.getProject(), namespace, export.getKey())) {
+                        problemsHolder.registerProblem(export.getValue(), "Export '" + export.getKey() + "' of '" + namespace + "' is not used in any other file",
+                                ProblemHighlightType.LIKE_UNUSED_SYMBOL);
+                    }
+                }
+            }
+        });
+    }
+
+    public boolean isEnabledByDefault() {
+        return true;
+    }
+}
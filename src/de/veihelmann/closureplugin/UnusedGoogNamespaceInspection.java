@@ -0,0 +1,152 @@
+package de.veihelmann.closureplugin;
+
+import com.intellij.analysis.AnalysisScope;
+import com.intellij.codeInsight.daemon.GroupNames;
+import com.intellij.codeInspection.*;
+import com.intellij.codeInspection.reference.RefElement;
+import com.intellij.concurrency.JobLauncher;
+import com.intellij.lang.javascript.JavaScriptFileType;
+import com.intellij.lang.javascript.psi.JSStatement;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.search.FileTypeIndex;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.PsiSearchHelper;
+import de.veihelmann.closureplugin.fixes.DeleteUnusedModuleFix;
+import de.veihelmann.closureplugin.fixes.MarkAsEntryPointFix;
+import de.veihelmann.closureplugin.summary.DependencySummaries;
+import de.veihelmann.closureplugin.summary.DependencySummary;
+import de.veihelmann.closureplugin.utils.NamespacePrefixes;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Finds namespaces which are provided (via goog.provide or goog.module), but not required anywhere in the project.
+ * The goog.requires (including goog.requireType and goog.forwardDeclare) of all project files are collected in parallel,
+ * based on their {@link DependencySummary dependency summaries} (so unchanged files are answered without building
+ * PSI). A namespace counts as used if it, or one of its sub-namespaces, is required. Entry points can be excluded with
+ * {@link MarkAsEntryPointFix}.
+ * <p>
+ * Deleting a file is only offered after its namespaces were confirmed to be unused with the PSI of all files mentioning
+ * them, as summaries cannot tell uses hidden from the extraction.
+ */
+public class UnusedGoogNamespaceInspection extends GlobalInspectionTool {
+
+    public static final String SHORT_NAME = "UnusedGoogNamespace";
+
+    @NotNull
+    public String getDisplayName() {
+        return "Unused goog.provide / goog.module namespace";
+    }
+
+    @NotNull
+    public String getGroupDisplayName() {
+        return GroupNames.MODULARIZATION_GROUP_NAME;
+    }
+
+    @NotNull
+    public String getShortName() {
+        return SHORT_NAME;
+    }
+
+    @Override
+    public boolean isReadActionNeeded() {
+        // Files are summarized in parallel, each in read actions of its own
+        return false;
+    }
+
+    @Override
+    public void runInspection(@NotNull AnalysisScope scope, @NotNull InspectionManager manager, @NotNull GlobalInspectionContext globalContext,
+                              @NotNull ProblemDescriptionsProcessor processor) {
+        Project project = globalContext.getProject();
+        List<VirtualFile> files = ReadAction.compute(() -> new ArrayList<>(FileTypeIndex.getFiles(JavaScriptFileType.INSTANCE, GlobalSearchScope.projectScope(project))));
+
+        Set<String> requiredNamespaceSet = ConcurrentHashMap.newKeySet();
+        Map<VirtualFile, List<String>> declaredNamespacesByFile = new ConcurrentHashMap<>();
+        JobLauncher.getInstance().invokeConcurrentlyUnderProgress(files, ProgressManager.getInstance().getProgressIndicator(), file -> {
+            DependencySummary summary = DependencySummaries.getInstance().getSummary(project, file);
+            if (summary == null) {
+                return true;
+            }
+            requiredNamespaceSet.addAll(summary.googRequires);
+            requiredNamespaceSet.addAll(summary.typeRequires);
+            List<String> declaredNamespaces = summary.getDeclaredNamespaces();
+            if (!declaredNamespaces.isEmpty()) {
+                declaredNamespacesByFile.put(file, declaredNamespaces);
+            }
+            return true;
+        });
+
+        NavigableSet<String> requiredNamespaces = new TreeSet<>(requiredNamespaceSet);
+        declaredNamespacesByFile.forEach((file, declaredNamespaces) -> {
+            ProgressManager.checkCanceled();
+            List<String> unusedNamespaces = declaredNamespaces.stream().filter(namespace -> !isRequired(requiredNamespaces, namespace)).collect(toList());
+            if (!unusedNamespaces.isEmpty()) {
+                ReadAction.run(() -> reportUnusedNamespaces(project, file, unusedNamespaces, scope, manager, globalContext, processor));
+            }
+        });
+    }
+
+    private static boolean isRequired(NavigableSet<String> requiredNamespaces, String namespace) {
+        return requiredNamespaces.contains(namespace) || NamespacePrefixes.isPrefixOfAny(requiredNamespaces, namespace + ".");
+    }
+
+    private void reportUnusedNamespaces(Project project, VirtualFile file, List<String> unusedNamespaces, AnalysisScope scope,
+                                        InspectionManager manager, GlobalInspectionContext globalContext, ProblemDescriptionsProcessor processor) {
+        PsiFile psiFile = file.isValid() ? PsiManager.getInstance(project).findFile(file) : null;
+        if (psiFile == null || !scope.contains(file)) {
+            return;
+        }
+        RefElement fileReference = globalContext.getRefManager().getReference(psiFile);
+        if (fileReference == null) {
+            return;
+        }
+
+        ClosureDependenciesExtractor extractor = ClosureDependenciesExtractor.forFile(psiFile);
+        boolean wholeFileUnused = unusedNamespaces.size() == extractor.googProvides.size() + extractor.googModules.size()
+                && unusedNamespaces.stream().allMatch(namespace -> isUnusedInPsi(project, psiFile, namespace));
+        List<CommonProblemDescriptor> problems = new ArrayList<>();
+        for (String namespace : unusedNamespaces) {
+            JSStatement statement = extractor.googProvides.containsKey(namespace) ? extractor.googProvides.get(namespace) : extractor.googModules.get(namespace);
+            if (statement == null || isSuppressedFor(statement)) {
+                continue;
+            }
+            LocalQuickFix[] fixes = wholeFileUnused
+                    ? new LocalQuickFix[]{new DeleteUnusedModuleFix(), new MarkAsEntryPointFix()}
+                    : new LocalQuickFix[]{new MarkAsEntryPointFix()};
+            problems.add(manager.createProblemDescriptor(statement, "Namespace '" + namespace + "' is provided, but never required", false, fixes,
+                    ProblemHighlightType.LIKE_UNUSED_SYMBOL));
+        }
+        if (!problems.isEmpty()) {
+            processor.addProblemElement(fileReference, problems.toArray(new CommonProblemDescriptor[0]));
+        }
+    }
+
+    /**
+     * @return whether no other project file mentioning the given namespace in a string literal requires it (or one of
+     * its sub-namespaces), according to their PSI.
+     */
+    private static boolean isUnusedInPsi(Project project, PsiFile declaringFile, String namespace) {
+        return PsiSearchHelper.SERVICE.getInstance(project).processAllFilesWithWordInLiterals(namespace, GlobalSearchScope.projectScope(project), file -> {
+            if (file.equals(declaringFile)) {
+                return true;
+            }
+            ClosureDependenciesExtractor extractor = ClosureDependenciesExtractor.forFile(file);
+            NavigableSet<String> requiredNamespaces = new TreeSet<>(extractor.googRequires.keySet());
+            requiredNamespaces.addAll(extractor.typeRequires);
+            return !isRequired(requiredNamespaces, namespace);
+        });
+    }
+
+    public boolean isEnabledByDefault() {
+        return true;
+    }
+}
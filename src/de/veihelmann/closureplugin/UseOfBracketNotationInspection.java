@@ -5,9 +5,10 @@ import com.intellij.codeInspection.LocalInspectionTool;
 import com.intellij.codeInspection.ProblemsHolder;
 import com.intellij.lang.javascript.psi.JSIndexedPropertyAccessExpression;
 import com.intellij.lang.javascript.psi.JSLiteralExpression;
-import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.PsiFile;
 import de.veihelmann.closureplugin.fixes.BracketNotationFix;
+import de.veihelmann.closureplugin.metrics.ClosureMetrics;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Arrays;
@@ -27,16 +28,14 @@ public class UseOfBracketNotationInspection extends LocalInspectionTool {
     @NotNull
     @Override
     public PsiElementVisitor buildVisitor(@NotNull ProblemsHolder holder, boolean isOnTheFly) {
-        return new PsiElementVisitor() {
+        return ClosureMetrics.withFileTiming("inspection." + getShortName(), new PsiElementVisitor() {
             @Override
-            public void visitElement(PsiElement element) {
-                super.visitElement(element);
+            public void visitFile(PsiFile file) {
+                super.visitFile(file);
 
-                if (element instanceof JSIndexedPropertyAccessExpression) {
-                    checkBracketNotation((JSIndexedPropertyAccessExpression) element, holder);
-                }
+                ClosureFileAnalysis.forFile(file).bracketAccesses.forEach(accessElement -> checkBracketNotation(accessElement, holder));
             }
-        };
+        });
     }
 
     @NotNull
@@ -0,0 +1,186 @@
+package de.veihelmann.closureplugin.batch;
+
+import com.intellij.codeInspection.*;
+import com.intellij.lang.javascript.JavaScriptFileType;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileVisitor;
+import com.intellij.psi.*;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs local inspections over all JavaScript files below a directory, using a pool of worker threads. Each file is
+ * inspected in its own read action and its problems are handed to the {@link ProblemWriter} right away. Files are
+ * discovered lazily and only a bounded number of them are in flight at any time, so memory usage does not depend on
+ * the size of the source tree.
+ */
+public class BatchInspectionRunner {
+
+    private static final Logger LOG = Logger.getInstance(BatchInspectionRunner.class);
+
+    private final Project project;
+
+    private final List<LocalInspectionTool> inspections;
+
+    private final ProblemWriter problemWriter;
+
+    private final int threadCount;
+
+    private final AtomicInteger inspectedFileCount = new AtomicInteger();
+
+    private final AtomicInteger problemCount = new AtomicInteger();
+
+    /**
+     * The first failure to write results. Once set, no further files are inspected.
+     */
+    private final AtomicReference<IOException> writeFailure = new AtomicReference<>();
+
+    public BatchInspectionRunner(Project project, List<LocalInspectionTool> inspections, ProblemWriter problemWriter, int threadCount) {
+        this.project = project;
+        this.inspections = inspections;
+        this.problemWriter = problemWriter;
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * Inspects all JavaScript files below the given directory and blocks until all results are written.
+     *
+     * @throws IOException if the results could not be written.
+     */
+    public void run(VirtualFile rootDirectory) throws InterruptedException, IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        // Bounds the number of submitted, but not yet finished files (and thereby the memory usage).
+        Semaphore filesInFlight = new Semaphore(threadCount * 2);
+
+        try {
+            VfsUtilCore.visitChildrenRecursively(rootDirectory, new VirtualFileVisitor() {
+                @Override
+                public boolean visitFile(@NotNull VirtualFile file) {
+                    if (writeFailure.get() != null) {
+                        return false;
+                    }
+                    if (file.isDirectory() || file.getFileType() != JavaScriptFileType.INSTANCE) {
+                        return true;
+                    }
+                    filesInFlight.acquireUninterruptibly();
+                    executor.execute(() -> {
+                        try {
+                            inspectAndWrite(file, rootDirectory);
+                        } finally {
+                            filesInFlight.release();
+                        }
+                    });
+                    return true;
+                }
+            });
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        }
+
+        IOException failure = writeFailure.get();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    public int getInspectedFileCount() {
+        return inspectedFileCount.get();
+    }
+
+    public int getProblemCount() {
+        return problemCount.get();
+    }
+
+    private void inspectAndWrite(VirtualFile file, VirtualFile rootDirectory) {
+        if (writeFailure.get() != null) {
+            return;
+        }
+        try {
+            String relativePath = FileUtil.toSystemIndependentName(VfsUtilCore.getRelativePath(file, rootDirectory, '/'));
+            List<BatchProblem> problems = ReadAction.compute(() -> inspect(file, relativePath));
+            for (BatchProblem problem : problems) {
+                problemWriter.write(problem);
+            }
+            inspectedFileCount.incrementAndGet();
+            problemCount.addAndGet(problems.size());
+        } catch (IOException e) {
+            writeFailure.compareAndSet(null, new IOException("Could not write inspection results for " + file.getPath(), e));
+        } catch (ProcessCanceledException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            LOG.error("Error inspecting " + file.getPath() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private List<BatchProblem> inspect(VirtualFile file, String relativePath) {
+        PsiFile psiFile = PsiManager.getInstance(project).findFile(file);
+        if (psiFile == null) {
+            return new ArrayList<>();
+        }
+
+        InspectionManager inspectionManager = InspectionManager.getInstance(project);
+        List<ProblemsHolder> holders = new ArrayList<>(inspections.size());
+        List<PsiElementVisitor> visitors = new ArrayList<>(inspections.size());
+        for (LocalInspectionTool inspection : inspections) {
+            ProblemsHolder holder = new ProblemsHolder(inspectionManager, psiFile, false);
+            holders.add(holder);
+            visitors.add(inspection.buildVisitor(holder, false));
+        }
+
+        // One walk over the file for all inspections
+        psiFile.accept(new PsiRecursiveElementWalkingVisitor() {
+            @Override
+            public void visitElement(PsiElement element) {
+                for (PsiElementVisitor visitor : visitors) {
+                    element.accept(visitor);
+                }
+                super.visitElement(element);
+            }
+        });
+
+        Document document = PsiDocumentManager.getInstance(project).getDocument(psiFile);
+        List<BatchProblem> problems = new ArrayList<>();
+        for (int i = 0; i < inspections.size(); i++) {
+            LocalInspectionTool inspection = inspections.get(i);
+            for (ProblemDescriptor descriptor : holders.get(i).getResults()) {
+                problems.add(toBatchProblem(inspection, descriptor, relativePath, document));
+            }
+        }
+        return problems;
+    }
+
+    private static BatchProblem toBatchProblem(LocalInspectionTool inspection, ProblemDescriptor descriptor, String relativePath, Document document) {
+        PsiElement element = descriptor.getPsiElement();
+        int line = 0;
+        int column = 0;
+        if (element != null && document != null) {
+            int offset = element.getTextRange().getStartOffset();
+            line = document.getLineNumber(offset);
+            column = offset - document.getLineStartOffset(line);
+        }
+
+        String severity = inspection.getDefaultLevel().getSeverity().getName();
+        if (descriptor.getHighlightType() == ProblemHighlightType.ERROR || descriptor.getHighlightType() == ProblemHighlightType.GENERIC_ERROR) {
+            severity = "ERROR";
+        }
+        String message = ProblemDescriptorUtil.renderDescriptionMessage(descriptor, element);
+        return new BatchProblem(relativePath, line + 1, column + 1, inspection.getShortName(), severity, message);
+    }
+}
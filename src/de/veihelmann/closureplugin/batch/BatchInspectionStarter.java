@@ -0,0 +1,146 @@
+package de.veihelmann.closureplugin.batch;
+
+import com.intellij.codeInspection.LocalInspectionTool;
+import com.intellij.ide.impl.ProjectUtil;
+import com.intellij.openapi.application.ApplicationStarter;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import de.veihelmann.closureplugin.ClosureInspectionsProvider;
+import de.veihelmann.closureplugin.metrics.ClosureMetrics;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Headless entry point for running all inspections of this plugin on a source tree, e.g. in CI:
+ * <pre>
+ * idea closure-inspect &lt;project dir&gt; [--dir &lt;source dir&gt;] [--format json|sarif] [--output &lt;file&gt;] [--threads &lt;n&gt;]
+ * </pre>
+ * Results are streamed to the output file (or stdout) while the inspection runs. The exit code is 1 if any problem
+ * was found, 2 for invalid arguments or other errors, 3 if the results could not be written and 0 otherwise.
+ */
+public class BatchInspectionStarter implements ApplicationStarter {
+
+    private static final Logger LOG = Logger.getInstance(BatchInspectionStarter.class);
+
+    private static final String COMMAND_NAME = "closure-inspect";
+
+    @Override
+    public String getCommandName() {
+        return COMMAND_NAME;
+    }
+
+    @Override
+    public void premain(String[] args) {
+    }
+
+    @Override
+    public void main(String[] args) {
+        int exitCode;
+        try {
+            exitCode = run(args);
+        } catch (IOException e) {
+            LOG.warn(e);
+            System.err.println("Could not write the inspection results: " + e.getMessage());
+            exitCode = 3;
+        } catch (Exception e) {
+            LOG.warn(e);
+            System.err.println("Could not run the inspections: " + e);
+            exitCode = 2;
+        }
+        // System.exit does not give the metrics log a chance to write its buffer
+        ClosureMetrics.flush();
+        System.exit(exitCode);
+    }
+
+    private int run(String[] args) throws Exception {
+        // args[0] is the command name
+        if (args.length < 2) {
+            printUsage();
+            return 2;
+        }
+        String projectPath = new File(args[1]).getAbsolutePath();
+        String sourcePath = projectPath;
+        String format = "json";
+        String outputPath = null;
+        int threadCount = Runtime.getRuntime().availableProcessors();
+
+        for (int i = 2; i < args.length; i += 2) {
+            if (i + 1 >= args.length) {
+                printUsage();
+                return 2;
+            }
+            switch (args[i]) {
+                case "--dir":
+                    sourcePath = new File(args[i + 1]).getAbsolutePath();
+                    break;
+                case "--format":
+                    format = args[i + 1];
+                    if (!format.equals("json") && !format.equals("sarif")) {
+                        printUsage();
+                        return 2;
+                    }
+                    break;
+                case "--output":
+                    outputPath = args[i + 1];
+                    break;
+                case "--threads":
+                    threadCount = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    printUsage();
+                    return 2;
+            }
+        }
+
+        Project project = ProjectUtil.openOrImport(projectPath, null, false);
+        VirtualFile sourceDirectory = LocalFileSystem.getInstance().refreshAndFindFileByPath(sourcePath);
+        if (project == null || sourceDirectory == null) {
+            System.err.println("Could not open project " + projectPath + " or source directory " + sourcePath);
+            return 2;
+        }
+        DumbService.getInstance(project).waitForSmartMode();
+
+        List<LocalInspectionTool> inspections = createInspections();
+        Writer output = new BufferedWriter(new OutputStreamWriter(
+                outputPath == null ? new FileOutputStream(FileDescriptor.out) : new FileOutputStream(outputPath), StandardCharsets.UTF_8));
+
+        BatchInspectionRunner runner;
+        try (ProblemWriter problemWriter = createProblemWriter(format, output, inspections)) {
+            runner = new BatchInspectionRunner(project, inspections, problemWriter, threadCount);
+            runner.run(sourceDirectory);
+        }
+
+        System.err.println("Inspected " + runner.getInspectedFileCount() + " files, found " + runner.getProblemCount() + " problems.");
+        return runner.getProblemCount() > 0 ? 1 : 0;
+    }
+
+    private static List<LocalInspectionTool> createInspections() throws ReflectiveOperationException {
+        List<LocalInspectionTool> inspections = new ArrayList<>();
+        for (Class inspectionClass : new ClosureInspectionsProvider().getInspectionClasses()) {
+            Object inspection = inspectionClass.getDeclaredConstructor().newInstance();
+            if (inspection instanceof LocalInspectionTool) {
+                inspections.add((LocalInspectionTool) inspection);
+            }
+        }
+        return inspections;
+    }
+
+    private static ProblemWriter createProblemWriter(String format, Writer output, List<LocalInspectionTool> inspections) throws IOException {
+        if (format.equals("sarif")) {
+            return new SarifProblemWriter(output, inspections.stream().map(LocalInspectionTool::getShortName).collect(toList()));
+        }
+        return new JsonLinesProblemWriter(output);
+    }
+
+    private static void printUsage() {
+        System.err.println("Usage: " + COMMAND_NAME + " <project dir> [--dir <source dir>] [--format json|sarif] [--output <file>] [--threads <n>]");
+    }
+}
@@ -0,0 +1,34 @@
+package de.veihelmann.closureplugin.batch;
+
+/**
+ * A single problem found by the batch inspection run, detached from PSI so it can be written after the read action.
+ */
+public class BatchProblem {
+
+    public final String filePath;
+
+    /**
+     * 1-based line of the problem.
+     */
+    public final int line;
+
+    /**
+     * 1-based column of the problem.
+     */
+    public final int column;
+
+    public final String inspectionName;
+
+    public final String severity;
+
+    public final String message;
+
+    public BatchProblem(String filePath, int line, int column, String inspectionName, String severity, String message) {
+        this.filePath = filePath;
+        this.line = line;
+        this.column = column;
+        this.inspectionName = inspectionName;
+        this.severity = severity;
+        this.message = message;
+    }
+}
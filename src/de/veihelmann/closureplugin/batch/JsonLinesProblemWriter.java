@@ -0,0 +1,44 @@
+package de.veihelmann.closureplugin.batch;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+
+/**
+ * Writes one JSON object per problem and line, e.g.
+ * <code>{"file":"src/x/y/Z.js","line":3,"column":1,"inspection":"...","severity":"WARNING","message":"..."}</code>
+ */
+public class JsonLinesProblemWriter implements ProblemWriter {
+
+    private final Writer output;
+
+    public JsonLinesProblemWriter(Writer output) {
+        this.output = output;
+    }
+
+    @Override
+    public void write(BatchProblem problem) throws IOException {
+        StringWriter line = new StringWriter();
+        try (JsonWriter json = new JsonWriter(line)) {
+            json.beginObject()
+                    .name("file").value(problem.filePath)
+                    .name("line").value(problem.line)
+                    .name("column").value(problem.column)
+                    .name("inspection").value(problem.inspectionName)
+                    .name("severity").value(problem.severity)
+                    .name("message").value(problem.message)
+                    .endObject();
+        }
+        synchronized (output) {
+            output.write(line.toString());
+            output.write('\n');
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        output.close();
+    }
+}
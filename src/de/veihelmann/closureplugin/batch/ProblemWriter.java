@@ -0,0 +1,13 @@
+package de.veihelmann.closureplugin.batch;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Streams problems of a batch inspection run to an output. Implementations are called from several worker threads,
+ * so they have to synchronize on their own.
+ */
+public interface ProblemWriter extends Closeable {
+
+    void write(BatchProblem problem) throws IOException;
+}
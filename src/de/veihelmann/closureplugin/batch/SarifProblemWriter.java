@@ -0,0 +1,75 @@
+package de.veihelmann.closureplugin.batch;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+
+/**
+ * Writes problems as a SARIF 2.1.0 log. The document is streamed: the header (incl. the rules) is written on
+ * construction, each problem is appended to the results array as it arrives and the document is completed on
+ * {@link #close()}.
+ */
+public class SarifProblemWriter implements ProblemWriter {
+
+    private final JsonWriter json;
+
+    public SarifProblemWriter(Writer output, Collection<String> inspectionNames) throws IOException {
+        json = new JsonWriter(output);
+        json.beginObject()
+                .name("$schema").value("https://schemastore.azurewebsites.net/schemas/json/sarif-2.1.0.json")
+                .name("version").value("2.1.0")
+                .name("runs").beginArray()
+                .beginObject()
+                .name("tool").beginObject()
+                .name("driver").beginObject()
+                .name("name").value("Inspections for Google Closure")
+                .name("informationUri").value("https://github.com/Dan1ve/ClosureInspectionsPlugin")
+                .name("rules").beginArray();
+        for (String inspectionName : inspectionNames) {
+            json.beginObject().name("id").value(inspectionName).endObject();
+        }
+        json.endArray()
+                .endObject()
+                .endObject()
+                .name("results").beginArray();
+    }
+
+    @Override
+    public synchronized void write(BatchProblem problem) throws IOException {
+        json.beginObject()
+                .name("ruleId").value(problem.inspectionName)
+                .name("level").value(toSarifLevel(problem.severity))
+                .name("message").beginObject().name("text").value(problem.message).endObject()
+                .name("locations").beginArray()
+                .beginObject()
+                .name("physicalLocation").beginObject()
+                .name("artifactLocation").beginObject().name("uri").value(problem.filePath).endObject()
+                .name("region").beginObject().name("startLine").value(problem.line).name("startColumn").value(problem.column).endObject()
+                .endObject()
+                .endObject()
+                .endArray()
+                .endObject();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        json.endArray()
+                .endObject()
+                .endArray()
+                .endObject();
+        json.close();
+    }
+
+    private static String toSarifLevel(String severity) {
+        switch (severity) {
+            case "ERROR":
+                return "error";
+            case "WARNING":
+                return "warning";
+            default:
+                return "note";
+        }
+    }
+}
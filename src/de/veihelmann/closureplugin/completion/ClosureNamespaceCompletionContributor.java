@@ -0,0 +1,177 @@
+package de.veihelmann.closureplugin.completion;
+
+import com.intellij.codeInsight.completion.*;
+import com.intellij.codeInsight.lookup.LookupElement;
+import com.intellij.codeInsight.lookup.LookupElementBuilder;
+import com.intellij.lang.javascript.psi.*;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.PsiTreeUtil;
+import de.veihelmann.closureplugin.ClosureDependenciesExtractor;
+import de.veihelmann.closureplugin.fixes.GoogRequireBlock;
+import de.veihelmann.closureplugin.index.ProvidedNamespaces;
+import de.veihelmann.closureplugin.metrics.ClosureMetrics;
+import de.veihelmann.closureplugin.utils.NamespaceAliases;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static java.util.Arrays.asList;
+
+/**
+ * Completes namespaces provided in the project (see {@link ProvidedNamespaces}):
+ * <ul>
+ * <li>full namespaces in the argument of goog.require('...') and similar calls, and</li>
+ * <li>the next part of qualified references, e.g. 'dom' for <code>goog.d</code>.</li>
+ * </ul>
+ * In goog.module files, accepting a namespace also adds the corresponding <code>const X = goog.require(...)</code>
+ * (see {@link GoogRequireBlock#addRequire}), with a short reference chosen by
+ * {@link de.veihelmann.closureplugin.fixes.FixUtils#findSafeReferenceForGoogRequire(Set, String)}.
+ */
+public class ClosureNamespaceCompletionContributor extends CompletionContributor {
+
+    private static final String GOOG_REQUIRE = "goog.require";
+
+    private static final Set<String> NAMESPACE_ARGUMENT_METHODS = new HashSet<>(asList(GOOG_REQUIRE, "goog.requireType", "goog.forwardDeclare", "goog.module.get"));
+
+    private static final Pattern QUALIFIED_NAME_PATTERN = Pattern.compile("[\\w$]+(\\.[\\w$]+)*");
+
+    private static final String TYPE_TEXT = "Closure namespace";
+
+    @Override
+    public void fillCompletionVariants(@NotNull CompletionParameters parameters, @NotNull CompletionResultSet result) {
+        PsiElement position = parameters.getPosition();
+        if (parameters.getCompletionType() != CompletionType.BASIC || DumbService.isDumb(position.getProject())) {
+            return;
+        }
+
+        ClosureMetrics.time("completion.namespaces", parameters.getOriginalFile(), () -> {
+            PsiElement parent = position.getParent();
+            if (parent instanceof JSLiteralExpression && isNamespaceArgument((JSLiteralExpression) parent)) {
+                addNamespaceArgumentVariants(parameters, (JSLiteralExpression) parent, result);
+            } else if (parent instanceof JSReferenceExpression && ((JSReferenceExpression) parent).getQualifier() != null) {
+                addNamespacePartVariants(parameters, (JSReferenceExpression) parent, result);
+            }
+        });
+    }
+
+    private static boolean isNamespaceArgument(JSLiteralExpression literal) {
+        if (!(literal.getParent() instanceof JSArgumentList) || !(literal.getParent().getParent() instanceof JSCallExpression)) {
+            return false;
+        }
+        JSExpression calledMethod = ((JSCallExpression) literal.getParent().getParent()).getMethodExpression();
+        return calledMethod != null && NAMESPACE_ARGUMENT_METHODS.contains(NamespaceAliases.normalizeNamespace(calledMethod.getText()));
+    }
+
+    private static void addNamespaceArgumentVariants(CompletionParameters parameters, JSLiteralExpression literal, CompletionResultSet result) {
+        // Offsets before the caret are the same in the original file and its completion copy
+        int prefixEnd = parameters.getOffset() - literal.getTextRange().getStartOffset();
+        String literalText = literal.getText();
+        if (prefixEnd < 1 || prefixEnd > literalText.length()) {
+            return;
+        }
+
+        CompletionResultSet namespaceResult = result.withPrefixMatcher(new PlainPrefixMatcher(literalText.substring(1, prefixEnd)));
+        InsertHandler<LookupElement> insertHandler = isGoogModule(parameters.getOriginalFile()) ? ClosureNamespaceCompletionContributor::addShortReferenceToRequire : null;
+        for (String namespace : ProvidedNamespaces.getInstance(literal.getProject()).withPrefix(namespaceResult.getPrefixMatcher().getPrefix())) {
+            ProgressManager.checkCanceled();
+            if (namespaceResult.isStopped()) {
+                break;
+            }
+            namespaceResult.addElement(LookupElementBuilder.create(namespace).withTypeText(TYPE_TEXT).withInsertHandler(insertHandler));
+        }
+        // Within namespace arguments, the word-based completion of other contributors does not add anything useful
+        namespaceResult.stopHere();
+    }
+
+    private static void addNamespacePartVariants(CompletionParameters parameters, JSReferenceExpression reference, CompletionResultSet result) {
+        String qualifier = NamespaceAliases.normalizeNamespace(reference.getQualifier().getText());
+        if (!QUALIFIED_NAME_PATTERN.matcher(qualifier).matches()) {
+            return;
+        }
+
+        PsiFile originalFile = parameters.getOriginalFile();
+        boolean isGoogModule = isGoogModule(originalFile);
+        String fullQualifier = resolveLeadingShortReference(originalFile, qualifier);
+        // References via short references are already required, so only full namespaces need a new goog.require
+        boolean addsRequire = isGoogModule && fullQualifier.equals(qualifier);
+
+        ProvidedNamespaces providedNamespaces = ProvidedNamespaces.getInstance(reference.getProject());
+        Set<String> addedParts = new HashSet<>();
+        for (String namespace : providedNamespaces.withPrefix(fullQualifier + "." + result.getPrefixMatcher().getPrefix())) {
+            ProgressManager.checkCanceled();
+            if (result.isStopped()) {
+                break;
+            }
+            int partEnd = namespace.indexOf('.', fullQualifier.length() + 1);
+            String part = namespace.substring(fullQualifier.length() + 1, partEnd < 0 ? namespace.length() : partEnd);
+            if (!addedParts.add(part)) {
+                continue;
+            }
+
+            String partNamespace = fullQualifier + "." + part;
+            LookupElementBuilder element = LookupElementBuilder.create(part).withTypeText(TYPE_TEXT).withTailText(" (" + partNamespace + ")", true);
+            if (addsRequire && partEnd < 0) {
+                element = element.withInsertHandler((context, item) -> addRequire(context, partNamespace));
+            }
+            result.addElement(element);
+        }
+    }
+
+    private static boolean isGoogModule(PsiFile file) {
+        return !ClosureDependenciesExtractor.forFile(file).googModules.isEmpty();
+    }
+
+    /**
+     * Replaces a leading short reference of the given qualifier by its full namespace, e.g. 'events.EventType' ->
+     * 'goog.events.EventType' for <code>const events = goog.require('goog.events');</code>
+     */
+    private static String resolveLeadingShortReference(PsiFile file, String qualifier) {
+        int firstDot = qualifier.indexOf('.');
+        String firstPart = firstDot < 0 ? qualifier : qualifier.substring(0, firstDot);
+        String fullNamespace = ClosureDependenciesExtractor.forFile(file).namespaceAliases.getFullNamespace(firstPart);
+        if (fullNamespace == null) {
+            return qualifier;
+        }
+        return firstDot < 0 ? fullNamespace : fullNamespace + qualifier.substring(firstDot);
+    }
+
+    /**
+     * Adds a goog.require for the completed (full) namespace. The block rewrite also replaces the full namespace in the
+     * code by the new short reference.
+     */
+    private static void addRequire(InsertionContext context, String namespace) {
+        Document document = context.getDocument();
+        PsiDocumentManager.getInstance(context.getProject()).commitDocument(document);
+        if (ClosureDependenciesExtractor.forFile(context.getFile()).googRequires.containsKey(namespace)) {
+            // Already required without a short reference, which is fixed by the inspections
+            return;
+        }
+        GoogRequireBlock.addRequire(context.getFile(), document, namespace);
+    }
+
+    /**
+     * For a completed goog.require('...') without short reference (in a goog.module file), rewrites the require block,
+     * which adds a short reference, e.g. <code>const Foo = goog.require('x.y.Foo');</code>
+     */
+    private static void addShortReferenceToRequire(InsertionContext context, LookupElement item) {
+        Document document = context.getDocument();
+        PsiDocumentManager.getInstance(context.getProject()).commitDocument(document);
+
+        JSCallExpression requireCall = PsiTreeUtil.getParentOfType(context.getFile().findElementAt(context.getStartOffset()), JSCallExpression.class);
+        String namespace = item.getLookupString();
+        if (requireCall == null || requireCall.getMethodExpression() == null || !requireCall.getMethodExpression().textMatches(GOOG_REQUIRE)
+                || !(requireCall.getParent() instanceof JSExpressionStatement)
+                || !ClosureDependenciesExtractor.forFile(context.getFile()).googRequires.containsKey(namespace)) {
+            // Either already assigned, or not a complete goog.require statement (yet)
+            return;
+        }
+        GoogRequireBlock.addRequire(context.getFile(), document, namespace);
+    }
+}
@@ -3,22 +3,25 @@ package de.veihelmann.closureplugin.dependency_recognizers;
 import com.intellij.lang.javascript.psi.jsdoc.JSDocComment;
 import com.intellij.lang.javascript.psi.jsdoc.JSDocTag;
 import com.intellij.lang.javascript.psi.jsdoc.JSDocTagValue;
+import com.intellij.openapi.util.Key;
 import com.intellij.psi.PsiComment;
+import de.veihelmann.closureplugin.utils.ClosureTypeParser;
+import de.veihelmann.closureplugin.utils.NamespaceAliases;
+import de.veihelmann.closureplugin.utils.NamespaceInterner;
 
 import java.util.*;
 
-import static de.veihelmann.closureplugin.dependency_recognizers.DependencyRecognizerBase.resolveAndNormalizeNamespace;
 import static java.util.Arrays.asList;
 import static java.util.stream.Collectors.toList;
 
 /**
- * Collects raw types from JSDOc comments in a file. A 'raw type' string can contain additional symbols, like '!' or
- * 'Array<>'. This should work fine for our purposes and avoids having to of build a fully-fledged type parser for
- * Closure comments :)
+ * Collects the namespaces referenced in the type annotations of JSDoc comments in a file. Type expressions are parsed
+ * with the {@link ClosureTypeParser} (e.g. 'Array<!ts.my.Namespace>' yields 'Array' and 'ts.my.Namespace'). The parsed
+ * type names are cached per comment, so comments are only parsed again after they changed.
  */
 public class CommentDependencyCollector {
 
-    private final Set<String> rawTypesInComments;
+    private final Set<String> namespacesInComments;
 
     private static final Set<String> RELEVANT_TAG_NAMES = new HashSet<>(asList("param", "return", "type", "typedef", "implements", "extends"));
 
@@ -26,18 +29,22 @@ public class CommentDependencyCollector {
 
     private static final String CLOSURE_TYPE_ANNOTATION_END = "}";
 
-    private final Map<String, String> fullNamespacesToShortReferences;
+    private static final Key<ParsedComment> PARSED_COMMENT_KEY = Key.create("de.veihelmann.closureplugin.ParsedComment");
+
+    private final NamespaceAliases namespaceAliases;
 
     /**
      * The passed set will be filled in-place (meaning its contents can change)
      */
-    public CommentDependencyCollector(Set<String> rawTypesInComments, Map<String, String> fullNamespacesToShortReferences) {
-        this.rawTypesInComments = rawTypesInComments;
-        this.fullNamespacesToShortReferences = fullNamespacesToShortReferences;
+    public CommentDependencyCollector(Set<String> namespacesInComments, NamespaceAliases namespaceAliases) {
+        this.namespacesInComments = namespacesInComments;
+        this.namespaceAliases = namespaceAliases;
     }
 
     /**
-     * Collects the type strings in the given comment and stores them in {@link #rawTypesInComments}
+     * Collects the namespaces in the type annotations of the given comment and stores them in
+     * {@link #namespacesInComments}, together with all their parent namespaces (e.g. 'ts.my' for 'ts.my.Namespace').
+     * This way, checking whether a namespace is mentioned in any comment is a single set lookup.
      */
     public void collectTypeDependenciesFromComment(PsiComment psiComment) {
         if (!(psiComment instanceof JSDocComment)) {
@@ -45,16 +52,47 @@ public class CommentDependencyCollector {
             return;
         }
 
-        JSDocComment comment = (JSDocComment) psiComment;
-        List<JSDocTag> relevantTags = collectTagsFromComment(comment, RELEVANT_TAG_NAMES);
-        for (JSDocTag tag : relevantTags) {
+        for (String typeName : getTypeNames((JSDocComment) psiComment)) {
+            addNamespaceWithParents(resolveLeadingShortReference(typeName));
+        }
+    }
 
-            Optional<String> typeReferences = extractClosureTypeReference(tag.getValue());
-            typeReferences.ifPresent(reference -> {
-                reference = resolveAndNormalizeNamespace(reference, fullNamespacesToShortReferences);
-                rawTypesInComments.add(reference);
-            });
+    /**
+     * @return the names of the types in the relevant tags of the given comment, parsed once per comment text.
+     */
+    private static List<String> getTypeNames(JSDocComment comment) {
+        ParsedComment parsedComment = comment.getUserData(PARSED_COMMENT_KEY);
+        if (parsedComment != null && comment.textMatches(parsedComment.commentText)) {
+            return parsedComment.typeNames;
         }
+
+        List<String> typeNames = new ArrayList<>();
+        for (JSDocTag tag : collectTagsFromComment(comment, RELEVANT_TAG_NAMES)) {
+            extractClosureTypeReference(tag.getValue()).ifPresent(typeExpression -> typeNames.addAll(ClosureTypeParser.parseTypeNames(typeExpression)));
+        }
+        comment.putUserData(PARSED_COMMENT_KEY, new ParsedComment(comment.getText(), typeNames));
+        return typeNames;
+    }
+
+    private void addNamespaceWithParents(String namespace) {
+        for (int dot = namespace.indexOf('.'); dot > 0; dot = namespace.indexOf('.', dot + 1)) {
+            namespacesInComments.add(NamespaceInterner.intern(namespace.substring(0, dot)));
+        }
+        namespacesInComments.add(namespace);
+    }
+
+    /**
+     * Replaces a leading short reference by its full namespace, e.g. 'EventType.CLICK' -> 'goog.events.EventType.CLICK'
+     * for <code>const EventType = goog.require('goog.events.EventType');</code>
+     */
+    private String resolveLeadingShortReference(String namespace) {
+        int firstDot = namespace.indexOf('.');
+        String firstPart = firstDot < 0 ? namespace : namespace.substring(0, firstDot);
+        String fullNamespace = namespaceAliases.getFullNamespace(firstPart);
+        if (fullNamespace == null) {
+            return namespace;
+        }
+        return firstDot < 0 ? fullNamespace : NamespaceInterner.intern(fullNamespace + namespace.substring(firstDot));
     }
 
     public static List<JSDocTag> collectTagsFromComment(JSDocComment comment, Set<String> relevantTags) {
@@ -62,7 +100,7 @@ public class CommentDependencyCollector {
     }
 
 
-    private Optional<String> extractClosureTypeReference(JSDocTagValue tagValue) {
+    private static Optional<String> extractClosureTypeReference(JSDocTagValue tagValue) {
         if (tagValue == null || tagValue.getChildren().length == 0 || tagValue.getFirstChild().getText() == null) {
             return Optional.empty();
         }
@@ -74,6 +112,18 @@ public class CommentDependencyCollector {
             return Optional.empty();
         }
 
-        return Optional.of(referenceWithBrackets.substring(1, referenceWithBrackets.length() - 1).replaceAll("(Array)?(function)?[?!<>()]", ""));
+        return Optional.of(referenceWithBrackets.substring(1, referenceWithBrackets.length() - 1));
+    }
+
+    private static class ParsedComment {
+
+        private final String commentText;
+
+        private final List<String> typeNames;
+
+        private ParsedComment(String commentText, List<String> typeNames) {
+            this.commentText = commentText;
+            this.typeNames = typeNames;
+        }
     }
 }
@@ -3,19 +3,18 @@ package de.veihelmann.closureplugin.dependency_recognizers;
 import com.intellij.lang.javascript.psi.JSNewExpression;
 import com.intellij.lang.javascript.psi.JSReferenceExpression;
 import com.intellij.psi.PsiElement;
-import de.veihelmann.closureplugin.utils.ListMap;
-
-import java.util.Map;
+import de.veihelmann.closureplugin.utils.NamespaceAliases;
+import de.veihelmann.closureplugin.utils.NamespaceMultimap;
 
 /**
  * Collects constructor dependencies, e.g.  'new x.y.MyNamespace()'.
  */
 public class ConstructorDependencyRecognizer extends DependencyRecognizerBase<JSNewExpression> {
 
-    private final ListMap<String, PsiElement> constructors;
+    private final NamespaceMultimap<PsiElement> constructors;
 
-    public ConstructorDependencyRecognizer(ListMap<String, PsiElement> constructors, Map<String, String> fullNamespacesToShortReferences) {
-        super(fullNamespacesToShortReferences);
+    public ConstructorDependencyRecognizer(NamespaceMultimap<PsiElement> constructors, NamespaceAliases namespaceAliases) {
+        super(JSNewExpression.class, namespaceAliases);
         this.constructors = constructors;
     }
 
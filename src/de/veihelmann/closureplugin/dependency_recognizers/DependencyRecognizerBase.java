@@ -2,10 +2,9 @@ package de.veihelmann.closureplugin.dependency_recognizers;
 
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.psi.PsiElement;
+import de.veihelmann.closureplugin.utils.NamespaceAliases;
 
 import java.util.Arrays;
-import java.util.Map;
-import java.util.Optional;
 
 /**
  * Base class for dependency recognizers. A PSI element can be 'consumed' if a (Closure-) dependency could be
@@ -13,14 +12,24 @@ import java.util.Optional;
  */
 public abstract class DependencyRecognizerBase<T extends PsiElement> {
 
-    private final Map<String, String> fullNamespacesToShortReferences;
+    private final Class<T> elementClass;
 
-    protected DependencyRecognizerBase(Map<String, String> fullNamespacesToShortReferences) {
-        this.fullNamespacesToShortReferences = fullNamespacesToShortReferences;
+    private final NamespaceAliases namespaceAliases;
+
+    protected DependencyRecognizerBase(Class<T> elementClass, NamespaceAliases namespaceAliases) {
+        this.elementClass = elementClass;
+        this.namespaceAliases = namespaceAliases;
+    }
+
+    /**
+     * @return the PSI element class this recognizer handles. Elements of other classes are never consumed.
+     */
+    public Class<T> getElementClass() {
+        return elementClass;
     }
 
     protected void registerImportShortName(String fullNamespace, String shortReference) {
-        this.fullNamespacesToShortReferences.put(fullNamespace, shortReference);
+        this.namespaceAliases.put(fullNamespace, shortReference);
     }
 
     /**
@@ -28,15 +37,11 @@ public abstract class DependencyRecognizerBase<T extends PsiElement> {
      * <code>false</code> otherwise.
      */
     public final boolean consumeElement(PsiElement element) {
-        try {
-            if (element == null) {
-                return false;
-            }
-            //noinspection unchecked
-            return doConsumeElement((T) element);
-        } catch (ClassCastException e) {
-            // Expected if the target type does not match, so error handling not needed.
+        if (!elementClass.isInstance(element)) {
             return false;
+        }
+        try {
+            return doConsumeElement(elementClass.cast(element));
         } catch (Exception e) {
             Logger.getInstance(this.getClass()).error("Error traversing " +
                     element.getContainingFile().getName() + " at element " + element.getText() + ": " + e.getMessage(), e);
@@ -71,25 +76,7 @@ public abstract class DependencyRecognizerBase<T extends PsiElement> {
     }
 
     protected String resolveAndNormalizeNamespace(String namespace) {
-        return resolveAndNormalizeNamespace(namespace, fullNamespacesToShortReferences);
-    }
-
-    /* package */
-    static String resolveAndNormalizeNamespace(String namespace, Map<String, String> fullNamespacesToShortReferences) {
-        if (namespace == null) {
-            return null;
-        }
-        Optional<String> resolvedFullNamespace = fullNamespacesToShortReferences.keySet().stream().filter(
-                key -> fullNamespacesToShortReferences.get(key).equals(namespace)).findFirst();
-        if (resolvedFullNamespace.isPresent()) {
-            return normalizeNamespace(resolvedFullNamespace.get());
-        }
-        return normalizeNamespace(namespace);
-    }
-
-    /* package */
-    static String normalizeNamespace(String namespace) {
-        return namespace.replaceAll("[\n\\s]", "");
+        return namespaceAliases.resolveAndNormalize(namespace);
     }
 
     private static boolean containsAny(String input, String... terms) {
@@ -2,16 +2,15 @@ package de.veihelmann.closureplugin.dependency_recognizers;
 
 import com.intellij.lang.ecmascript6.psi.impl.ES6ClassImpl;
 import com.intellij.psi.PsiElement;
-import de.veihelmann.closureplugin.utils.ListMap;
-
-import java.util.Map;
+import de.veihelmann.closureplugin.utils.NamespaceAliases;
+import de.veihelmann.closureplugin.utils.NamespaceMultimap;
 
 public class ES6BaseClassDependencyRecognizer extends DependencyRecognizerBase<ES6ClassImpl> {
 
-    private final ListMap<String, PsiElement> dependencyMap;
+    private final NamespaceMultimap<PsiElement> dependencyMap;
 
-    public ES6BaseClassDependencyRecognizer(ListMap<String, PsiElement> dependencyMap, Map<String, String> fullNamespacesToImports) {
-        super(fullNamespacesToImports);
+    public ES6BaseClassDependencyRecognizer(NamespaceMultimap<PsiElement> dependencyMap, NamespaceAliases namespaceAliases) {
+        super(ES6ClassImpl.class, namespaceAliases);
         this.dependencyMap = dependencyMap;
     }
 
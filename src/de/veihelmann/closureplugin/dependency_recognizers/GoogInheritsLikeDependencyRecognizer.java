@@ -4,14 +4,13 @@ import com.intellij.lang.javascript.psi.JSArgumentList;
 import com.intellij.lang.javascript.psi.JSCallExpression;
 import com.intellij.lang.javascript.psi.JSReferenceExpression;
 import com.intellij.psi.PsiElement;
-import de.veihelmann.closureplugin.utils.ListMap;
-
-import java.util.Map;
+import de.veihelmann.closureplugin.utils.NamespaceAliases;
+import de.veihelmann.closureplugin.utils.NamespaceMultimap;
 
 public class GoogInheritsLikeDependencyRecognizer extends StaticMethodOrConstantDependencyRecognizer {
 
-    public GoogInheritsLikeDependencyRecognizer(ListMap<String, PsiElement> dependencyMap, Map<String, String> fullNamespacesToImports) {
-        super(dependencyMap, fullNamespacesToImports);
+    public GoogInheritsLikeDependencyRecognizer(NamespaceMultimap<PsiElement> dependencyMap, NamespaceAliases namespaceAliases) {
+        super(dependencyMap, namespaceAliases);
     }
 
 
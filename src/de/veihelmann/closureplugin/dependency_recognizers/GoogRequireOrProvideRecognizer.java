@@ -6,15 +6,21 @@ import com.intellij.lang.javascript.psi.JSReferenceExpression;
 import com.intellij.lang.javascript.psi.JSStatement;
 import com.intellij.lang.javascript.psi.impl.JSVariableImpl;
 import com.intellij.psi.PsiElement;
-import de.veihelmann.closureplugin.utils.ListMap;
+import de.veihelmann.closureplugin.utils.NamespaceAliases;
+import de.veihelmann.closureplugin.utils.NamespaceInterner;
+import de.veihelmann.closureplugin.utils.NamespaceMultimap;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 public class GoogRequireOrProvideRecognizer extends DependencyRecognizerBase<JSCallExpression> {
 
+    private static final Pattern NAMESPACE_SHORTCUT_ASSIGNMENT_PATTERN = Pattern.compile("(\\w+)\\s*=\\s*\\w+");
+
     private final Map<String, PsiElement> googRequires;
 
     /**
@@ -22,16 +28,22 @@ public class GoogRequireOrProvideRecognizer extends DependencyRecognizerBase<JSC
      * <code>const foo = goog.require('x.y')</code>,
      * contains a mapping from 'x.y' -> 'foo', so the import 'shortcuts'.
      */
-    public final ListMap<String, PsiElement> duplicateGoogRequires = new ListMap<>();
+    public final NamespaceMultimap<PsiElement> duplicateGoogRequires = new NamespaceMultimap<>();
 
     private final Map<String, JSStatement> googProvides;
 
     private final Map<String, JSStatement> googModules;
 
-    public final ListMap<String, PsiElement> duplicateGoogProvides = new ListMap<>();
+    public final NamespaceMultimap<PsiElement> duplicateGoogProvides = new NamespaceMultimap<>();
 
-    public GoogRequireOrProvideRecognizer(Map<String, PsiElement> googRequires, Map<String, JSStatement> googProvides, Map<String, JSStatement> googModules, Map<String, String> fullNamespacesToImports) {
-        super(fullNamespacesToImports);
+    /**
+     * Namespaces referenced via goog.requireType('x.y.Z') or goog.forwardDeclare('x.y.Z'), which use a namespace
+     * without loading it.
+     */
+    public final Set<String> typeRequires = new LinkedHashSet<>();
+
+    public GoogRequireOrProvideRecognizer(Map<String, PsiElement> googRequires, Map<String, JSStatement> googProvides, Map<String, JSStatement> googModules, NamespaceAliases namespaceAliases) {
+        super(JSCallExpression.class, namespaceAliases);
         this.googRequires = googRequires;
         this.googProvides = googProvides;
         this.googModules = googModules;
@@ -58,15 +70,15 @@ public class GoogRequireOrProvideRecognizer extends DependencyRecognizerBase<JSC
         JSArgumentList argumentList = (JSArgumentList) callElement.getChildren()[1];
         calledMethod = resolveAndNormalizeNamespace(calledMethod);
 
-        if (argumentList.getArguments().length != 1 || !(calledMethod.equals("goog.require") || calledMethod.equals("goog.provide") || calledMethod.equals("goog.module"))) {
+        if (argumentList.getArguments().length != 1 || !(calledMethod.equals("goog.require") || calledMethod.equals("goog.provide") || calledMethod.equals("goog.module")
+                || calledMethod.equals("goog.requireType") || calledMethod.equals("goog.forwardDeclare"))) {
             return false;
         }
 
-        String targetNamespace = argumentList.getArguments()[0].getText().replaceAll("[\"']", "");
+        String targetNamespace = NamespaceInterner.intern(stripQuotes(argumentList.getArguments()[0].getText()));
 
         PsiElement parent = targetMethod.getParent();
-        Pattern namespaceShortcutAssignmentPattern = Pattern.compile("(\\w+)\\s*=\\s*\\w+");
-        if (parent != null && parent.getParent() != null && namespaceShortcutAssignmentPattern.matcher(parent.getParent().getText()).find()) {
+        if (parent != null && parent.getParent() != null && NAMESPACE_SHORTCUT_ASSIGNMENT_PATTERN.matcher(parent.getParent().getText()).find()) {
             if (parent.getParent() instanceof JSVariableImpl) {
                 String namespaceShortcut = ((JSVariableImpl) parent.getParent()).getName();
                 if (namespaceShortcut != null) {
@@ -80,6 +92,17 @@ public class GoogRequireOrProvideRecognizer extends DependencyRecognizerBase<JSC
 
     }
 
+    private static String stripQuotes(String literal) {
+        StringBuilder namespace = new StringBuilder(literal.length());
+        for (int i = 0; i < literal.length(); i++) {
+            char character = literal.charAt(i);
+            if (character != '"' && character != '\'') {
+                namespace.append(character);
+            }
+        }
+        return namespace.toString();
+    }
+
     private void collectGoogRequireOrProvide(JSCallExpression callElement, String calledMethod, String targetNamespace, Map<String, String> fullNamespacesToImportedOne) {
         switch (calledMethod) {
             case "goog.require":
@@ -102,6 +125,10 @@ public class GoogRequireOrProvideRecognizer extends DependencyRecognizerBase<JSC
             case "goog.module":
                 googModules.put(targetNamespace, getParentStatement(callElement));
                 break;
+            case "goog.requireType":
+            case "goog.forwardDeclare":
+                typeRequires.add(targetNamespace);
+                break;
             default:
                 throw new UnsupportedOperationException("Unexpected method at this point: " + calledMethod);
         }
@@ -4,13 +4,12 @@ import com.intellij.lang.ecmascript6.psi.ES6ClassExpression;
 import com.intellij.lang.javascript.psi.JSNewExpression;
 import com.intellij.lang.javascript.psi.JSReferenceExpression;
 import com.intellij.psi.PsiElement;
-import de.veihelmann.closureplugin.utils.ListMap;
-
-import java.util.Map;
+import de.veihelmann.closureplugin.utils.NamespaceAliases;
+import de.veihelmann.closureplugin.utils.NamespaceMultimap;
 
 public class MemberDependencyRecognizer extends DependencyRecognizerBase<JSReferenceExpression> {
 
-    private final ListMap<String, PsiElement> dependencies;
+    private final NamespaceMultimap<PsiElement> dependencies;
 
     private static final String NAMESPACE_WITH_MEMBER_PATTERN = "(\\w+\\.)+[a-z][\\w_]*";
 
@@ -19,8 +18,8 @@ public class MemberDependencyRecognizer extends DependencyRecognizerBase<JSRefer
     /**
      * The passed map will be filled in-place, meaning it changes.
      */
-    public MemberDependencyRecognizer(ListMap<String, PsiElement> constructors, Map<String, String> fullNamespacesToImports) {
-        super(fullNamespacesToImports);
+    public MemberDependencyRecognizer(NamespaceMultimap<PsiElement> constructors, NamespaceAliases namespaceAliases) {
+        super(JSReferenceExpression.class, namespaceAliases);
         this.dependencies = constructors;
     }
 
@@ -5,11 +5,11 @@ import com.intellij.lang.javascript.psi.JSCallExpression;
 import com.intellij.lang.javascript.psi.JSNewExpression;
 import com.intellij.lang.javascript.psi.JSReferenceExpression;
 import com.intellij.psi.PsiElement;
-import de.veihelmann.closureplugin.utils.ListMap;
+import de.veihelmann.closureplugin.utils.NamespaceAliases;
+import de.veihelmann.closureplugin.utils.NamespaceMultimap;
 
 import java.util.Arrays;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
 
 public class StaticMethodOrConstantDependencyRecognizer extends DependencyRecognizerBase<JSCallExpression> {
@@ -21,10 +21,10 @@ public class StaticMethodOrConstantDependencyRecognizer extends DependencyRecogn
             "push", "getBBox", "getBrowserEvent", "preventDefault", "concat", "localeCompare", "apply", "forEach", "map"
     ));
 
-    protected final ListMap<String, PsiElement> dependencies;
+    protected final NamespaceMultimap<PsiElement> dependencies;
 
-    public StaticMethodOrConstantDependencyRecognizer(ListMap<String, PsiElement> constructors, Map<String, String> fullNamespacesToImports) {
-        super(fullNamespacesToImports);
+    public StaticMethodOrConstantDependencyRecognizer(NamespaceMultimap<PsiElement> constructors, NamespaceAliases namespaceAliases) {
+        super(JSCallExpression.class, namespaceAliases);
         this.dependencies = constructors;
     }
 
@@ -0,0 +1,291 @@
+package de.veihelmann.closureplugin.deps;
+
+import com.intellij.concurrency.JobLauncher;
+import com.intellij.ide.util.PropertiesComponent;
+import com.intellij.lang.javascript.JavaScriptFileType;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.*;
+import com.intellij.psi.search.FileTypeIndex;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.Alarm;
+import de.veihelmann.closureplugin.summary.DependencySummaries;
+import de.veihelmann.closureplugin.summary.DependencySummary;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Project service writing a Closure deps.js file for all JavaScript files of the project which declare a namespace. The
+ * lines are computed from the {@link DependencySummaries} (so unchanged files are not parsed again). Once generated,
+ * the file is kept up to date: changed, moved and deleted files only update their own line, a short while after the
+ * last change.
+ */
+public class DepsFileGenerator implements Disposable {
+
+    private static final Logger LOG = Logger.getInstance(DepsFileGenerator.class);
+
+    private static final String OUTPUT_FILE_PROPERTY = "de.veihelmann.closureplugin.depsFile";
+
+    private static final int UPDATE_DELAY_MILLIS = 300;
+
+    private final Project project;
+
+    private final DepsManifest<VirtualFile> manifest = new DepsManifest<>();
+
+    private final Set<VirtualFile> pendingFiles = ConcurrentHashMap.newKeySet();
+
+    private final Alarm updateAlarm;
+
+    private volatile Path outputFile;
+
+    /**
+     * Set if moved, renamed or deleted directories require regenerating the whole file, as the paths of all files within
+     * changed.
+     */
+    private volatile boolean regenerationPending;
+
+    private boolean listening;
+
+    public DepsFileGenerator(Project project) {
+        this.project = project;
+        this.updateAlarm = new Alarm(Alarm.ThreadToUse.POOLED_THREAD, this);
+    }
+
+    public static DepsFileGenerator getInstance(Project project) {
+        return ServiceManager.getService(project, DepsFileGenerator.class);
+    }
+
+    /**
+     * @return the deps.js file generated for this project (in this or an earlier IDE session), or null if there is none.
+     */
+    @Nullable
+    public Path getConfiguredOutputFile() {
+        String path = PropertiesComponent.getInstance(project).getValue(OUTPUT_FILE_PROPERTY);
+        return path != null ? Paths.get(path) : null;
+    }
+
+    /**
+     * Writes the deps.js file to the given path and keeps it up to date from now on (also in later IDE sessions).
+     *
+     * @return the number of files in the deps.js file.
+     */
+    public int generate(Path outputFile, ProgressIndicator indicator) {
+        PropertiesComponent.getInstance(project).setValue(OUTPUT_FILE_PROPERTY, outputFile.toString());
+        this.outputFile = outputFile;
+        startListening();
+        regenerate(indicator);
+        return manifest.size();
+    }
+
+    /**
+     * Continues updating a deps.js file generated in an earlier IDE session. Files may have changed while the IDE was
+     * closed, so the file is regenerated first.
+     */
+    void resume() {
+        outputFile = getConfiguredOutputFile();
+        if (outputFile == null) {
+            return;
+        }
+        startListening();
+        regenerationPending = true;
+        scheduleUpdate();
+    }
+
+    private synchronized void startListening() {
+        if (listening) {
+            return;
+        }
+        listening = true;
+        project.getMessageBus().connect(this).subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener() {
+            @Override
+            public void after(@NotNull List<? extends VFileEvent> events) {
+                onFilesChanged(events);
+            }
+        });
+    }
+
+    private void onFilesChanged(List<? extends VFileEvent> events) {
+        boolean relevantChange = false;
+        for (VFileEvent event : events) {
+            // The file of a copy event is the original one
+            VirtualFile file = event instanceof VFileCopyEvent ? ((VFileCopyEvent) event).findCreatedFile() : event.getFile();
+            if (file == null || isOutputFile(file)) {
+                continue;
+            }
+            if (file.isDirectory()) {
+                if (changesPathsWithin(event)) {
+                    regenerationPending = true;
+                    relevantChange = true;
+                } else if (event instanceof VFileCreateEvent || event instanceof VFileCopyEvent) {
+                    // Only the files within are added, they are collected when the update runs
+                    pendingFiles.add(file);
+                    relevantChange = true;
+                }
+            } else if (file.getFileType() == JavaScriptFileType.INSTANCE) {
+                pendingFiles.add(file);
+                relevantChange = true;
+            }
+        }
+        if (relevantChange) {
+            scheduleUpdate();
+        }
+    }
+
+    /**
+     * @return whether the event moves, renames or deletes a directory, which changes the paths of all files within.
+     */
+    private static boolean changesPathsWithin(VFileEvent event) {
+        return event instanceof VFileMoveEvent || event instanceof VFileDeleteEvent
+                || (event instanceof VFilePropertyChangeEvent && VirtualFile.PROP_NAME.equals(((VFilePropertyChangeEvent) event).getPropertyName()));
+    }
+
+    private void scheduleUpdate() {
+        // Merges the updates of files changed in quick succession (e.g. by a VCS update)
+        updateAlarm.cancelAllRequests();
+        updateAlarm.addRequest(this::flushPendingUpdates, UPDATE_DELAY_MILLIS);
+    }
+
+    private synchronized void flushPendingUpdates() {
+        if (outputFile == null || project.isDisposed()) {
+            return;
+        }
+        if (regenerationPending) {
+            regenerationPending = false;
+            pendingFiles.clear();
+            regenerate(new EmptyProgressIndicator());
+            return;
+        }
+
+        List<VirtualFile> changedFiles = new ArrayList<>(pendingFiles);
+        pendingFiles.removeAll(changedFiles);
+        List<VirtualFile> files = ReadAction.compute(() -> collectJavaScriptFiles(changedFiles));
+        boolean changed = false;
+        for (VirtualFile file : files) {
+            changed |= updateFile(file);
+        }
+        if (changed) {
+            writeOutputFile();
+        }
+    }
+
+    /**
+     * @return the given files, with the directories among them replaced by the JavaScript files in their content.
+     */
+    private List<VirtualFile> collectJavaScriptFiles(List<VirtualFile> changedFiles) {
+        List<VirtualFile> files = new ArrayList<>();
+        for (VirtualFile file : changedFiles) {
+            if (!file.isDirectory()) {
+                files.add(file);
+            } else if (file.isValid()) {
+                ProjectFileIndex.getInstance(project).iterateContentUnderDirectory(file, child -> {
+                    if (!child.isDirectory() && child.getFileType() == JavaScriptFileType.INSTANCE) {
+                        files.add(child);
+                    }
+                    return true;
+                });
+            }
+        }
+        return files;
+    }
+
+    private synchronized void regenerate(ProgressIndicator indicator) {
+        indicator.setText("Generating deps.js");
+        List<VirtualFile> files = DumbService.getInstance(project).runReadActionInSmartMode(() ->
+                new ArrayList<>(FileTypeIndex.getFiles(JavaScriptFileType.INSTANCE, GlobalSearchScope.projectScope(project))));
+
+        manifest.clear();
+        JobLauncher.getInstance().invokeConcurrentlyUnderProgress(files, indicator, file -> {
+            updateFile(file);
+            return true;
+        });
+        writeOutputFile();
+    }
+
+    /**
+     * Updates the line of the given file.
+     *
+     * @return whether the manifest changed.
+     */
+    private boolean updateFile(VirtualFile file) {
+        String path = ReadAction.compute(() -> isProjectFile(file) ? getRelativePath(file) : null);
+        // The saved content, as the deps.js file is read by tools outside the IDE together with the saved files
+        DependencySummary summary = path != null ? DependencySummaries.getInstance().getSavedSummary(project, file) : null;
+        boolean declaresNamespaces = summary != null && !summary.getDeclaredNamespaces().isEmpty();
+
+        if (!declaresNamespaces) {
+            return manifest.removeFile(file);
+        }
+        return manifest.putFile(file, path, summary.getDeclaredNamespaces(), summary.googRequires, !summary.googModules.isEmpty());
+    }
+
+    private boolean isProjectFile(VirtualFile file) {
+        return file.isValid() && !file.isDirectory() && !isOutputFile(file) && ProjectFileIndex.getInstance(project).isInContent(file);
+    }
+
+    private boolean isOutputFile(VirtualFile file) {
+        Path output = outputFile;
+        return output != null && file.getPath().equals(output.toString().replace('\\', '/'));
+    }
+
+    /**
+     * @return the path of the given file relative to the directory of the deps.js file, as expected by Closure's
+     * base.js if both are in the same directory.
+     */
+    private String getRelativePath(VirtualFile file) {
+        return outputFile.getParent().relativize(Paths.get(file.getPath())).toString().replace('\\', '/');
+    }
+
+    /**
+     * Writes the whole file, though only single lines changed: it is written to a temporary file first, which then
+     * replaces the deps.js file, so tools watching it (e.g. a dev server) never read a partially written file.
+     */
+    private void writeOutputFile() {
+        Path target = outputFile;
+        try {
+            Files.createDirectories(target.getParent());
+            Path temporaryFile = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+            try {
+                try (Writer output = Files.newBufferedWriter(temporaryFile, StandardCharsets.UTF_8)) {
+                    manifest.write(output);
+                }
+                moveReplacing(temporaryFile, target);
+            } finally {
+                Files.deleteIfExists(temporaryFile);
+            }
+        } catch (IOException e) {
+            LOG.warn("Cannot write " + target, e);
+            return;
+        }
+        LocalFileSystem.getInstance().refreshIoFiles(Collections.singletonList(target.toFile()), true, false, null);
+    }
+
+    private static void moveReplacing(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    public void dispose() {
+    }
+}
@@ -0,0 +1,16 @@
+package de.veihelmann.closureplugin.deps;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.startup.StartupActivity;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Continues updating the deps.js file of a project after it was opened (see {@link DepsFileGenerator#resume()}).
+ */
+public class DepsFileStartupActivity implements StartupActivity {
+
+    @Override
+    public void runActivity(@NotNull Project project) {
+        DepsFileGenerator.getInstance(project).resume();
+    }
+}
@@ -0,0 +1,123 @@
+package de.veihelmann.closureplugin.deps;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * The content of a Closure deps.js file: one <code>goog.addDependency(...)</code> line per file, sorted by path. Lines
+ * are kept individually, so a changed file only replaces its own line.
+ *
+ * @param <F> the type of the files, which must keep their identity when they are moved or renamed.
+ */
+public class DepsManifest<F> {
+
+    static final String HEADER = "// This file was generated by the Closure inspections plugin. Do not edit.\n";
+
+    private final SortedMap<String, String> linesByPath = new TreeMap<>();
+
+    /**
+     * The paths of the files in the manifest, so their lines can be removed after they were moved or deleted.
+     */
+    private final Map<F, String> pathsByFile = new HashMap<>();
+
+    /**
+     * Sets the line of the given file, which now has the given path. Removes the line of its previous path if the file
+     * was moved.
+     *
+     * @return whether the manifest changed.
+     */
+    public synchronized boolean putFile(F file, String path, List<String> providedNamespaces, List<String> requiredNamespaces, boolean isModule) {
+        String previousPath = pathsByFile.put(file, path);
+        boolean changed = previousPath != null && !previousPath.equals(path) && remove(previousPath);
+        return put(path, providedNamespaces, requiredNamespaces, isModule) || changed;
+    }
+
+    /**
+     * Removes the line of the given file (e.g. after it was deleted or does not declare a namespace anymore).
+     *
+     * @return whether the manifest changed.
+     */
+    public synchronized boolean removeFile(F file) {
+        String previousPath = pathsByFile.remove(file);
+        return previousPath != null && remove(previousPath);
+    }
+
+    /**
+     * Sets the line of the file with the given path (relative to the deps.js file).
+     *
+     * @return whether the manifest changed.
+     */
+    public synchronized boolean put(String path, List<String> providedNamespaces, List<String> requiredNamespaces, boolean isModule) {
+        String line = formatLine(path, providedNamespaces, requiredNamespaces, isModule);
+        return !line.equals(linesByPath.put(path, line));
+    }
+
+    /**
+     * Removes the line of the file with the given path.
+     *
+     * @return whether the manifest changed.
+     */
+    public synchronized boolean remove(String path) {
+        return linesByPath.remove(path) != null;
+    }
+
+    public synchronized int size() {
+        return linesByPath.size();
+    }
+
+    public synchronized void clear() {
+        linesByPath.clear();
+        pathsByFile.clear();
+    }
+
+    public synchronized void write(Writer output) throws IOException {
+        output.write(HEADER);
+        for (String line : linesByPath.values()) {
+            output.write(line);
+            output.write('\n');
+        }
+    }
+
+    /**
+     * @return the deps.js line for a file, e.g.
+     * <code>goog.addDependency('x/y.js', ['x.y'], ['goog.dom'], {'module': 'goog'});</code>
+     */
+    static String formatLine(String path, List<String> providedNamespaces, List<String> requiredNamespaces, boolean isModule) {
+        StringBuilder line = new StringBuilder("goog.addDependency(");
+        appendString(line, path);
+        line.append(", ");
+        appendList(line, providedNamespaces);
+        line.append(", ");
+        appendList(line, requiredNamespaces);
+        line.append(isModule ? ", {'module': 'goog'});" : ", {});");
+        return line.toString();
+    }
+
+    private static void appendList(StringBuilder line, List<String> values) {
+        line.append('[');
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                line.append(", ");
+            }
+            appendString(line, values.get(i));
+        }
+        line.append(']');
+    }
+
+    private static void appendString(StringBuilder line, String value) {
+        line.append('\'');
+        for (int i = 0; i < value.length(); i++) {
+            char character = value.charAt(i);
+            if (character == '\'' || character == '\\') {
+                line.append('\\');
+            }
+            line.append(character);
+        }
+        line.append('\'');
+    }
+}
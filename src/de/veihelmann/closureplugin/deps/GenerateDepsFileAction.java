@@ -0,0 +1,62 @@
+package de.veihelmann.closureplugin.deps;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.fileChooser.FileChooserFactory;
+import com.intellij.openapi.fileChooser.FileSaverDescriptor;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileWrapper;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.file.Path;
+
+/**
+ * Asks for the location of the deps.js file and generates it (see {@link DepsFileGenerator}).
+ */
+public class GenerateDepsFileAction extends AnAction {
+
+    private static final String TITLE = "Generate deps.js";
+
+    @Override
+    public void update(@NotNull AnActionEvent event) {
+        event.getPresentation().setEnabledAndVisible(event.getProject() != null);
+    }
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent event) {
+        Project project = event.getProject();
+        if (project == null) {
+            return;
+        }
+
+        DepsFileGenerator generator = DepsFileGenerator.getInstance(project);
+        Path configuredOutputFile = generator.getConfiguredOutputFile();
+        VirtualFile initialDirectory = configuredOutputFile != null
+                ? LocalFileSystem.getInstance().findFileByPath(configuredOutputFile.getParent().toString())
+                : project.getBaseDir();
+        FileSaverDescriptor descriptor = new FileSaverDescriptor(TITLE,
+                "The paths in deps.js are relative to its directory, which should be the one of Closure's base.js", "js");
+        VirtualFileWrapper target = FileChooserFactory.getInstance().createSaveFileDialog(descriptor, project)
+                .save(initialDirectory, configuredOutputFile != null ? configuredOutputFile.getFileName().toString() : "deps.js");
+        if (target == null) {
+            return;
+        }
+
+        ProgressManager.getInstance().run(new Task.Backgroundable(project, TITLE, true) {
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                Path outputFile = target.getFile().toPath();
+                int fileCount = generator.generate(outputFile, indicator);
+                ApplicationManager.getApplication().invokeLater(() -> Messages.showInfoMessage(project,
+                        "Wrote the dependencies of " + fileCount + " files to " + outputFile + ".\nThe file is updated when files change.", TITLE));
+            }
+        });
+    }
+}
@@ -7,6 +7,7 @@ import com.intellij.openapi.project.Project;
 import com.intellij.psi.PsiDocumentManager;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
+import de.veihelmann.closureplugin.metrics.ClosureMetrics;
 import org.jetbrains.annotations.Nls;
 import org.jetbrains.annotations.NotNull;
 
@@ -35,16 +36,17 @@ public class BracketNotationFix extends LocalQuickFixOnPsiElement {
 
     @Override
     public void invoke(@NotNull Project project, @NotNull PsiFile psiFile, @NotNull PsiElement bracketNotationElement, @NotNull PsiElement psiElement1) {
-
-        Document document = PsiDocumentManager.getInstance(project).getDocument(bracketNotationElement.getContainingFile());
-        if (document == null) {
-            return;
-        }
-        String documentText = document.getText();
-        String newDocumentText = documentText.substring(0, bracketNotationElement.getTextRange().getStartOffset() - 1)
-                + getDotAccessForElement()
-                + documentText.substring(bracketNotationElement.getTextRange().getEndOffset() + 1);
-        document.setText(newDocumentText);
+        ClosureMetrics.time("fix.BracketNotationFix", psiFile, () -> {
+            Document document = PsiDocumentManager.getInstance(project).getDocument(bracketNotationElement.getContainingFile());
+            if (document == null) {
+                return;
+            }
+            String documentText = document.getText();
+            String newDocumentText = documentText.substring(0, bracketNotationElement.getTextRange().getStartOffset() - 1)
+                    + getDotAccessForElement()
+                    + documentText.substring(bracketNotationElement.getTextRange().getEndOffset() + 1);
+            document.setText(newDocumentText);
+        });
     }
 
     @Nls
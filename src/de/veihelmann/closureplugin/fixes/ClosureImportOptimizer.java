@@ -0,0 +1,56 @@
+package de.veihelmann.closureplugin.fixes;
+
+import com.intellij.lang.ImportOptimizer;
+import com.intellij.lang.javascript.JavaScriptFileType;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.util.EmptyRunnable;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
+import de.veihelmann.closureplugin.ClosureDependenciesExtractor;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * "Optimize Imports" for Closure files: adds all missing goog.requires, removes obsolete and duplicate ones and sorts
+ * the result, all with one document modification per file. Works on save and for whole directories, like any other
+ * import optimizer.
+ */
+public class ClosureImportOptimizer implements ImportOptimizer {
+
+    @Override
+    public boolean supports(PsiFile file) {
+        return file.getFileType() == JavaScriptFileType.INSTANCE;
+    }
+
+    @NotNull
+    @Override
+    public Runnable processFile(PsiFile file) {
+        ClosureDependenciesExtractor extractor = ClosureDependenciesExtractor.forFile(file);
+        if (extractor.googRequires.isEmpty() && extractor.googProvides.isEmpty() && extractor.googModules.isEmpty()) {
+            // No Closure file
+            return EmptyRunnable.INSTANCE;
+        }
+
+        PsiDocumentManager documentManager = PsiDocumentManager.getInstance(file.getProject());
+        Document document = documentManager.getDocument(file);
+        if (document == null) {
+            return EmptyRunnable.INSTANCE;
+        }
+
+        TextReplacements replacements = new TextReplacements();
+        new GoogRequireBlock(file, document.getCharsSequence(), extractor).collectReplacements(extractor.computeNecessaryRequires(), replacements);
+        if (replacements.applyTo(document.getCharsSequence()).contentEquals(document.getCharsSequence())) {
+            // Requires are already sorted and complete, so do not touch the file at all.
+            return EmptyRunnable.INSTANCE;
+        }
+
+        long modificationStamp = document.getModificationStamp();
+        return () -> {
+            if (document.getModificationStamp() != modificationStamp) {
+                // The document changed in the meantime, so the computed offsets are no longer valid.
+                return;
+            }
+            replacements.applyTo(document);
+            documentManager.commitDocument(document);
+        };
+    }
+}
@@ -0,0 +1,35 @@
+package de.veihelmann.closureplugin.fixes;
+
+import com.intellij.codeInspection.LocalQuickFix;
+import com.intellij.codeInspection.ProblemDescriptor;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import de.veihelmann.closureplugin.metrics.ClosureMetrics;
+import org.jetbrains.annotations.Nls;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Deletes a file whose provided namespaces are not required anywhere.
+ */
+public class DeleteUnusedModuleFix implements LocalQuickFix {
+
+    @Nls
+    @NotNull
+    @Override
+    public String getFamilyName() {
+        return "Delete unused file";
+    }
+
+    @Override
+    public void applyFix(@NotNull Project project, @NotNull ProblemDescriptor descriptor) {
+        PsiElement element = descriptor.getPsiElement();
+        if (element == null) {
+            return;
+        }
+        PsiFile psiFile = element.getContainingFile();
+        ClosureMetrics.time("fix.DeleteUnusedModuleFix", psiFile, () -> {
+            psiFile.delete();
+        });
+    }
+}
@@ -1,11 +1,11 @@
 package de.veihelmann.closureplugin.fixes;
 
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+
+import java.util.*;
 
 public class FixUtils {
 
@@ -19,23 +19,69 @@ public class FixUtils {
     }
 
 
-    public static String replaceExistingGoogRequiresWithSafeReferences(String documentText, String requiredNamespace) {
-        String newShortName = findSafeReferenceForGoogRequire(documentText, requiredNamespace);
-
-        // TODO (DV) Do something more sophisticated here, this is slow and error-prone
-        documentText = documentText.replace("goog.require('" + requiredNamespace + "')",
-                "const " + newShortName + " = goog.require('" + requiredNamespace + "')");
-        documentText = documentText.replace("goog.require(\"" + requiredNamespace + "\")",
-                "const " + newShortName + " = goog.require(\"" + requiredNamespace + "\")");
+    /**
+     * Finds the references to all given namespaces in one left-to-right scan, e.g. in <code>new x.y.Z()</code> or
+     * <code>{!x.y.Z}</code>. Occurrences in quotes (like in goog.require('x.y.Z')) and members of other objects (like in
+     * this.x.y.Z) are ignored.
+     * <p>
+     * At each position where a reference can start (i.e. not within a name, after a dot or after a quote), the dotted
+     * name at that position and its parents are looked up in the given set, longest first. This way,
+     * 'goog.dom.classlist' wins over 'goog.dom'.
+     *
+     * @return the ranges of all references in document order, mapped to the referenced namespace.
+     */
+    public static Map<TextRange, String> findNamespaceReferences(CharSequence documentText, Set<String> namespaces) {
+        Map<TextRange, String> references = new LinkedHashMap<>();
+        if (namespaces.isEmpty()) {
+            return references;
+        }
+        int length = documentText.length();
+        // A reference always has a preceding character
+        int index = 1;
+        while (index < length) {
+            char previous = documentText.charAt(index - 1);
+            if (!isWordCharacter(documentText.charAt(index)) || isWordCharacter(previous) || previous == '.' || isQuote(previous)) {
+                index++;
+                continue;
+            }
+            int nameEnd = index;
+            while (nameEnd < length && (isWordCharacter(documentText.charAt(nameEnd)) || documentText.charAt(nameEnd) == '.')) {
+                nameEnd++;
+            }
+            String namespace = findLongestNamespace(documentText, index, nameEnd, namespaces);
+            if (namespace != null) {
+                references.put(new TextRange(index, index + namespace.length()), namespace);
+            }
+            index = nameEnd;
+        }
+        return references;
+    }
 
-        Matcher matcher = Pattern.compile("([^\\w'][!?<]?)" + Pattern.quote(requiredNamespace) + "([^\\w'])").matcher(documentText);
-        if (matcher.find()) {
-            documentText = matcher.replaceAll("$1" + newShortName + "$2");
+    private static String findLongestNamespace(CharSequence documentText, int start, int nameEnd, Set<String> namespaces) {
+        for (int end = nameEnd; end > start; end--) {
+            // Candidates end at the end of the name or before one of its dots, and are not followed by a quote
+            boolean isNameEnd = end == nameEnd && end < documentText.length() && !isQuote(documentText.charAt(end));
+            boolean isBeforeDot = end < nameEnd && documentText.charAt(end) == '.';
+            if ((!isNameEnd && !isBeforeDot) || documentText.charAt(end - 1) == '.') {
+                continue;
+            }
+            String candidate = documentText.subSequence(start, end).toString();
+            if (namespaces.contains(candidate)) {
+                return candidate;
+            }
         }
-        return documentText;
+        return null;
     }
 
     public static String findSafeReferenceForGoogRequire(String documentText, String requiredNamespace) {
+        return findSafeReferenceForGoogRequire(collectQualifierNames(documentText), requiredNamespace);
+    }
+
+    /**
+     * @param qualifierNames the names already used as qualifiers in the file (see {@link #collectQualifierNames(CharSequence)}),
+     *                       which must not be chosen for the new short reference.
+     */
+    public static String findSafeReferenceForGoogRequire(Set<String> qualifierNames, String requiredNamespace) {
         String[] namespaceParts = requiredNamespace.split("\\.");
         String newShortName = namespaceParts[namespaceParts.length - 1];
 
@@ -59,7 +105,7 @@ public class FixUtils {
         }
 
 
-        while (Pattern.compile("[^.\\w]" + newShortName + "\\.").matcher(documentText).find()) {
+        while (qualifierNames.contains(newShortName)) {
             namespacePartIndex--;
             if (namespacePartIndex >= 0) {
                 newShortName = namespaceParts[namespacePartIndex] + "_" + newShortName;
@@ -75,4 +121,47 @@ public class FixUtils {
         }
         return newShortName;
     }
+
+    /**
+     * @return the qualifier names of the given file (see {@link #collectQualifierNames(CharSequence)}), cached until the
+     * file changes.
+     */
+    public static Set<String> getQualifierNames(PsiFile file) {
+        return CachedValuesManager.getCachedValue(file, () -> CachedValueProvider.Result.create(
+                Collections.unmodifiableSet(collectQualifierNames(file.getViewProvider().getContents())), file));
+    }
+
+    /**
+     * @return all names used as the first part of a qualified name in the text, e.g. 'goog' and 'x' for
+     * <code>goog.dom.getElement(x.y)</code>. Scans the text only once, so each collision check for a new short
+     * reference is a set lookup.
+     */
+    public static Set<String> collectQualifierNames(CharSequence text) {
+        Set<String> qualifierNames = new HashSet<>();
+        int length = text.length();
+        int index = 0;
+        while (index < length) {
+            if (!isWordCharacter(text.charAt(index))) {
+                index++;
+                continue;
+            }
+            int start = index;
+            while (index < length && isWordCharacter(text.charAt(index))) {
+                index++;
+            }
+            if (start > 0 && text.charAt(start - 1) != '.' && index < length && text.charAt(index) == '.') {
+                qualifierNames.add(text.subSequence(start, index).toString());
+            }
+        }
+        return qualifierNames;
+    }
+
+    private static boolean isQuote(char character) {
+        return character == '\'' || character == '"';
+    }
+
+    private static boolean isWordCharacter(char character) {
+        return (character >= 'a' && character <= 'z') || (character >= 'A' && character <= 'Z')
+                || (character >= '0' && character <= '9') || character == '_';
+    }
 }
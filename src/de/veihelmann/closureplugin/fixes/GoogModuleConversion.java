@@ -0,0 +1,190 @@
+package de.veihelmann.closureplugin.fixes;
+
+import com.intellij.lang.javascript.psi.JSCallExpression;
+import com.intellij.lang.javascript.psi.JSEmptyStatement;
+import com.intellij.lang.javascript.psi.JSExpression;
+import com.intellij.lang.javascript.psi.JSExpressionStatement;
+import com.intellij.lang.javascript.psi.JSReferenceExpression;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.psi.PsiComment;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiRecursiveElementWalkingVisitor;
+import com.intellij.psi.codeStyle.CodeStyleManager;
+import com.intellij.psi.util.PsiTreeUtil;
+import de.veihelmann.closureplugin.ClosureDependenciesExtractor;
+import de.veihelmann.closureplugin.utils.NamespaceAliases;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Computes the replacements for converting a goog.provide file to a goog.module (with
+ * goog.module.declareLegacyNamespace()). All references to the provided and the required namespaces are collected in
+ * a single walk over the PSI of the file, so the conversion can be applied with one document modification.
+ * <p>
+ * Only reads the PSI, so the planning can run in a read action (e.g. for many files in parallel).
+ */
+public class GoogModuleConversion {
+
+    private static final Pattern CLASS_ASSIGNMENT_PATTERN = Pattern.compile("\\s*=\\s*class\\s");
+
+    private final PsiFile psiFile;
+
+    private final CharSequence documentText;
+
+    private final JSCallExpression provideCall;
+
+    private final String providedNamespace;
+
+    private final String className;
+
+    public GoogModuleConversion(PsiFile psiFile, CharSequence documentText, JSCallExpression provideCall) {
+        this.psiFile = psiFile;
+        this.documentText = documentText;
+        this.provideCall = provideCall;
+        this.providedNamespace = extractProvidedNamespace(provideCall);
+        this.className = providedNamespace.substring(providedNamespace.lastIndexOf(".") + 1);
+    }
+
+    public String getProvidedNamespace() {
+        return providedNamespace;
+    }
+
+    /**
+     * Adds all replacements for the conversion of the file.
+     */
+    public void collectReplacements(TextReplacements replacements) {
+        ClosureDependenciesExtractor extractor = ClosureDependenciesExtractor.forFile(psiFile);
+
+        // Maps the namespaces to rewrite to their new short references in the module
+        Map<String, String> newReferences = new HashMap<>();
+        newReferences.put(providedNamespace, className);
+        collectRequireReplacements(extractor, newReferences, replacements);
+
+        psiFile.accept(new PsiRecursiveElementWalkingVisitor() {
+            @Override
+            public void visitElement(PsiElement element) {
+                if (element == provideCall) {
+                    replacements.replace(element.getTextRange(),
+                            "goog.module('" + providedNamespace + "');\ngoog.module.declareLegacyNamespace()");
+                    return;
+                }
+                if (element instanceof PsiComment) {
+                    collectCommentReplacements((PsiComment) element, newReferences, replacements);
+                    return;
+                }
+                if (element instanceof JSReferenceExpression && newReferences.containsKey(element.getText())) {
+                    collectReferenceReplacement((JSReferenceExpression) element, newReferences.get(element.getText()), replacements);
+                    return;
+                }
+                if (element instanceof JSEmptyStatement && element.getParent() == psiFile && ";".equals(element.getText())) {
+                    // Superfluous semicolon after a class definition (};)
+                    replacements.replace(element.getTextRange(), "");
+                    return;
+                }
+                super.visitElement(element);
+            }
+        });
+
+        boolean endsWithNewline = documentText.length() > 0 && documentText.charAt(documentText.length() - 1) == '\n';
+        replacements.insert(documentText.length(), (endsWithNewline ? "" : "\n") + "exports = " + className + ";");
+    }
+
+    /**
+     * Reformats only the lines touched by an applied conversion, instead of the whole file.
+     */
+    public static void reformatChangedLines(Project project, PsiFile psiFile, Document document, List<TextRange> changedRanges) {
+        List<TextRange> lineRanges = new ArrayList<>();
+        for (TextRange range : changedRanges) {
+            int startOffset = document.getLineStartOffset(document.getLineNumber(range.getStartOffset()));
+            int endOffset = document.getLineEndOffset(document.getLineNumber(range.getEndOffset()));
+            TextRange lastRange = lineRanges.isEmpty() ? null : lineRanges.get(lineRanges.size() - 1);
+            if (lastRange != null && lastRange.getEndOffset() >= startOffset) {
+                lineRanges.set(lineRanges.size() - 1, new TextRange(lastRange.getStartOffset(), Math.max(lastRange.getEndOffset(), endOffset)));
+            } else {
+                lineRanges.add(new TextRange(startOffset, endOffset));
+            }
+        }
+        if (!lineRanges.isEmpty()) {
+            CodeStyleManager.getInstance(project).reformatText(psiFile, lineRanges);
+        }
+    }
+
+    /**
+     * Turns <code>goog.require('x.y.Z')</code> into <code>const Z = goog.require('x.y.Z')</code>, with a short name
+     * which does not collide with any other reference in the file.
+     */
+    private void collectRequireReplacements(ClosureDependenciesExtractor extractor, Map<String, String> newReferences, TextReplacements replacements) {
+        Set<String> qualifierNames = null;
+        for (Map.Entry<String, PsiElement> require : extractor.googRequires.entrySet()) {
+            String requiredNamespace = require.getKey();
+            PsiElement requireStatement = require.getValue();
+            if (extractor.namespaceAliases.containsFullNamespace(requiredNamespace) || !requireStatement.isValid()
+                    || !requireStatement.getText().startsWith("goog.require")) {
+                // Already has a short reference
+                continue;
+            }
+            if (qualifierNames == null) {
+                qualifierNames = new HashSet<>(FixUtils.getQualifierNames(psiFile));
+                qualifierNames.add(className);
+            }
+            String shortReference = FixUtils.findSafeReferenceForGoogRequire(qualifierNames, requiredNamespace);
+            // Make the chosen name visible for the next collision checks
+            qualifierNames.add(shortReference);
+
+            newReferences.put(requiredNamespace, shortReference);
+            replacements.insert(requireStatement.getTextRange().getStartOffset(), "const " + shortReference + " = ");
+        }
+    }
+
+    private void collectReferenceReplacement(JSReferenceExpression reference, String newReference, TextReplacements replacements) {
+        TextRange range = reference.getTextRange();
+        if (!newReference.equals(className) || !isAssignedClass(reference)) {
+            replacements.replace(range, newReference);
+            return;
+        }
+
+        // x.y.Z = class {...}; -> class Z {...}
+        Matcher matcher = CLASS_ASSIGNMENT_PATTERN.matcher(documentText);
+        matcher.region(range.getEndOffset(), documentText.length());
+        if (!matcher.lookingAt()) {
+            replacements.replace(range, newReference);
+            return;
+        }
+        replacements.replace(range.getStartOffset(), matcher.end(), "class " + className + " ");
+
+        JSExpressionStatement statement = PsiTreeUtil.getParentOfType(reference, JSExpressionStatement.class);
+        if (statement != null && statement.getText().endsWith(";")) {
+            int semicolonOffset = statement.getTextRange().getEndOffset() - 1;
+            replacements.replace(semicolonOffset, semicolonOffset + 1, "");
+        }
+    }
+
+    private static boolean isAssignedClass(JSReferenceExpression reference) {
+        // The reference is wrapped in a JSDefinitionExpression, which is the left-hand side of the assignment
+        PsiElement definition = reference.getParent();
+        return definition instanceof JSExpression && definition.getParent() instanceof JSExpression
+                && definition.getParent().getParent() instanceof JSExpressionStatement;
+    }
+
+    /**
+     * Replaces the namespaces in type annotations, e.g. <code>{!x.y.Z}</code>.
+     */
+    private static void collectCommentReplacements(PsiComment comment, Map<String, String> newReferences, TextReplacements replacements) {
+        int commentOffset = comment.getTextRange().getStartOffset();
+        FixUtils.findNamespaceReferences(comment.getText(), newReferences.keySet()).forEach((reference, namespace) ->
+                replacements.replace(reference.shiftRight(commentOffset), newReferences.get(namespace)));
+    }
+
+    private static String extractProvidedNamespace(JSCallExpression provideCall) {
+        JSExpression[] arguments = provideCall.getArguments();
+        if (arguments.length != 1) {
+            throw new IllegalArgumentException("Not a goog.provide call: " + provideCall.getText());
+        }
+        return NamespaceAliases.normalizeNamespace(arguments[0].getText().replaceAll("[\"']", ""));
+    }
+}
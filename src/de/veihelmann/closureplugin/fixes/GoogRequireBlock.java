@@ -0,0 +1,359 @@
+package de.veihelmann.closureplugin.fixes;
+
+import com.intellij.lang.javascript.psi.JSStatement;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.util.text.CharArrayUtil;
+import de.veihelmann.closureplugin.ClosureDependenciesExtractor;
+
+import java.util.*;
+
+import static java.util.Comparator.comparingInt;
+
+/**
+ * Computes the replacements for rewriting the goog.require statements of a file as one sorted block (grouped by the
+ * first part of the namespaces). The existing require statements are replaced in place; if there are none, the block
+ * is inserted after the goog.provide(s) / goog.module of the file. Comments between the requires move with them; if
+ * there is code between them, they are not reordered (see {@link #collectReplacements(SortedSet, TextReplacements)}).
+ * <p>
+ * In goog.module files, each require gets a short reference. Namespaces without one get a safe short name (see
+ * {@link FixUtils#findSafeReferenceForGoogRequire(Set, String)}), and their usages in the file are replaced by it.
+ */
+public class GoogRequireBlock {
+
+    private static final String LEGACY_NAMESPACE_DECLARATION = "goog.module.declareLegacyNamespace();";
+
+    private static class ExistingRequire {
+        final String namespace;
+        /**
+         * The statement incl. a trailing comment on the same line and the following line breaks.
+         */
+        final TextRange range;
+        final String trailingComment;
+
+        ExistingRequire(String namespace, TextRange range, String trailingComment) {
+            this.namespace = namespace;
+            this.range = range;
+            this.trailingComment = trailingComment;
+        }
+    }
+
+    private final PsiFile psiFile;
+
+    private final CharSequence documentText;
+
+    private final ClosureDependenciesExtractor extractor;
+
+    private final boolean isModule;
+
+    public GoogRequireBlock(PsiFile psiFile, CharSequence documentText, ClosureDependenciesExtractor extractor) {
+        this.psiFile = psiFile;
+        this.documentText = documentText;
+        this.extractor = extractor;
+        this.isModule = !extractor.googModules.isEmpty();
+    }
+
+    /**
+     * Rewrites the require block of the given file, so it additionally requires the given namespace, with a single
+     * document modification. The document is committed before (so the block is computed from the current text) and
+     * after (so further changes see the new require).
+     */
+    public static void addRequire(PsiFile psiFile, Document document, String namespace) {
+        PsiDocumentManager documentManager = PsiDocumentManager.getInstance(psiFile.getProject());
+        documentManager.commitDocument(document);
+
+        ClosureDependenciesExtractor extractor = ClosureDependenciesExtractor.forFile(psiFile);
+        SortedSet<String> allSortedNamespaces = new TreeSet<>(extractor.googRequires.keySet());
+        allSortedNamespaces.add(namespace);
+
+        TextReplacements replacements = new TextReplacements();
+        new GoogRequireBlock(psiFile, document.getCharsSequence(), extractor).collectReplacements(allSortedNamespaces, replacements);
+        replacements.applyTo(document);
+        documentManager.commitDocument(document);
+    }
+
+    /**
+     * Adds the replacements for a require block with exactly the given namespaces. Comments between the existing
+     * requires stay attached to the require following them, comments at the end of a require line to that require.
+     * <p>
+     * If there is code between the existing requires, reordering them could change the evaluation order. In that case,
+     * the requires are not rewritten as a block: obsolete ones are removed and missing ones are added after the last
+     * existing require.
+     */
+    public void collectReplacements(SortedSet<String> requiredNamespaces, TextReplacements replacements) {
+        List<ExistingRequire> existingRequires = collectExistingRequires();
+        if (existingRequires.isEmpty()) {
+            Map<String, String> newShortReferences = chooseNewShortReferences(requiredNamespaces);
+            String block = buildBlock(requiredNamespaces, newShortReferences, Collections.emptyMap(), Collections.emptyMap());
+            int insertionOffset = findInsertionOffset();
+            if (!block.isEmpty()) {
+                replacements.insert(insertionOffset, insertionOffset == 0 ? block + "\n" : "\n\n" + block.substring(0, block.length() - 1));
+            }
+            collectUsageReplacements(newShortReferences, Collections.emptyList(), replacements);
+            return;
+        }
+
+        if (hasCodeBetween(existingRequires)) {
+            collectMinimalReplacements(requiredNamespaces, existingRequires, replacements);
+            return;
+        }
+
+        Map<String, String> leadingComments = new HashMap<>();
+        Map<String, String> trailingComments = new HashMap<>();
+        for (int i = 0; i < existingRequires.size(); i++) {
+            ExistingRequire existingRequire = existingRequires.get(i);
+            if (i > 0) {
+                String gap = documentText.subSequence(existingRequires.get(i - 1).range.getEndOffset(), existingRequire.range.getStartOffset()).toString().trim();
+                leadingComments.merge(existingRequire.namespace, gap, (first, second) -> joinComments(first, second, "\n"));
+            }
+            trailingComments.merge(existingRequire.namespace, existingRequire.trailingComment, (first, second) -> joinComments(first, second, " "));
+        }
+
+        Map<String, String> newShortReferences = chooseNewShortReferences(requiredNamespaces);
+        String block = buildBlock(requiredNamespaces, newShortReferences, leadingComments, trailingComments);
+        TextRange requireRegion = new TextRange(existingRequires.get(0).range.getStartOffset(), existingRequires.get(existingRequires.size() - 1).range.getEndOffset());
+        replacements.replace(requireRegion, block.isEmpty() ? "" : block + "\n");
+        collectUsageReplacements(newShortReferences, Collections.singletonList(requireRegion), replacements);
+    }
+
+    /**
+     * Removes the obsolete and duplicate requires and adds the missing ones after the last existing require, without
+     * moving any of the existing requires.
+     */
+    private void collectMinimalReplacements(SortedSet<String> requiredNamespaces, List<ExistingRequire> existingRequires, TextReplacements replacements) {
+        Set<String> keptNamespaces = new HashSet<>();
+        List<TextRange> existingRequireRanges = new ArrayList<>();
+        for (ExistingRequire existingRequire : existingRequires) {
+            existingRequireRanges.add(existingRequire.range);
+            if (!requiredNamespaces.contains(existingRequire.namespace) || !keptNamespaces.add(existingRequire.namespace)) {
+                replacements.replace(existingRequire.range, "");
+            }
+        }
+
+        SortedSet<String> missingNamespaces = new TreeSet<>(requiredNamespaces);
+        missingNamespaces.removeAll(keptNamespaces);
+        Map<String, String> newShortReferences = chooseNewShortReferences(missingNamespaces);
+        StringBuilder missingRequires = new StringBuilder();
+        for (String namespace : missingNamespaces) {
+            appendRequire(missingRequires, namespace, newShortReferences);
+        }
+        if (missingRequires.length() > 0) {
+            int insertionOffset = existingRequires.get(existingRequires.size() - 1).range.getEndOffset();
+            boolean atLineStart = insertionOffset > 0 && documentText.charAt(insertionOffset - 1) == '\n';
+            replacements.insert(insertionOffset, atLineStart ? missingRequires.toString() : "\n" + missingRequires.substring(0, missingRequires.length() - 1));
+        }
+        collectUsageReplacements(newShortReferences, existingRequireRanges, replacements);
+    }
+
+    private static String joinComments(String first, String second, String separator) {
+        if (first.isEmpty()) {
+            return second;
+        }
+        return second.isEmpty() ? first : first + separator + second;
+    }
+
+    /**
+     * @return the existing require statements (incl. duplicates) in document order.
+     */
+    private List<ExistingRequire> collectExistingRequires() {
+        List<ExistingRequire> existingRequires = new ArrayList<>();
+        extractor.googRequires.forEach((namespace, requireStatement) -> addExistingRequire(namespace, requireStatement, existingRequires));
+        extractor.getDuplicateGoogRequires().forEach((namespace, requireStatement) -> addExistingRequire(namespace, requireStatement, existingRequires));
+        existingRequires.sort(comparingInt(existingRequire -> existingRequire.range.getStartOffset()));
+        return existingRequires;
+    }
+
+    private void addExistingRequire(String namespace, PsiElement statement, List<ExistingRequire> existingRequires) {
+        if (statement == null || !statement.isValid()) {
+            return;
+        }
+        TextRange statementRange = statement.getTextRange();
+        int contentEnd = findTrailingCommentEnd(documentText, statementRange.getEndOffset());
+        int endOffset = contentEnd;
+        while (endOffset < documentText.length() && (documentText.charAt(endOffset) == '\n' || documentText.charAt(endOffset) == '\r')) {
+            endOffset++;
+        }
+        String trailingComment = contentEnd > statementRange.getEndOffset() ? documentText.subSequence(statementRange.getEndOffset(), contentEnd).toString().trim() : "";
+        existingRequires.add(new ExistingRequire(namespace, new TextRange(statementRange.getStartOffset(), endOffset), trailingComment));
+    }
+
+    private boolean hasCodeBetween(List<ExistingRequire> existingRequires) {
+        for (int i = 1; i < existingRequires.size(); i++) {
+            if (containsCode(documentText, existingRequires.get(i - 1).range.getEndOffset(), existingRequires.get(i).range.getStartOffset())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the end of a comment starting on the same line after the given offset (e.g. <code>// why</code> after a
+     * require), or the given offset if there is none.
+     */
+    static int findTrailingCommentEnd(CharSequence text, int offset) {
+        int index = offset;
+        while (index < text.length() && (text.charAt(index) == ' ' || text.charAt(index) == '\t')) {
+            index++;
+        }
+        if (CharArrayUtil.regionMatches(text, index, "//")) {
+            while (index < text.length() && text.charAt(index) != '\n' && text.charAt(index) != '\r') {
+                index++;
+            }
+            return index;
+        }
+        if (CharArrayUtil.regionMatches(text, index, "/*")) {
+            int commentEnd = CharArrayUtil.indexOf(text, "*/", index + 2);
+            if (commentEnd >= 0 && StringUtil.indexOf(text, '\n', index, commentEnd) < 0) {
+                return commentEnd + 2;
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * @return whether the given range of the text contains anything but whitespace and comments.
+     */
+    static boolean containsCode(CharSequence text, int startOffset, int endOffset) {
+        int index = startOffset;
+        while (index < endOffset) {
+            char character = text.charAt(index);
+            if (Character.isWhitespace(character)) {
+                index++;
+            } else if (CharArrayUtil.regionMatches(text, index, "//")) {
+                while (index < endOffset && text.charAt(index) != '\n') {
+                    index++;
+                }
+            } else if (CharArrayUtil.regionMatches(text, index, "/*")) {
+                int commentEnd = CharArrayUtil.indexOf(text, "*/", index + 2);
+                if (commentEnd < 0 || commentEnd + 2 > endOffset) {
+                    return true;
+                }
+                index = commentEnd + 2;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Map<String, String> chooseNewShortReferences(SortedSet<String> requiredNamespaces) {
+        Map<String, String> newShortReferences = new HashMap<>();
+        if (!isModule) {
+            return newShortReferences;
+        }
+        Set<String> qualifierNames = null;
+        for (String namespace : requiredNamespaces) {
+            if (extractor.namespaceAliases.containsFullNamespace(namespace) || isDestructuringRequire(namespace)) {
+                continue;
+            }
+            if (qualifierNames == null) {
+                qualifierNames = new HashSet<>(FixUtils.getQualifierNames(psiFile));
+            }
+            String shortReference = FixUtils.findSafeReferenceForGoogRequire(qualifierNames, namespace);
+            // Make the chosen name visible for the next collision checks
+            qualifierNames.add(shortReference);
+            newShortReferences.put(namespace, shortReference);
+        }
+        return newShortReferences;
+    }
+
+    /**
+     * @param leadingComments  the comments to put on the lines before the require of a namespace
+     * @param trailingComments the comments to put at the end of the line of the require of a namespace
+     */
+    private String buildBlock(SortedSet<String> requiredNamespaces, Map<String, String> newShortReferences, Map<String, String> leadingComments, Map<String, String> trailingComments) {
+        StringBuilder builder = new StringBuilder();
+        String lastPrefix = null;
+
+        for (String namespace : requiredNamespaces) {
+            if (lastPrefix != null && namespace.contains(".") && !namespace.substring(0, namespace.indexOf(".")).equals(lastPrefix)) {
+                // add empty line between namespaces of different origins.
+                builder.append("\n");
+            }
+            if (namespace.contains(".")) {
+                lastPrefix = namespace.substring(0, namespace.indexOf("."));
+            }
+
+            String leadingComment = leadingComments.getOrDefault(namespace, "");
+            if (!leadingComment.isEmpty()) {
+                builder.append(leadingComment).append("\n");
+            }
+            appendRequire(builder, namespace, newShortReferences);
+            String trailingComment = trailingComments.getOrDefault(namespace, "");
+            if (!trailingComment.isEmpty()) {
+                builder.insert(builder.length() - 1, " " + trailingComment);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Appends the require statement for the given namespace, incl. the line break.
+     */
+    private void appendRequire(StringBuilder builder, String namespace, Map<String, String> newShortReferences) {
+        if (isModule && isDestructuringRequire(namespace)) {
+            builder.append(extractor.googRequires.get(namespace).getText()).append("\n");
+            return;
+        }
+        if (isModule) {
+            String shortReference = extractor.namespaceAliases.getShortReference(namespace);
+            if (shortReference == null) {
+                shortReference = newShortReferences.get(namespace);
+            }
+            builder.append("const ").append(shortReference).append(" = ");
+        }
+        builder.append("goog.require('")
+                .append(namespace)
+                .append("');\n");
+    }
+
+    /**
+     * @return whether the namespace is already required with a destructuring assignment, e.g.
+     * <code>const {assert} = goog.require('goog.asserts');</code>, which is kept as it is.
+     */
+    private boolean isDestructuringRequire(String namespace) {
+        PsiElement existingRequire = extractor.googRequires.get(namespace);
+        return existingRequire != null && existingRequire.isValid() && existingRequire.getText().matches("(?s)\\s*(const|let|var)\\s*\\{.*");
+    }
+
+    /**
+     * @return the offset after the goog.provide(s) / goog.module (and goog.module.declareLegacyNamespace), or 0 if there
+     * are none.
+     */
+    private int findInsertionOffset() {
+        SortedMap<String, JSStatement> relevantDeclarations = isModule ? extractor.googModules : extractor.googProvides;
+        Optional<JSStatement> lastDeclaration = relevantDeclarations.values().stream()
+                .filter(PsiElement::isValid)
+                .max(comparingInt(PsiElement::getTextOffset));
+        if (!lastDeclaration.isPresent()) {
+            return 0;
+        }
+
+        int insertionOffset = lastDeclaration.get().getTextRange().getEndOffset();
+        if (isModule) {
+            int indexOfLegacyDeclaration = CharArrayUtil.indexOf(documentText, LEGACY_NAMESPACE_DECLARATION, 0);
+            if (indexOfLegacyDeclaration > -1) {
+                insertionOffset = Math.max(insertionOffset, indexOfLegacyDeclaration + LEGACY_NAMESPACE_DECLARATION.length());
+            }
+        }
+        return insertionOffset;
+    }
+
+    /**
+     * @param requireRanges the ranges of the require statements, which are rewritten as a whole
+     */
+    private void collectUsageReplacements(Map<String, String> newShortReferences, List<TextRange> requireRanges, TextReplacements replacements) {
+        if (newShortReferences.isEmpty()) {
+            return;
+        }
+        FixUtils.findNamespaceReferences(documentText, newShortReferences.keySet()).forEach((reference, namespace) -> {
+            if (requireRanges.stream().noneMatch(requireRange -> requireRange.contains(reference))) {
+                replacements.replace(reference, newShortReferences.get(namespace));
+            }
+        });
+    }
+}
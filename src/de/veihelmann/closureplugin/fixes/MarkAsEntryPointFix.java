@@ -0,0 +1,40 @@
+package de.veihelmann.closureplugin.fixes;
+
+import com.intellij.codeInspection.ProblemDescriptor;
+import com.intellij.codeInspection.SuppressByCommentFix;
+import com.intellij.lang.javascript.psi.JSStatement;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiElement;
+import de.veihelmann.closureplugin.UnusedGoogNamespaceInspection;
+import de.veihelmann.closureplugin.metrics.ClosureMetrics;
+import org.jetbrains.annotations.Nls;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Marks a goog.provide / goog.module statement as entry point (which is not required by other files on purpose) by
+ * suppressing the {@link UnusedGoogNamespaceInspection} for the statement, with the platform's
+ * <code>//noinspection</code> comment.
+ */
+public class MarkAsEntryPointFix extends SuppressByCommentFix {
+
+    public MarkAsEntryPointFix() {
+        super(UnusedGoogNamespaceInspection.SHORT_NAME, JSStatement.class);
+        setText(getFamilyName());
+    }
+
+    @Nls
+    @NotNull
+    @Override
+    public String getFamilyName() {
+        return "Mark as entry point";
+    }
+
+    @Override
+    public void applyFix(@NotNull Project project, @NotNull ProblemDescriptor descriptor) {
+        PsiElement statement = descriptor.getPsiElement();
+        if (statement == null) {
+            return;
+        }
+        ClosureMetrics.time("fix.MarkAsEntryPointFix", statement.getContainingFile(), () -> super.applyFix(project, descriptor));
+    }
+}
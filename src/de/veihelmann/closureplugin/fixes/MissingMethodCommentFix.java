@@ -11,6 +11,7 @@ import com.intellij.psi.PsiDocumentManager;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiWhiteSpace;
+import de.veihelmann.closureplugin.metrics.ClosureMetrics;
 import org.jetbrains.annotations.Nls;
 import org.jetbrains.annotations.NotNull;
 
@@ -40,26 +41,28 @@ public class MissingMethodCommentFix extends LocalQuickFixOnPsiElement {
 
     @Override
     public void invoke(@NotNull Project project, @NotNull PsiFile psiFile, @NotNull PsiElement targetElement, @NotNull PsiElement psiElement1) {
-        JSFunction functionElement = (JSFunction) targetElement;
-        Document document = PsiDocumentManager.getInstance(project).getDocument(psiFile);
-        if (document == null) {
-            return;
-        }
-        String documentText = document.getText();
-        String indentation = "";
-        if (functionElement.getPrevSibling() instanceof PsiWhiteSpace) {
-            indentation = functionElement.getPrevSibling().getText();
-            if (indentation.contains("\n")) {
-                // Only consider indentation of same line as the method declaration
-                indentation = indentation.substring(indentation.lastIndexOf("\n") + 1);
+        ClosureMetrics.time("fix.MissingMethodCommentFix", psiFile, () -> {
+            JSFunction functionElement = (JSFunction) targetElement;
+            Document document = PsiDocumentManager.getInstance(project).getDocument(psiFile);
+            if (document == null) {
+                return;
+            }
+            String documentText = document.getText();
+            String indentation = "";
+            if (functionElement.getPrevSibling() instanceof PsiWhiteSpace) {
+                indentation = functionElement.getPrevSibling().getText();
+                if (indentation.contains("\n")) {
+                    // Only consider indentation of same line as the method declaration
+                    indentation = indentation.substring(indentation.lastIndexOf("\n") + 1);
+                }
             }
-        }
 
-        List<String> parameters = getMethodParameters(functionElement);
-        String newDocumentText = documentText.substring(0, functionElement.getTextRange().getStartOffset())
-                + buildJsDoc(parameters, indentation, functionElement.getReturnType())
-                + indentation + documentText.substring(functionElement.getTextRange().getStartOffset());
-        document.setText(newDocumentText);
+            List<String> parameters = getMethodParameters(functionElement);
+            String newDocumentText = documentText.substring(0, functionElement.getTextRange().getStartOffset())
+                    + buildJsDoc(parameters, indentation, functionElement.getReturnType())
+                    + indentation + documentText.substring(functionElement.getTextRange().getStartOffset());
+            document.setText(newDocumentText);
+        });
     }
 
     @NotNull
@@ -5,6 +5,7 @@ import com.intellij.openapi.project.Project;
 import com.intellij.psi.PsiDocumentManager;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
+import de.veihelmann.closureplugin.metrics.ClosureMetrics;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -30,20 +31,21 @@ public class ObsoleteRequireOrProvideFix extends GoogRequireFixBase {
 
     @Override
     public void invoke(@NotNull Project project, @NotNull PsiFile psiFile, @NotNull PsiElement psiElement, @NotNull PsiElement psiElement1) {
-
-        psiElement.delete();
-
-        if (!removeAllRequiresForNamespace) {
-            return;
-        }
-        PsiDocumentManager manager = PsiDocumentManager.getInstance(project);
-        if (manager == null) {
-            return;
-        }
-        Document document = manager.getDocument(psiFile);
-        if (document != null) {
-            document.setText(document.getText()
-                    .replaceAll("goog\\s*\\.\\s*require\\([\"']" + obsoleteNamespace + "[\"']\\);?\\R?", ""));
-        }
+        ClosureMetrics.time("fix.ObsoleteRequireOrProvideFix", psiFile, () -> {
+            psiElement.delete();
+
+            if (!removeAllRequiresForNamespace) {
+                return;
+            }
+            PsiDocumentManager manager = PsiDocumentManager.getInstance(project);
+            if (manager == null) {
+                return;
+            }
+            Document document = manager.getDocument(psiFile);
+            if (document != null) {
+                document.setText(document.getText()
+                        .replaceAll("goog\\s*\\.\\s*require\\([\"']" + obsoleteNamespace + "[\"']\\);?\\R?", ""));
+            }
+        });
     }
 }
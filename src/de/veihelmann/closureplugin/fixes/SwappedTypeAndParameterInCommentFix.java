@@ -7,6 +7,7 @@ import com.intellij.openapi.project.Project;
 import com.intellij.psi.PsiDocumentManager;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
+import de.veihelmann.closureplugin.metrics.ClosureMetrics;
 import org.jetbrains.annotations.Nls;
 import org.jetbrains.annotations.NotNull;
 
@@ -38,16 +39,18 @@ public class SwappedTypeAndParameterInCommentFix extends LocalQuickFixOnPsiEleme
 
     @Override
     public void invoke(@NotNull Project project, @NotNull PsiFile psiFile, @NotNull PsiElement psiElement, @NotNull PsiElement psiElement1) {
-        Document document = PsiDocumentManager.getInstance(project).getDocument(psiFile);
-        if (document == null || !canBeQuickFixed((JSDocTag) psiElement)) {
-            return;
-        }
-        String documentText = document.getText();
-        String newDocumentText = documentText.substring(0, psiElement.getChildren()[2].getTextRange().getStartOffset())
-                + psiElement.getChildren()[4].getText()
-                + psiElement.getChildren()[3].getText()
-                + psiElement.getChildren()[2].getText()
-                + documentText.substring(psiElement.getChildren()[4].getTextRange().getEndOffset());
-        document.setText(newDocumentText);
+        ClosureMetrics.time("fix.SwappedTypeAndParameterInCommentFix", psiFile, () -> {
+            Document document = PsiDocumentManager.getInstance(project).getDocument(psiFile);
+            if (document == null || !canBeQuickFixed((JSDocTag) psiElement)) {
+                return;
+            }
+            String documentText = document.getText();
+            String newDocumentText = documentText.substring(0, psiElement.getChildren()[2].getTextRange().getStartOffset())
+                    + psiElement.getChildren()[4].getText()
+                    + psiElement.getChildren()[3].getText()
+                    + psiElement.getChildren()[2].getText()
+                    + documentText.substring(psiElement.getChildren()[4].getTextRange().getEndOffset());
+            document.setText(newDocumentText);
+        });
     }
 }
@@ -0,0 +1,107 @@
+package de.veihelmann.closureplugin.fixes;
+
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.util.TextRange;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Collects non-overlapping text replacements for a document and applies all of them with a single document
+ * modification. This keeps the editor responsive for large files, as the document (and PSI) is only changed once
+ * and only within the range spanned by the replacements.
+ */
+public class TextReplacements {
+
+    private static class Replacement {
+        final int startOffset;
+        final int endOffset;
+        final String text;
+
+        Replacement(int startOffset, int endOffset, String text) {
+            this.startOffset = startOffset;
+            this.endOffset = endOffset;
+            this.text = text;
+        }
+    }
+
+    private final List<Replacement> replacements = new ArrayList<>();
+
+    public void replace(int startOffset, int endOffset, String text) {
+        replacements.add(new Replacement(startOffset, endOffset, text));
+    }
+
+    public void replace(TextRange range, String text) {
+        replace(range.getStartOffset(), range.getEndOffset(), text);
+    }
+
+    public void insert(int offset, String text) {
+        replace(offset, offset, text);
+    }
+
+    public boolean isEmpty() {
+        return replacements.isEmpty();
+    }
+
+    /**
+     * Applies all replacements to the given document with one modification.
+     *
+     * @return the ranges of the inserted texts in the modified document, in document order.
+     */
+    public List<TextRange> applyTo(Document document) {
+        List<TextRange> newRanges = new ArrayList<>();
+        if (replacements.isEmpty()) {
+            return newRanges;
+        }
+        List<Replacement> sortedReplacements = sortedReplacements();
+        int startOffset = sortedReplacements.get(0).startOffset;
+        int endOffset = sortedReplacements.get(sortedReplacements.size() - 1).endOffset;
+
+        String replacedText = buildReplacedText(document.getCharsSequence(), sortedReplacements, startOffset, newRanges);
+        document.replaceString(startOffset, endOffset, replacedText);
+        return newRanges;
+    }
+
+    /**
+     * @return the given text with all replacements applied (without modifying any document).
+     */
+    public String applyTo(CharSequence text) {
+        if (replacements.isEmpty()) {
+            return text.toString();
+        }
+        List<Replacement> sortedReplacements = sortedReplacements();
+        int startOffset = sortedReplacements.get(0).startOffset;
+        int endOffset = sortedReplacements.get(sortedReplacements.size() - 1).endOffset;
+
+        return text.subSequence(0, startOffset)
+                + buildReplacedText(text, sortedReplacements, startOffset, new ArrayList<>())
+                + text.subSequence(endOffset, text.length());
+    }
+
+    private List<Replacement> sortedReplacements() {
+        // Stable sort, so several insertions at the same offset keep their order
+        List<Replacement> sortedReplacements = new ArrayList<>(replacements);
+        sortedReplacements.sort(Comparator.comparingInt(replacement -> replacement.startOffset));
+        return sortedReplacements;
+    }
+
+    private static String buildReplacedText(CharSequence originalText, List<Replacement> sortedReplacements, int startOffset, List<TextRange> newRanges) {
+        StringBuilder builder = new StringBuilder();
+        int currentOffset = startOffset;
+        int offsetShift = 0;
+        for (Replacement replacement : sortedReplacements) {
+            if (replacement.startOffset < currentOffset) {
+                throw new IllegalStateException("Overlapping replacements at offset " + replacement.startOffset);
+            }
+            builder.append(originalText, currentOffset, replacement.startOffset);
+            int newStartOffset = replacement.startOffset + offsetShift;
+            builder.append(replacement.text);
+            newRanges.add(new TextRange(newStartOffset, newStartOffset + replacement.text.length()));
+
+            offsetShift += replacement.text.length() - (replacement.endOffset - replacement.startOffset);
+            currentOffset = replacement.endOffset;
+        }
+        return builder.toString();
+    }
+}
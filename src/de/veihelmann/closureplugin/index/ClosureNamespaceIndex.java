@@ -0,0 +1,127 @@
+package de.veihelmann.closureplugin.index;
+
+import com.intellij.lang.javascript.JavaScriptFileType;
+import com.intellij.lang.javascript.psi.JSCallExpression;
+import com.intellij.lang.javascript.psi.JSStatement;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiRecursiveElementWalkingVisitor;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import de.veihelmann.closureplugin.dependency_recognizers.GoogRequireOrProvideRecognizer;
+import de.veihelmann.closureplugin.utils.NamespaceAliases;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Project-wide index from namespaces declared via goog.provide('x.y.Z') or goog.module('x.y.Z') to the files
+ * declaring them. The declarations are extracted with the same {@link GoogRequireOrProvideRecognizer} that is used
+ * for the single-file analysis, so both always agree on what a file provides.
+ */
+public class ClosureNamespaceIndex extends ScalarIndexExtension<String> {
+
+    public static final ID<String, Void> NAME = ID.create("de.veihelmann.closureplugin.ClosureNamespaceIndex");
+
+    @NotNull
+    @Override
+    public ID<String, Void> getName() {
+        return NAME;
+    }
+
+    @NotNull
+    @Override
+    public DataIndexer<String, Void, FileContent> getIndexer() {
+        return inputData -> {
+            CharSequence text = inputData.getContentAsText();
+            if (!StringUtil.contains(text, "goog.provide") && !StringUtil.contains(text, "goog.module")) {
+                // Cheap pre-check, so we only build the PSI of files that can declare a namespace at all.
+                return Collections.emptyMap();
+            }
+
+            Map<String, Void> result = new HashMap<>();
+            collectDeclaredNamespaces(inputData.getPsiFile()).forEach(namespace -> result.put(namespace, null));
+            return result;
+        };
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return EnumeratorStringDescriptor.INSTANCE;
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(JavaScriptFileType.INSTANCE);
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    /**
+     * @return the files declaring the given namespace (via goog.provide or goog.module) within the given scope.
+     */
+    public static Collection<VirtualFile> getFilesDeclaringNamespace(String namespace, GlobalSearchScope scope) {
+        return FileBasedIndex.getInstance().getContainingFiles(NAME, namespace, scope);
+    }
+
+    /**
+     * @return whether the given namespace is declared (via goog.provide or goog.module) anywhere in the project.
+     */
+    public static boolean isNamespaceDeclared(Project project, String namespace) {
+        return !getFilesDeclaringNamespace(namespace, GlobalSearchScope.allScope(project)).isEmpty();
+    }
+
+    /**
+     * Collects all namespaces declared in the given element (usually a file) via goog.provide or goog.module.
+     */
+    static Set<String> collectDeclaredNamespaces(PsiElement root) {
+        SortedMap<String, JSStatement> googProvides = new TreeMap<>();
+        SortedMap<String, JSStatement> googModules = new TreeMap<>();
+        collectGoogCalls(root, new HashMap<>(), googProvides, googModules);
+
+        Set<String> result = new HashSet<>(googProvides.keySet());
+        result.addAll(googModules.keySet());
+        return result;
+    }
+
+    /**
+     * Collects the goog.require, goog.provide and goog.module calls in the given element (usually a file) into the
+     * given maps, without the rest of the dependency analysis.
+     */
+    static void collectGoogCalls(PsiElement root, Map<String, PsiElement> googRequires, SortedMap<String, JSStatement> googProvides, SortedMap<String, JSStatement> googModules) {
+        collectGoogCalls(root, googRequires, googProvides, googModules, new NamespaceAliases());
+    }
+
+    /**
+     * Same as {@link #collectGoogCalls(PsiElement, Map, SortedMap, SortedMap)}, additionally registering the short
+     * references of the goog.requires (e.g. <code>const foo = goog.require('x.y.foo');</code>) in the given aliases.
+     */
+    static void collectGoogCalls(PsiElement root, Map<String, PsiElement> googRequires, SortedMap<String, JSStatement> googProvides, SortedMap<String, JSStatement> googModules,
+                                 NamespaceAliases namespaceAliases) {
+        GoogRequireOrProvideRecognizer recognizer = new GoogRequireOrProvideRecognizer(googRequires, googProvides, googModules, namespaceAliases);
+
+        root.accept(new PsiRecursiveElementWalkingVisitor() {
+            @Override
+            public void visitElement(PsiElement element) {
+                super.visitElement(element);
+                if (element instanceof JSCallExpression) {
+                    recognizer.consumeElement(element);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,126 @@
+package de.veihelmann.closureplugin.index;
+
+import com.intellij.lang.javascript.JavaScriptFileType;
+import com.intellij.lang.javascript.psi.JSStatement;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.IOUtil;
+import com.intellij.util.io.KeyDescriptor;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Project-wide reverse dependency index: maps each namespace required via goog.require('x.y.Z') to the namespaces
+ * declared (via goog.provide or goog.module) by the requiring files. This answers "who depends on x.y.Z" with an index
+ * lookup instead of a text search.
+ */
+public class ClosureRequireIndex extends FileBasedIndexExtension<String, List<String>> {
+
+    public static final ID<String, List<String>> NAME = ID.create("de.veihelmann.closureplugin.ClosureRequireIndex");
+
+    static final DataExternalizer<List<String>> NAMESPACE_LIST_EXTERNALIZER = new DataExternalizer<List<String>>() {
+        @Override
+        public void save(@NotNull DataOutput out, List<String> namespaces) throws IOException {
+            DataInputOutputUtil.writeINT(out, namespaces.size());
+            for (String namespace : namespaces) {
+                IOUtil.writeUTF(out, namespace);
+            }
+        }
+
+        @Override
+        public List<String> read(@NotNull DataInput in) throws IOException {
+            int size = DataInputOutputUtil.readINT(in);
+            List<String> namespaces = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                namespaces.add(IOUtil.readUTF(in));
+            }
+            return namespaces;
+        }
+    };
+
+    @NotNull
+    @Override
+    public ID<String, List<String>> getName() {
+        return NAME;
+    }
+
+    @NotNull
+    @Override
+    public DataIndexer<String, List<String>, FileContent> getIndexer() {
+        return inputData -> {
+            if (!StringUtil.contains(inputData.getContentAsText(), "goog.require")) {
+                // Cheap pre-check, so we only build the PSI of files that can require a namespace at all.
+                return Collections.emptyMap();
+            }
+
+            Map<String, PsiElement> googRequires = new HashMap<>();
+            SortedMap<String, JSStatement> googProvides = new TreeMap<>();
+            SortedMap<String, JSStatement> googModules = new TreeMap<>();
+            ClosureNamespaceIndex.collectGoogCalls(inputData.getPsiFile(), googRequires, googProvides, googModules);
+
+            List<String> declaredNamespaces = new ArrayList<>(googProvides.keySet());
+            declaredNamespaces.addAll(googModules.keySet());
+
+            Map<String, List<String>> result = new HashMap<>();
+            googRequires.keySet().forEach(requiredNamespace -> result.put(requiredNamespace, declaredNamespaces));
+            return result;
+        };
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return EnumeratorStringDescriptor.INSTANCE;
+    }
+
+    @NotNull
+    @Override
+    public DataExternalizer<List<String>> getValueExternalizer() {
+        return NAMESPACE_LIST_EXTERNALIZER;
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(JavaScriptFileType.INSTANCE);
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    /**
+     * @return the files requiring the given namespace within the given scope.
+     */
+    public static Collection<VirtualFile> getFilesRequiringNamespace(String namespace, GlobalSearchScope scope) {
+        return FileBasedIndex.getInstance().getContainingFiles(NAME, namespace, scope);
+    }
+
+    /**
+     * @return the namespaces declared by all files requiring the given namespace.
+     */
+    public static Set<String> getDependentNamespaces(Project project, String namespace) {
+        Set<String> dependentNamespaces = new TreeSet<>();
+        for (List<String> declaredNamespaces : FileBasedIndex.getInstance().getValues(NAME, namespace, GlobalSearchScope.allScope(project))) {
+            dependentNamespaces.addAll(declaredNamespaces);
+        }
+        return dependentNamespaces;
+    }
+}
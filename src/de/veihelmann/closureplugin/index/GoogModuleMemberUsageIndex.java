@@ -0,0 +1,207 @@
+package de.veihelmann.closureplugin.index;
+
+import com.intellij.lang.javascript.JavaScriptFileType;
+import com.intellij.lang.javascript.psi.JSCallExpression;
+import com.intellij.lang.javascript.psi.JSExpression;
+import com.intellij.lang.javascript.psi.JSLiteralExpression;
+import com.intellij.lang.javascript.psi.JSReferenceExpression;
+import com.intellij.lang.javascript.psi.JSStatement;
+import com.intellij.lang.javascript.psi.jsdoc.JSDocComment;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiRecursiveElementWalkingVisitor;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import de.veihelmann.closureplugin.dependency_recognizers.CommentDependencyCollector;
+import de.veihelmann.closureplugin.utils.NamespaceAliases;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Project-wide index of the members used from required namespaces. Members are recognized when accessed via the short
+ * reference of a goog.require (<code>foo.bar</code> for <code>const foo = goog.require('x.y.foo');</code>, in code
+ * and in JSDoc types), when destructured from a goog.require (<code>const {bar} = goog.require('x.y.foo');</code>) and
+ * when accessed on a <code>goog.module.get('x.y.foo')</code> call. If a short reference or module is used as a whole
+ * (e.g. passed as argument), all members of the namespace count as used.
+ * <p>
+ * The keys are <code>namespace#member</code> (see {@link #usageKey(String, String)}).
+ */
+public class GoogModuleMemberUsageIndex extends ScalarIndexExtension<String> {
+
+    public static final ID<String, Void> NAME = ID.create("de.veihelmann.closureplugin.GoogModuleMemberUsageIndex");
+
+    /**
+     * The member recorded if a namespace is used as a whole, so any of its members may be used.
+     */
+    private static final String ANY_MEMBER = "*";
+
+    /**
+     * Not anchored at the statement start, which may be a (JSDoc) comment.
+     */
+    private static final Pattern DESTRUCTURING_REQUIRE_PATTERN = Pattern.compile("\\b(?:const|let|var)\\s*\\{([^}]*)}\\s*=\\s*goog\\.require\\s*\\(");
+
+    private static final String GOOG_MODULE_GET = "goog.module.get";
+
+    @NotNull
+    @Override
+    public ID<String, Void> getName() {
+        return NAME;
+    }
+
+    @NotNull
+    @Override
+    public DataIndexer<String, Void, FileContent> getIndexer() {
+        return inputData -> {
+            CharSequence text = inputData.getContentAsText();
+            if (!StringUtil.contains(text, "goog.require") && !StringUtil.contains(text, GOOG_MODULE_GET)) {
+                // Cheap pre-check, so we only build the PSI of files that can use required members at all.
+                return Collections.emptyMap();
+            }
+
+            Set<String> usageKeys = new HashSet<>();
+            collectUsages(inputData.getPsiFile(), usageKeys);
+
+            Map<String, Void> result = new HashMap<>();
+            usageKeys.forEach(usageKey -> result.put(usageKey, null));
+            return result;
+        };
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return EnumeratorStringDescriptor.INSTANCE;
+    }
+
+    @Override
+    public int getVersion() {
+        return 2;
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(JavaScriptFileType.INSTANCE);
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    /**
+     * @return whether the given member of the given namespace is used by any file of the project, either directly or
+     * by using the namespace as a whole.
+     */
+    public static boolean isMemberUsed(Project project, String namespace, String member) {
+        GlobalSearchScope scope = GlobalSearchScope.allScope(project);
+        return isUsed(usageKey(namespace, member), scope) || isUsed(usageKey(namespace, ANY_MEMBER), scope);
+    }
+
+    /**
+     * @return whether any file has the given key, stopping at the first one.
+     */
+    private static boolean isUsed(String usageKey, GlobalSearchScope scope) {
+        return !FileBasedIndex.getInstance().processValues(NAME, usageKey, null, (file, value) -> false, scope);
+    }
+
+    static String usageKey(String namespace, String member) {
+        return namespace + "#" + member;
+    }
+
+    /**
+     * Collects the keys of all members used in the given element (usually a file) from required or goog.module.get'd
+     * namespaces.
+     */
+    static void collectUsages(PsiElement root, Set<String> usageKeys) {
+        Map<String, PsiElement> googRequires = new HashMap<>();
+        NamespaceAliases namespaceAliases = new NamespaceAliases();
+        ClosureNamespaceIndex.collectGoogCalls(root, googRequires, new TreeMap<>(), new TreeMap<>(), namespaceAliases);
+        googRequires.forEach((namespace, requireStatement) -> collectDestructuredMembers(namespace, requireStatement, usageKeys));
+
+        Set<String> namespacesInComments = new HashSet<>();
+        CommentDependencyCollector commentCollector = new CommentDependencyCollector(namespacesInComments, namespaceAliases);
+        root.accept(new PsiRecursiveElementWalkingVisitor() {
+            @Override
+            public void visitElement(PsiElement element) {
+                super.visitElement(element);
+                if (element instanceof JSCallExpression) {
+                    collectModuleGetAccess((JSCallExpression) element, usageKeys);
+                } else if (element instanceof JSReferenceExpression && !namespaceAliases.isEmpty()) {
+                    collectMemberAccess((JSReferenceExpression) element, namespaceAliases, usageKeys);
+                } else if (element instanceof JSDocComment && !namespaceAliases.isEmpty()) {
+                    commentCollector.collectTypeDependenciesFromComment((JSDocComment) element);
+                }
+            }
+        });
+
+        // The collector resolves short references to full namespaces, e.g. 'foo.Bar' to 'x.y.foo.Bar'
+        for (String requiredNamespace : namespaceAliases.fullNamespaces()) {
+            String prefix = requiredNamespace + ".";
+            for (String namespaceInComment : namespacesInComments) {
+                if (namespaceInComment.startsWith(prefix)) {
+                    int memberEnd = namespaceInComment.indexOf('.', prefix.length());
+                    usageKeys.add(usageKey(requiredNamespace, namespaceInComment.substring(prefix.length(), memberEnd < 0 ? namespaceInComment.length() : memberEnd)));
+                }
+            }
+        }
+    }
+
+    private static void collectDestructuredMembers(String namespace, PsiElement requireStatement, Set<String> usageKeys) {
+        if (!(requireStatement instanceof JSStatement)) {
+            return;
+        }
+        Matcher matcher = DESTRUCTURING_REQUIRE_PATTERN.matcher(requireStatement.getText());
+        if (!matcher.find()) {
+            return;
+        }
+        for (String destructuredProperty : matcher.group(1).split(",")) {
+            // Renamed members look like 'member: localName'
+            int colon = destructuredProperty.indexOf(':');
+            String member = (colon < 0 ? destructuredProperty : destructuredProperty.substring(0, colon)).trim();
+            if (!member.isEmpty()) {
+                usageKeys.add(usageKey(namespace, member));
+            }
+        }
+    }
+
+    private static void collectModuleGetAccess(JSCallExpression call, Set<String> usageKeys) {
+        JSExpression method = call.getMethodExpression();
+        JSExpression[] arguments = call.getArguments();
+        if (method == null || arguments.length != 1 || !(arguments[0] instanceof JSLiteralExpression)
+                || !NamespaceAliases.normalizeNamespace(method.getText()).equals(GOOG_MODULE_GET)) {
+            return;
+        }
+        String namespace = StringUtil.unquoteString(arguments[0].getText());
+        collectAccess(namespace, call, usageKeys);
+    }
+
+    private static void collectMemberAccess(JSReferenceExpression reference, NamespaceAliases namespaceAliases, Set<String> usageKeys) {
+        if (reference.getQualifier() != null || reference.getReferenceName() == null) {
+            return;
+        }
+        String namespace = namespaceAliases.getFullNamespace(reference.getReferenceName());
+        if (namespace != null) {
+            collectAccess(namespace, reference, usageKeys);
+        }
+    }
+
+    /**
+     * Records the member accessed on the given expression referring to the given namespace, or the namespace as a whole.
+     */
+    private static void collectAccess(String namespace, JSExpression namespaceExpression, Set<String> usageKeys) {
+        PsiElement parent = namespaceExpression.getParent();
+        if (parent instanceof JSReferenceExpression && ((JSReferenceExpression) parent).getQualifier() == namespaceExpression
+                && ((JSReferenceExpression) parent).getReferenceName() != null) {
+            usageKeys.add(usageKey(namespace, ((JSReferenceExpression) parent).getReferenceName()));
+        } else {
+            usageKeys.add(usageKey(namespace, ANY_MEMBER));
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package de.veihelmann.closureplugin.index;
+
+import com.intellij.lang.javascript.JavaScriptFileType;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileContentChangeEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.psi.*;
+import com.intellij.util.messages.MessageBusConnection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects the JavaScript files changed in the editor (incl. added, removed and moved ones) since the changes were last
+ * taken, for project services which update their state incrementally. Changes which cannot be attributed to single
+ * files are only flagged (see {@link #takeUntrackedChanges()}): directory changes, changes outside the IDE (e.g. by a VCS
+ * update) and indexing in dumb mode (e.g. after the index was rebuilt).
+ * <p>
+ * Files are kept as {@link VirtualFile}s, so no PSI is retained. At most {@link #MAX_CHANGED_FILES} files are collected,
+ * more changes (e.g. by a bulk migration) are flagged as untracked instead, so the services rebuild their state once.
+ *
+ * @param <S> the state of a file before its first change since the changes were last taken (see
+ *            {@link #getStateBeforeChange(PsiFile)}).
+ */
+class JavaScriptFileChanges<S> extends PsiTreeChangeAdapter {
+
+    static final int MAX_CHANGED_FILES = 1000;
+
+    private final Set<VirtualFile> changedFiles = ConcurrentHashMap.newKeySet();
+
+    private final Map<VirtualFile, S> statesBeforeChange = new ConcurrentHashMap<>();
+
+    private volatile boolean untrackedChanges;
+
+    JavaScriptFileChanges(Project project, Disposable parentDisposable) {
+        PsiManager.getInstance(project).addPsiTreeChangeListener(this, parentDisposable);
+
+        MessageBusConnection connection = project.getMessageBus().connect(parentDisposable);
+        connection.subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener() {
+            @Override
+            public void after(@NotNull List<? extends VFileEvent> events) {
+                onFilesChanged(events);
+            }
+        });
+        connection.subscribe(DumbService.DUMB_MODE, new DumbService.DumbModeListener() {
+            @Override
+            public void enteredDumbMode() {
+            }
+
+            @Override
+            public void exitDumbMode() {
+                untrackedChanges = true;
+            }
+        });
+    }
+
+    /**
+     * Called before the first change of the given file since the changes were last taken, while it still has its
+     * previous content.
+     *
+     * @return the state to keep for the file, or null if none is needed.
+     */
+    @Nullable
+    protected S getStateBeforeChange(PsiFile file) {
+        return null;
+    }
+
+    /**
+     * @return the files changed since the last call, with their states before their first change (null if unknown).
+     */
+    Map<VirtualFile, S> takeChangedFiles() {
+        Map<VirtualFile, S> files = new HashMap<>();
+        for (VirtualFile file : new ArrayList<>(changedFiles)) {
+            changedFiles.remove(file);
+            files.put(file, statesBeforeChange.remove(file));
+        }
+        return files;
+    }
+
+    /**
+     * @return whether changes which were not collected as changed files happened since the last call.
+     */
+    boolean takeUntrackedChanges() {
+        boolean changed = untrackedChanges;
+        untrackedChanges = false;
+        return changed;
+    }
+
+    @Override
+    public void beforeChildAddition(@NotNull PsiTreeChangeEvent event) {
+        onBeforeChange(event, null);
+    }
+
+    @Override
+    public void beforeChildRemoval(@NotNull PsiTreeChangeEvent event) {
+        onBeforeChange(event, event.getChild());
+    }
+
+    @Override
+    public void beforeChildReplacement(@NotNull PsiTreeChangeEvent event) {
+        onBeforeChange(event, event.getOldChild());
+    }
+
+    @Override
+    public void beforeChildMovement(@NotNull PsiTreeChangeEvent event) {
+        onBeforeChange(event, event.getChild());
+    }
+
+    @Override
+    public void beforeChildrenChange(@NotNull PsiTreeChangeEvent event) {
+        onBeforeChange(event, null);
+    }
+
+    @Override
+    public void childAdded(@NotNull PsiTreeChangeEvent event) {
+        onChange(event, event.getChild());
+    }
+
+    @Override
+    public void childRemoved(@NotNull PsiTreeChangeEvent event) {
+        onChange(event, event.getChild());
+    }
+
+    @Override
+    public void childReplaced(@NotNull PsiTreeChangeEvent event) {
+        onChange(event, event.getOldChild());
+        onChange(event, event.getNewChild());
+    }
+
+    @Override
+    public void childMoved(@NotNull PsiTreeChangeEvent event) {
+        onChange(event, event.getChild());
+    }
+
+    @Override
+    public void childrenChanged(@NotNull PsiTreeChangeEvent event) {
+        onChange(event, null);
+    }
+
+    private void onBeforeChange(PsiTreeChangeEvent event, PsiElement child) {
+        PsiFile file = event.getFile() != null ? event.getFile() : child instanceof PsiFile ? (PsiFile) child : null;
+        VirtualFile virtualFile = file != null && isJavaScriptFile(file) ? file.getViewProvider().getVirtualFile() : null;
+        if (virtualFile == null || untrackedChanges || statesBeforeChange.containsKey(virtualFile)) {
+            return;
+        }
+        S state = getStateBeforeChange(file);
+        if (state != null) {
+            statesBeforeChange.putIfAbsent(virtualFile, state);
+        }
+    }
+
+    private void onChange(PsiTreeChangeEvent event, PsiElement child) {
+        if (event.getFile() != null) {
+            addChangedFile(event.getFile());
+        } else if (child instanceof PsiFile) {
+            // Added, removed or moved file
+            addChangedFile((PsiFile) child);
+        } else if (child instanceof PsiDirectory) {
+            untrackedChanges = true;
+        }
+    }
+
+    private void addChangedFile(PsiFile file) {
+        if (!isJavaScriptFile(file) || untrackedChanges) {
+            return;
+        }
+        changedFiles.add(file.getViewProvider().getVirtualFile());
+        if (changedFiles.size() > MAX_CHANGED_FILES) {
+            untrackedChanges = true;
+            changedFiles.clear();
+            statesBeforeChange.clear();
+        }
+    }
+
+    /**
+     * Flags changes of JavaScript files and directories made outside the editor. Saved documents were already announced
+     * by their PSI changes.
+     */
+    private void onFilesChanged(List<? extends VFileEvent> events) {
+        for (VFileEvent event : events) {
+            VirtualFile file = event.getFile();
+            if (file == null || event.isFromSave()) {
+                continue;
+            }
+            if (file.isDirectory() ? !(event instanceof VFileContentChangeEvent) : file.getFileType() == JavaScriptFileType.INSTANCE) {
+                untrackedChanges = true;
+                return;
+            }
+        }
+    }
+
+    private static boolean isJavaScriptFile(PsiFile file) {
+        return file.getFileType() == JavaScriptFileType.INSTANCE;
+    }
+}
@@ -0,0 +1,134 @@
+package de.veihelmann.closureplugin.index;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.indexing.FileBasedIndex;
+import de.veihelmann.closureplugin.utils.NamespacePrefixes;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Project service keeping all namespaces of the {@link ClosureNamespaceIndex} in sorted order, so namespaces with a
+ * given prefix are found with a logarithmic lookup (e.g. for completion).
+ * <p>
+ * The set is built once from the index keys and then updated incrementally: the namespaces each changed file declared
+ * before and after its change are compared, and only the added or removed ones are looked up in the index. Changes which
+ * cannot be attributed to single files (see {@link JavaScriptFileChanges}) rebuild the set.
+ */
+public class ProvidedNamespaces implements Disposable {
+
+    /**
+     * Finds the declarations in the text of a file without building its PSI. It may also match declarations the index
+     * ignores (e.g. in comments), so all namespaces found are verified with the index.
+     */
+    private static final Pattern DECLARATION_PATTERN = Pattern.compile("goog\\.(?:provide|module)\\(\\s*['\"]([^'\"]+)['\"]");
+
+    private final Project project;
+
+    private final JavaScriptFileChanges<Set<String>> fileChanges;
+
+    /**
+     * The namespaces declared by the most recently changed files after their last change, so their next change does
+     * not need to scan their text before the change.
+     */
+    private final Map<VirtualFile, Set<String>> lastDeclaredNamespaces = Collections.synchronizedMap(
+            new LinkedHashMap<VirtualFile, Set<String>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<VirtualFile, Set<String>> eldest) {
+                    return size() > JavaScriptFileChanges.MAX_CHANGED_FILES;
+                }
+            });
+
+    private volatile NavigableSet<String> namespaces;
+
+    public ProvidedNamespaces(Project project) {
+        this.project = project;
+        this.fileChanges = new JavaScriptFileChanges<Set<String>>(project, this) {
+            @Override
+            protected Set<String> getStateBeforeChange(PsiFile file) {
+                Set<String> declaredNamespaces = lastDeclaredNamespaces.get(file.getViewProvider().getVirtualFile());
+                return declaredNamespaces != null ? declaredNamespaces : findDeclaredNamespaces(file.getViewProvider().getContents());
+            }
+        };
+    }
+
+    public static ProvidedNamespaces getInstance(Project project) {
+        return ServiceManager.getService(project, ProvidedNamespaces.class);
+    }
+
+    /**
+     * @return a (read-only) view of the namespaces starting with the given prefix, in sorted order.
+     */
+    public NavigableSet<String> withPrefix(String prefix) {
+        return Collections.unmodifiableNavigableSet(NamespacePrefixes.withPrefix(getNamespaces(), prefix));
+    }
+
+    private NavigableSet<String> getNamespaces() {
+        boolean rebuild = fileChanges.takeUntrackedChanges();
+        Map<VirtualFile, Set<String>> changedFiles = fileChanges.takeChangedFiles();
+
+        NavigableSet<String> currentNamespaces = namespaces;
+        if (rebuild || currentNamespaces == null) {
+            lastDeclaredNamespaces.clear();
+            NavigableSet<String> allNamespaces = new ConcurrentSkipListSet<>();
+            FileBasedIndex.getInstance().processAllKeys(ClosureNamespaceIndex.NAME, namespace -> {
+                allNamespaces.add(namespace);
+                return true;
+            }, getScope(), null);
+            namespaces = allNamespaces;
+            return allNamespaces;
+        }
+
+        changedFiles.forEach((file, previousNamespaces) -> {
+            Set<String> declaredNamespaces = findDeclaredNamespaces(file);
+            lastDeclaredNamespaces.put(file, declaredNamespaces);
+            for (String namespace : declaredNamespaces) {
+                if (!currentNamespaces.contains(namespace) && isDeclared(namespace)) {
+                    currentNamespaces.add(namespace);
+                }
+            }
+            if (previousNamespaces != null) {
+                for (String namespace : previousNamespaces) {
+                    if (!declaredNamespaces.contains(namespace) && !isDeclared(namespace)) {
+                        currentNamespaces.remove(namespace);
+                    }
+                }
+            }
+        });
+        return currentNamespaces;
+    }
+
+    private Set<String> findDeclaredNamespaces(VirtualFile file) {
+        PsiFile psiFile = file.isValid() ? PsiManager.getInstance(project).findFile(file) : null;
+        return psiFile != null ? findDeclaredNamespaces(psiFile.getViewProvider().getContents()) : Collections.emptySet();
+    }
+
+    private boolean isDeclared(String namespace) {
+        return !ClosureNamespaceIndex.getFilesDeclaringNamespace(namespace, getScope()).isEmpty();
+    }
+
+    private GlobalSearchScope getScope() {
+        return GlobalSearchScope.allScope(project);
+    }
+
+    private static Set<String> findDeclaredNamespaces(CharSequence text) {
+        Set<String> declaredNamespaces = new HashSet<>();
+        Matcher matcher = DECLARATION_PATTERN.matcher(text);
+        while (matcher.find()) {
+            declaredNamespaces.add(matcher.group(1));
+        }
+        return declaredNamespaces;
+    }
+
+    @Override
+    public void dispose() {
+    }
+}
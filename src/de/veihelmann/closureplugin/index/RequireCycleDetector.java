@@ -0,0 +1,114 @@
+package de.veihelmann.closureplugin.index;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.indexing.FileBasedIndex;
+import de.veihelmann.closureplugin.ClosureDependenciesExtractor;
+import de.veihelmann.closureplugin.utils.RequireCycles;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Project service answering whether a namespace is part of a goog.require cycle, based on the
+ * {@link ClosureRequireIndex}. The computed components are kept across changes: for each changed file, only the
+ * components which can reach the namespaces it requires (before or after the change) are computed again. Each query
+ * only explores the part of the require graph reachable from the queried namespace that was not explored before.
+ * <p>
+ * Changes which cannot be attributed to single files (see {@link JavaScriptFileChanges}) drop all components.
+ */
+public class RequireCycleDetector implements Disposable {
+
+    private final Project project;
+
+    private final RequireCycles requireCycles;
+
+    /**
+     * The namespaces required by the files whose requires were explored, so the edges of a changed file are known even
+     * after its requires changed.
+     */
+    private final Map<VirtualFile, Set<String>> requiredNamespacesByFile = new ConcurrentHashMap<>();
+
+    private final JavaScriptFileChanges<?> fileChanges;
+
+    public RequireCycleDetector(Project project) {
+        this.project = project;
+        this.requireCycles = new RequireCycles(this::findDependentNamespaces);
+        this.fileChanges = new JavaScriptFileChanges<>(project, this);
+    }
+
+    public static RequireCycleDetector getInstance(Project project) {
+        return ServiceManager.getService(project, RequireCycleDetector.class);
+    }
+
+    /**
+     * Finds the cycles of all given namespaces (e.g. the namespaces declared by a file), applying the changes since the
+     * last query only once.
+     *
+     * @return the cycle of each given namespace which is part of one, see {@link RequireCycles#findCycle(String)}.
+     */
+    public Map<String, List<String>> findCycles(Collection<String> namespaces) {
+        applyChanges();
+        Map<String, List<String>> cycles = new LinkedHashMap<>();
+        for (String namespace : namespaces) {
+            List<String> cycle = requireCycles.findCycle(namespace);
+            if (!cycle.isEmpty()) {
+                cycles.put(namespace, cycle);
+            }
+        }
+        return cycles;
+    }
+
+    /**
+     * Invalidates the components affected by the changed files. The files are read before taking the lock.
+     */
+    private void applyChanges() {
+        boolean fullInvalidation = fileChanges.takeUntrackedChanges();
+        Set<VirtualFile> files = fileChanges.takeChangedFiles().keySet();
+
+        Set<String> changedNamespaces = new HashSet<>();
+        for (VirtualFile file : files) {
+            Set<String> previouslyRequired = requiredNamespacesByFile.remove(file);
+            if (previouslyRequired != null) {
+                changedNamespaces.addAll(previouslyRequired);
+            }
+            PsiFile psiFile = file.isValid() ? PsiManager.getInstance(project).findFile(file) : null;
+            if (psiFile != null) {
+                changedNamespaces.addAll(ClosureDependenciesExtractor.forFile(psiFile).googRequires.keySet());
+            }
+        }
+
+        synchronized (this) {
+            if (fullInvalidation) {
+                requiredNamespacesByFile.clear();
+                requireCycles.clear();
+            } else if (!changedNamespaces.isEmpty()) {
+                requireCycles.invalidate(changedNamespaces);
+            }
+        }
+    }
+
+    /**
+     * @return the namespaces declared by all files requiring the given namespace, remembering the requiring files.
+     */
+    private Collection<String> findDependentNamespaces(String requiredNamespace) {
+        ProgressManager.checkCanceled();
+        Set<String> dependentNamespaces = new TreeSet<>();
+        FileBasedIndex.getInstance().processValues(ClosureRequireIndex.NAME, requiredNamespace, null, (file, declaredNamespaces) -> {
+            requiredNamespacesByFile.computeIfAbsent(file, key -> ConcurrentHashMap.newKeySet()).add(requiredNamespace);
+            dependentNamespaces.addAll(declaredNamespaces);
+            return true;
+        }, GlobalSearchScope.allScope(project));
+        return dependentNamespaces;
+    }
+
+    @Override
+    public void dispose() {
+    }
+}
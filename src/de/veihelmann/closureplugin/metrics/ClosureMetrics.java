@@ -0,0 +1,226 @@
+package de.veihelmann.closureplugin.metrics;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.PsiFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timing and counter metrics of the plugin's hot paths (dependency extraction, recognizers, inspections and quick
+ * fixes). Recording is off by default and then costs a single volatile read per call. It can be switched on via
+ * {@link RecordClosureMetricsAction} or the system property '{@value #ENABLED_PROPERTY}' (e.g. for batch runs). While
+ * recording, every measurement is also appended to a JSON-lines log (see {@link MetricsLog}).
+ * <p>
+ * Usage: <code>ClosureMetrics.time("name", file, () -> ...);</code> or, where a lambda does not fit,
+ * <code>long start = ClosureMetrics.start(); ...; ClosureMetrics.recordTime("name", file, start);</code>
+ */
+public class ClosureMetrics {
+
+    private static final Logger LOG = Logger.getInstance(ClosureMetrics.class);
+
+    static final String ENABLED_PROPERTY = "closure.plugin.metrics";
+
+    private static final int SLOWEST_FILES_COUNT = 20;
+
+    private static volatile boolean enabled;
+
+    private static volatile MetricsLog log;
+
+    private static final Map<String, TimingHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+
+    private static final Map<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+
+    /**
+     * The slowest measurements with a file, fastest first.
+     */
+    private static final PriorityQueue<FileTiming> SLOWEST_FILES = new PriorityQueue<>(Comparator.comparingLong(timing -> timing.nanos));
+
+    static {
+        if (Boolean.getBoolean(ENABLED_PROPERTY)) {
+            setEnabled(true);
+        }
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts or stops recording. Starting opens the log file, stopping closes it; collected metrics are kept until
+     * {@link #reset()}.
+     */
+    static synchronized void setEnabled(boolean enable) {
+        if (enable == enabled) {
+            return;
+        }
+        if (enable) {
+            try {
+                log = MetricsLog.open();
+            } catch (IOException e) {
+                LOG.warn("Cannot open the metrics log", e);
+            }
+        } else if (log != null) {
+            log.close();
+            log = null;
+        }
+        enabled = enable;
+    }
+
+    /**
+     * Writes all buffered measurements to the log, e.g. before the process exits.
+     */
+    public static void flush() {
+        MetricsLog currentLog = log;
+        if (currentLog != null) {
+            currentLog.flush();
+        }
+    }
+
+    static synchronized void reset() {
+        HISTOGRAMS.clear();
+        COUNTERS.clear();
+        synchronized (SLOWEST_FILES) {
+            SLOWEST_FILES.clear();
+        }
+    }
+
+    static Path getLogPath() {
+        return MetricsLog.getPath();
+    }
+
+    /**
+     * @return the start time for a later {@link #recordTime(String, PsiFile, long)}, or 0 if not recording.
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time since the given start (see {@link #start()}) for the given metric and file (may be null).
+     */
+    public static void recordTime(String name, PsiFile file, long start) {
+        if (!enabled || start == 0) {
+            return;
+        }
+        long nanos = System.nanoTime() - start;
+        HISTOGRAMS.computeIfAbsent(name, key -> new TimingHistogram()).record(nanos);
+
+        String path = getPath(file);
+        if (path != null) {
+            synchronized (SLOWEST_FILES) {
+                if (SLOWEST_FILES.size() < SLOWEST_FILES_COUNT || SLOWEST_FILES.peek().nanos < nanos) {
+                    SLOWEST_FILES.add(new FileTiming(name, path, nanos));
+                    if (SLOWEST_FILES.size() > SLOWEST_FILES_COUNT) {
+                        SLOWEST_FILES.poll();
+                    }
+                }
+            }
+        }
+
+        MetricsLog currentLog = log;
+        if (currentLog != null) {
+            currentLog.write(name, path, nanos);
+        }
+    }
+
+    /**
+     * Runs the given action, recording its time for the given metric and file (may be null).
+     */
+    public static void time(String name, PsiFile file, Runnable action) {
+        if (!enabled) {
+            action.run();
+            return;
+        }
+        long start = start();
+        try {
+            action.run();
+        } finally {
+            recordTime(name, file, start);
+        }
+    }
+
+    /**
+     * Adds the given amount to the given counter, e.g. the number of visited PSI elements.
+     */
+    public static void count(String name, long amount) {
+        if (enabled) {
+            COUNTERS.computeIfAbsent(name, key -> new LongAdder()).add(amount);
+        }
+    }
+
+    /**
+     * @return a visitor recording the time the given visitor (of an inspection) needs to visit a file, or the given
+     * visitor itself if not recording.
+     */
+    public static PsiElementVisitor withFileTiming(String name, PsiElementVisitor visitor) {
+        if (!enabled) {
+            return visitor;
+        }
+        return new PsiElementVisitor() {
+            @Override
+            public void visitElement(PsiElement element) {
+                element.accept(visitor);
+            }
+
+            @Override
+            public void visitFile(PsiFile file) {
+                long start = start();
+                file.accept(visitor);
+                recordTime(name, file, start);
+            }
+        };
+    }
+
+    private static String getPath(PsiFile file) {
+        if (file == null) {
+            return null;
+        }
+        VirtualFile virtualFile = file.getVirtualFile();
+        return virtualFile != null ? virtualFile.getPath() : file.getName();
+    }
+
+    /**
+     * @return a plain text report of all collected metrics.
+     */
+    static String createReport() {
+        StringBuilder report = new StringBuilder();
+        report.append("Timings (count, total ms, p50 / p90 / p99 < µs, max ms):\n");
+        new TreeMap<>(HISTOGRAMS).forEach((name, histogram) -> report.append(String.format("  %s: %d, %.1f, %d / %d / %d, %.1f%n",
+                name, histogram.getCount(), histogram.getTotalNanos() / 1e6, histogram.getPercentileMicros(50),
+                histogram.getPercentileMicros(90), histogram.getPercentileMicros(99), histogram.getMaxNanos() / 1e6)));
+
+        report.append("\nCounters:\n");
+        new TreeMap<>(COUNTERS).forEach((name, counter) -> report.append("  ").append(name).append(": ").append(counter.sum()).append('\n'));
+
+        report.append("\nSlowest files:\n");
+        List<FileTiming> slowestFiles;
+        synchronized (SLOWEST_FILES) {
+            slowestFiles = new ArrayList<>(SLOWEST_FILES);
+        }
+        slowestFiles.sort(Comparator.comparingLong((FileTiming timing) -> timing.nanos).reversed());
+        slowestFiles.forEach(timing -> report.append(String.format("  %.1f ms %s (%s)%n", timing.nanos / 1e6, timing.path, timing.name)));
+        return report.toString();
+    }
+
+    private static class FileTiming {
+
+        private final String name;
+
+        private final String path;
+
+        private final long nanos;
+
+        private FileTiming(String name, String path, long nanos) {
+            this.name = name;
+            this.path = path;
+            this.nanos = nanos;
+        }
+    }
+}
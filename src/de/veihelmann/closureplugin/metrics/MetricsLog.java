@@ -0,0 +1,86 @@
+package de.veihelmann.closureplugin.metrics;
+
+import com.google.gson.stream.JsonWriter;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends one JSON object per measurement and line to 'closure-plugin-metrics.jsonl' in the IDE's log directory, e.g.
+ * <code>{"time":1500000000000,"metric":"extraction","file":"/src/x/y/Z.js","micros":1234}</code>
+ */
+class MetricsLog {
+
+    private static final Logger LOG = Logger.getInstance(MetricsLog.class);
+
+    private static final String FILE_NAME = "closure-plugin-metrics.jsonl";
+
+    private final Writer output;
+
+    private MetricsLog(Writer output) {
+        this.output = output;
+    }
+
+    static Path getPath() {
+        return Paths.get(PathManager.getLogPath(), FILE_NAME);
+    }
+
+    static MetricsLog open() throws IOException {
+        return new MetricsLog(new BufferedWriter(Files.newBufferedWriter(getPath(), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+    }
+
+    void write(String metric, String filePath, long nanos) {
+        StringWriter line = new StringWriter();
+        try (JsonWriter json = new JsonWriter(line)) {
+            json.beginObject()
+                    .name("time").value(System.currentTimeMillis())
+                    .name("metric").value(metric);
+            if (filePath != null) {
+                json.name("file").value(filePath);
+            }
+            json.name("micros").value(nanos / 1000)
+                    .endObject();
+        } catch (IOException e) {
+            // Cannot happen for a StringWriter
+            throw new IllegalStateException(e);
+        }
+        synchronized (output) {
+            try {
+                output.write(line.toString());
+                output.write('\n');
+            } catch (IOException e) {
+                LOG.warn("Cannot write to the metrics log", e);
+            }
+        }
+    }
+
+    void flush() {
+        synchronized (output) {
+            try {
+                output.flush();
+            } catch (IOException e) {
+                LOG.warn("Cannot write to the metrics log", e);
+            }
+        }
+    }
+
+    void close() {
+        synchronized (output) {
+            try {
+                output.close();
+            } catch (IOException e) {
+                LOG.warn("Cannot close the metrics log", e);
+            }
+        }
+    }
+}
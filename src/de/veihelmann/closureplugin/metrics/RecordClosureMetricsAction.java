@@ -0,0 +1,21 @@
+package de.veihelmann.closureplugin.metrics;
+
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.ToggleAction;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Starts or stops recording {@link ClosureMetrics}.
+ */
+public class RecordClosureMetricsAction extends ToggleAction {
+
+    @Override
+    public boolean isSelected(@NotNull AnActionEvent event) {
+        return ClosureMetrics.isEnabled();
+    }
+
+    @Override
+    public void setSelected(@NotNull AnActionEvent event, boolean selected) {
+        ClosureMetrics.setEnabled(selected);
+    }
+}
@@ -0,0 +1,24 @@
+package de.veihelmann.closureplugin.metrics;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.ui.Messages;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Shows the collected {@link ClosureMetrics}, optionally resetting them afterwards.
+ */
+public class ShowClosureMetricsAction extends AnAction {
+
+    private static final String TITLE = "Closure Plugin Metrics";
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent event) {
+        String message = ClosureMetrics.createReport()
+                + "\n" + (ClosureMetrics.isEnabled() ? "Recording" : "Not recording") + ", log: " + ClosureMetrics.getLogPath();
+        int choice = Messages.showDialog(event.getProject(), message, TITLE, new String[]{"Close", "Reset"}, 0, Messages.getInformationIcon());
+        if (choice == 1) {
+            ClosureMetrics.reset();
+        }
+    }
+}
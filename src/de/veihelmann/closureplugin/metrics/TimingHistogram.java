@@ -0,0 +1,62 @@
+package de.veihelmann.closureplugin.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations. Bucket i counts the durations between 2^(i-1) and 2^i microseconds, so percentiles
+ * are accurate up to a factor of two, which is enough to tell fast from slow.
+ */
+class TimingHistogram {
+
+    private static final int BUCKET_COUNT = 40;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    private volatile long maxNanos;
+
+    void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        int bucket = Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(micros));
+        buckets.incrementAndGet(bucket);
+        count.increment();
+        totalNanos.add(nanos);
+        if (nanos > maxNanos) {
+            synchronized (this) {
+                maxNanos = Math.max(maxNanos, nanos);
+            }
+        }
+    }
+
+    long getCount() {
+        return count.sum();
+    }
+
+    long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    long getMaxNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * @return the upper bound (in microseconds) of the bucket containing the given percentile (0-100).
+     */
+    long getPercentileMicros(int percentile) {
+        long total = getCount();
+        long threshold = (total * percentile + 99) / 100;
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            seen += buckets.get(bucket);
+            if (seen >= threshold && seen > 0) {
+                return 1L << bucket;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,102 @@
+package de.veihelmann.closureplugin.migration;
+
+import com.intellij.lang.javascript.JavaScriptFileType;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts all goog.provide files in the selected files and directories to goog.modules (see
+ * {@link GoogModuleMigration}). Optionally, only a diff of the conversion is written to the project directory.
+ */
+public class ConvertToGoogModuleAction extends AnAction {
+
+    private static final String REPORT_FILE_NAME = "goog-module-migration.diff";
+
+    private static final String TITLE = "Convert to goog.module";
+
+    @Override
+    public void update(@NotNull AnActionEvent event) {
+        VirtualFile[] selectedFiles = event.getData(CommonDataKeys.VIRTUAL_FILE_ARRAY);
+        event.getPresentation().setEnabledAndVisible(event.getProject() != null && selectedFiles != null && selectedFiles.length > 0);
+    }
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent event) {
+        Project project = event.getProject();
+        VirtualFile[] selectedFiles = event.getData(CommonDataKeys.VIRTUAL_FILE_ARRAY);
+        if (project == null || selectedFiles == null) {
+            return;
+        }
+
+        int choice = Messages.showYesNoCancelDialog(project,
+                "Convert all goog.provide files in the selection to goog.modules?\n"
+                        + "A dry run only writes the changes to " + REPORT_FILE_NAME + " in the project directory.",
+                TITLE, "Convert", "Dry Run", "Cancel", Messages.getQuestionIcon());
+        if (choice == Messages.CANCEL) {
+            return;
+        }
+        boolean dryRun = choice == Messages.NO;
+
+        ProgressManager.getInstance().run(new Task.Backgroundable(project, TITLE, true) {
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                GoogModuleMigration migration = new GoogModuleMigration(project);
+                List<GoogModuleMigration.FileConversion> conversions = migration.plan(collectJavaScriptFiles(selectedFiles), indicator);
+                if (dryRun) {
+                    writeReport(project, migration, conversions, indicator);
+                } else {
+                    migration.apply(conversions, indicator);
+                    showResult(project, "Converted " + migration.getAppliedCount() + " files to goog.module, skipped "
+                            + migration.getSkippedCount() + " files changed in the meantime.");
+                }
+            }
+        });
+    }
+
+    private static void writeReport(Project project, GoogModuleMigration migration, List<GoogModuleMigration.FileConversion> conversions, ProgressIndicator indicator) {
+        VirtualFile baseDirectory = project.getBaseDir();
+        File reportFile = new File(baseDirectory.getPath(), REPORT_FILE_NAME);
+        try (Writer output = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(reportFile), StandardCharsets.UTF_8))) {
+            migration.writeDiffReport(conversions, baseDirectory, output, indicator);
+        } catch (IOException e) {
+            showResult(project, "Could not write " + reportFile.getPath() + ": " + e.getMessage());
+            return;
+        }
+        LocalFileSystem.getInstance().refreshAndFindFileByIoFile(reportFile);
+        showResult(project, "Wrote the changes for " + (conversions.size() - migration.getSkippedCount()) + " files to " + reportFile.getPath()
+                + ", skipped " + migration.getSkippedCount() + " files changed in the meantime.");
+    }
+
+    private static List<VirtualFile> collectJavaScriptFiles(VirtualFile[] roots) {
+        List<VirtualFile> files = new ArrayList<>();
+        for (VirtualFile root : roots) {
+            VfsUtilCore.iterateChildrenRecursively(root, null, file -> {
+                if (!file.isDirectory() && file.getFileType() == JavaScriptFileType.INSTANCE) {
+                    files.add(file);
+                }
+                return true;
+            });
+        }
+        return files;
+    }
+
+    private static void showResult(Project project, String message) {
+        ApplicationManager.getApplication().invokeLater(() -> Messages.showInfoMessage(project, message, TITLE));
+    }
+}
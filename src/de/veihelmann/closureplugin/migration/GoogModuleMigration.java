@@ -0,0 +1,197 @@
+package de.veihelmann.closureplugin.migration;
+
+import com.intellij.concurrency.JobLauncher;
+import com.intellij.lang.javascript.psi.JSCallExpression;
+import com.intellij.lang.javascript.psi.JSStatement;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.util.PsiTreeUtil;
+import de.veihelmann.closureplugin.ClosureDependenciesExtractor;
+import de.veihelmann.closureplugin.fixes.GoogModuleConversion;
+import de.veihelmann.closureplugin.fixes.TextReplacements;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Converts many goog.provide files to goog.modules at once. The conversions are planned in parallel (each file in its
+ * own read action) and applied in chunks of write commands, so the IDE stays responsive and the migration can be
+ * cancelled between two chunks. Files changed after they were planned are skipped.
+ * <p>
+ * Only files with exactly one goog.provide are converted, just like with {@link de.veihelmann.closureplugin.fixes.ConvertToGoogModuleFix}.
+ */
+public class GoogModuleMigration {
+
+    private static final int FILES_PER_WRITE_COMMAND = 20;
+
+    private static final String COMMAND_NAME = "Convert to goog.module";
+
+    /**
+     * The planned conversion of one file.
+     */
+    public static class FileConversion {
+        public final VirtualFile file;
+        public final String providedNamespace;
+        final long modificationStamp;
+        final TextReplacements replacements;
+
+        FileConversion(VirtualFile file, String providedNamespace, long modificationStamp, TextReplacements replacements) {
+            this.file = file;
+            this.providedNamespace = providedNamespace;
+            this.modificationStamp = modificationStamp;
+            this.replacements = replacements;
+        }
+    }
+
+    private final Project project;
+
+    private int appliedCount;
+
+    private int skippedCount;
+
+    public GoogModuleMigration(Project project) {
+        this.project = project;
+    }
+
+    /**
+     * Plans the conversion of all given files in parallel.
+     *
+     * @return the conversions for all files which can be converted, sorted by path.
+     */
+    public List<FileConversion> plan(List<VirtualFile> files, ProgressIndicator indicator) {
+        indicator.setText("Planning goog.module conversions");
+        ConcurrentLinkedQueue<FileConversion> conversions = new ConcurrentLinkedQueue<>();
+        JobLauncher.getInstance().invokeConcurrentlyUnderProgress(files, indicator, file -> {
+            FileConversion conversion = ReadAction.compute(() -> planFile(file));
+            if (conversion != null) {
+                conversions.add(conversion);
+            }
+            return true;
+        });
+
+        List<FileConversion> sortedConversions = new ArrayList<>(conversions);
+        sortedConversions.sort(Comparator.comparing(conversion -> conversion.file.getPath()));
+        return sortedConversions;
+    }
+
+    private FileConversion planFile(VirtualFile file) {
+        if (!file.isValid()) {
+            return null;
+        }
+        PsiFile psiFile = PsiManager.getInstance(project).findFile(file);
+        Document document = FileDocumentManager.getInstance().getDocument(file);
+        if (psiFile == null || document == null || !PsiDocumentManager.getInstance(project).isCommitted(document)) {
+            // The PSI offsets would not match the document text
+            return null;
+        }
+
+        ClosureDependenciesExtractor extractor = ClosureDependenciesExtractor.forFile(psiFile);
+        if (extractor.googProvides.size() != 1 || !extractor.googModules.isEmpty() || !extractor.getDuplicateGoogProvides().isEmpty()) {
+            return null;
+        }
+        JSStatement provideStatement = extractor.googProvides.values().iterator().next();
+        JSCallExpression provideCall = PsiTreeUtil.findChildOfType(provideStatement, JSCallExpression.class, false);
+        if (provideCall == null) {
+            return null;
+        }
+
+        CharSequence text = document.getImmutableCharSequence();
+        GoogModuleConversion conversion = new GoogModuleConversion(psiFile, text, provideCall);
+        TextReplacements replacements = new TextReplacements();
+        conversion.collectReplacements(replacements);
+        return new FileConversion(file, conversion.getProvidedNamespace(), document.getModificationStamp(), replacements);
+    }
+
+    /**
+     * Applies the planned conversions, {@value #FILES_PER_WRITE_COMMAND} files per write command.
+     */
+    public void apply(List<FileConversion> conversions, ProgressIndicator indicator) {
+        indicator.setText("Converting to goog.module");
+        indicator.setIndeterminate(false);
+        for (int chunkStart = 0; chunkStart < conversions.size(); chunkStart += FILES_PER_WRITE_COMMAND) {
+            indicator.checkCanceled();
+            indicator.setFraction((double) chunkStart / conversions.size());
+
+            List<FileConversion> chunk = conversions.subList(chunkStart, Math.min(chunkStart + FILES_PER_WRITE_COMMAND, conversions.size()));
+            ApplicationManager.getApplication().invokeAndWait(() ->
+                    WriteCommandAction.runWriteCommandAction(project, COMMAND_NAME, null, () -> chunk.forEach(this::applyFile)));
+        }
+        indicator.setFraction(1);
+    }
+
+    private void applyFile(FileConversion conversion) {
+        Document document = FileDocumentManager.getInstance().getDocument(conversion.file);
+        PsiFile psiFile = PsiManager.getInstance(project).findFile(conversion.file);
+        if (document == null || psiFile == null || document.getModificationStamp() != conversion.modificationStamp) {
+            // Changed since planning, so the planned offsets are no longer valid
+            skippedCount++;
+            return;
+        }
+
+        PsiDocumentManager documentManager = PsiDocumentManager.getInstance(project);
+        List<TextRange> changedRanges = conversion.replacements.applyTo(document);
+        documentManager.commitDocument(document);
+        GoogModuleConversion.reformatChangedLines(project, psiFile, document, changedRanges);
+        appliedCount++;
+    }
+
+    /**
+     * Writes the planned conversions as a unified diff, without changing any file. Formatting changes are not part of
+     * the report. The diff is written file by file from the current document texts, so the texts of all files are not
+     * kept in memory at once. Files changed since planning are skipped.
+     */
+    public void writeDiffReport(List<FileConversion> conversions, VirtualFile baseDirectory, Writer output, ProgressIndicator indicator) throws IOException {
+        indicator.setText("Writing goog.module conversion report");
+        indicator.setIndeterminate(false);
+        UnifiedDiffWriter diffWriter = new UnifiedDiffWriter(output);
+        for (int i = 0; i < conversions.size(); i++) {
+            indicator.checkCanceled();
+            indicator.setFraction((double) i / conversions.size());
+
+            FileConversion conversion = conversions.get(i);
+            CharSequence originalText = ReadAction.compute(() -> getPlannedText(conversion));
+            if (originalText == null) {
+                skippedCount++;
+                continue;
+            }
+            String path = VfsUtilCore.getRelativePath(conversion.file, baseDirectory, '/');
+            diffWriter.writeFileDiff(path != null ? path : conversion.file.getPath(), originalText,
+                    conversion.replacements.applyTo(originalText), indicator);
+        }
+        indicator.setFraction(1);
+    }
+
+    /**
+     * @return the text the conversion was planned for, or null if the file changed since then.
+     */
+    private static CharSequence getPlannedText(FileConversion conversion) {
+        Document document = conversion.file.isValid() ? FileDocumentManager.getInstance().getDocument(conversion.file) : null;
+        if (document == null || document.getModificationStamp() != conversion.modificationStamp) {
+            return null;
+        }
+        return document.getImmutableCharSequence();
+    }
+
+    public int getAppliedCount() {
+        return appliedCount;
+    }
+
+    public int getSkippedCount() {
+        return skippedCount;
+    }
+}
@@ -0,0 +1,135 @@
+package de.veihelmann.closureplugin.migration;
+
+import com.intellij.diff.comparison.ComparisonManager;
+import com.intellij.diff.comparison.ComparisonPolicy;
+import com.intellij.diff.fragments.LineFragment;
+import com.intellij.diff.fragments.LineFragmentImpl;
+import com.intellij.openapi.progress.ProgressIndicator;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Writes the changes of a file in the unified diff format (as produced by <code>diff -u</code>), so dry-run results
+ * can be reviewed with any diff viewer or applied with <code>git apply</code>. A missing line break at the end of a file
+ * is marked with <code>\ No newline at end of file</code>, just like <code>diff</code> does.
+ */
+public class UnifiedDiffWriter {
+
+    private static final int CONTEXT_LINES = 3;
+
+    private static final String NO_NEWLINE_AT_END = "\\ No newline at end of file\n";
+
+    /**
+     * Appended to the last line of a text without line break at its end before comparing, so this line differs from
+     * the same line with a line break.
+     */
+    private static final char NO_NEWLINE_MARKER = '\0';
+
+    /**
+     * The lines of one side of the diff (without the empty "line" after a final line break).
+     */
+    private static class Lines {
+        final String[] lines;
+        final boolean missingNewlineAtEnd;
+
+        Lines(CharSequence text) {
+            String content = text.toString();
+            missingNewlineAtEnd = !content.isEmpty() && !content.endsWith("\n");
+            if (content.isEmpty()) {
+                lines = new String[0];
+            } else {
+                lines = (missingNewlineAtEnd ? content : content.substring(0, content.length() - 1)).split("\n", -1);
+            }
+        }
+
+        /**
+         * @return the text to compare, which has exactly one line per line of the diff.
+         */
+        String comparedText() {
+            String joinedLines = String.join("\n", lines);
+            return missingNewlineAtEnd ? joinedLines + NO_NEWLINE_MARKER : joinedLines;
+        }
+    }
+
+    private final Writer output;
+
+    public UnifiedDiffWriter(Writer output) {
+        this.output = output;
+    }
+
+    public void writeFileDiff(String path, CharSequence before, CharSequence after, ProgressIndicator indicator) throws IOException {
+        Lines beforeLines = new Lines(before);
+        Lines afterLines = new Lines(after);
+        List<LineFragment> fragments = compareLines(beforeLines, afterLines, indicator);
+        if (fragments.isEmpty()) {
+            return;
+        }
+
+        output.write("--- a/" + path + "\n");
+        output.write("+++ b/" + path + "\n");
+
+        int first = 0;
+        while (first < fragments.size()) {
+            // Fragments with overlapping context lines go into the same hunk
+            int last = first;
+            while (last + 1 < fragments.size()
+                    && fragments.get(last + 1).getStartLine1() - fragments.get(last).getEndLine1() <= 2 * CONTEXT_LINES) {
+                last++;
+            }
+            writeHunk(fragments.subList(first, last + 1), beforeLines, afterLines);
+            first = last + 1;
+        }
+    }
+
+    private static List<LineFragment> compareLines(Lines beforeLines, Lines afterLines, ProgressIndicator indicator) {
+        if (beforeLines.lines.length == 0 || afterLines.lines.length == 0) {
+            // An empty text would be compared as one empty line
+            if (beforeLines.lines.length == afterLines.lines.length) {
+                return Collections.emptyList();
+            }
+            return Collections.singletonList(new LineFragmentImpl(0, beforeLines.lines.length, 0, afterLines.lines.length, 0, 0, 0, 0));
+        }
+        return ComparisonManager.getInstance().compareLines(beforeLines.comparedText(), afterLines.comparedText(), ComparisonPolicy.DEFAULT, indicator);
+    }
+
+    private void writeHunk(List<LineFragment> fragments, Lines beforeLines, Lines afterLines) throws IOException {
+        LineFragment firstFragment = fragments.get(0);
+        LineFragment lastFragment = fragments.get(fragments.size() - 1);
+
+        int startLine1 = Math.max(0, firstFragment.getStartLine1() - CONTEXT_LINES);
+        int endLine1 = Math.min(beforeLines.lines.length, lastFragment.getEndLine1() + CONTEXT_LINES);
+        int startLine2 = firstFragment.getStartLine2() - (firstFragment.getStartLine1() - startLine1);
+        int endLine2 = lastFragment.getEndLine2() + (endLine1 - lastFragment.getEndLine1());
+
+        output.write("@@ -" + formatRange(startLine1, endLine1) + " +" + formatRange(startLine2, endLine2) + " @@\n");
+
+        int currentLine1 = startLine1;
+        for (LineFragment fragment : fragments) {
+            writeLines(' ', beforeLines, currentLine1, fragment.getStartLine1());
+            writeLines('-', beforeLines, fragment.getStartLine1(), fragment.getEndLine1());
+            writeLines('+', afterLines, fragment.getStartLine2(), fragment.getEndLine2());
+            currentLine1 = fragment.getEndLine1();
+        }
+        writeLines(' ', beforeLines, currentLine1, endLine1);
+    }
+
+    private void writeLines(char prefix, Lines lines, int startLine, int endLine) throws IOException {
+        for (int line = startLine; line < endLine; line++) {
+            output.write(prefix);
+            output.write(lines.lines[line]);
+            output.write('\n');
+            if (lines.missingNewlineAtEnd && line == lines.lines.length - 1) {
+                output.write(NO_NEWLINE_AT_END);
+            }
+        }
+    }
+
+    private static String formatRange(int startLine, int endLine) {
+        int lineCount = endLine - startLine;
+        // Empty ranges refer to the line before them
+        return (lineCount == 0 ? startLine : startLine + 1) + "," + lineCount;
+    }
+}
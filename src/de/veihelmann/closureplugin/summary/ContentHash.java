@@ -0,0 +1,74 @@
+package de.veihelmann.closureplugin.summary;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A 128 bit hash (the first half of the SHA-256 digest) of a file's content (and type), identifying a content version
+ * regardless of the file's path or modification time.
+ */
+public class ContentHash {
+
+    static final int BYTES = 16;
+
+    final long high;
+
+    final long low;
+
+    ContentHash(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    /**
+     * @param fileType the name of the file's type, as the same content is summarized differently per file type (e.g.
+     *                 only .js files get Closure dependencies).
+     */
+    public static ContentHash of(String fileType, CharSequence content) {
+        MessageDigest digest = newDigest();
+        digest.update(fileType.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        return ofDigest(digest.digest(content.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public static ContentHash of(byte[] content) {
+        return ofDigest(newDigest().digest(content));
+    }
+
+    private static ContentHash ofDigest(byte[] digest) {
+        return new ContentHash(toLong(digest, 0), toLong(digest, 8));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform supports SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long toLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            value = (value << 8) | (bytes[i] & 0xFF);
+        }
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof ContentHash && ((ContentHash) other).high == high && ((ContentHash) other).low == low;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) low;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%016x%016x", high, low);
+    }
+}
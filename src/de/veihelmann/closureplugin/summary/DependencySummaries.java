@@ -0,0 +1,156 @@
+package de.veihelmann.closureplugin.summary;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.fileEditor.impl.LoadTextUtil;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiFileFactory;
+import com.intellij.psi.PsiManager;
+import de.veihelmann.closureplugin.ClosureDependenciesExtractor;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Answers {@link DependencySummary dependency summaries} of files from a {@link DependencySummaryStore} in the IDE's
+ * system directory, so files not changed since they were summarized (in this or an earlier IDE session) are answered
+ * by hashing their content, without building PSI. Summaries only depend on the file content, the file type and the
+ * {@link ClosureDependenciesExtractor#VERSION extractor version}, so the store is shared by all projects.
+ */
+public class DependencySummaries implements Disposable {
+
+    private static final Logger LOG = Logger.getInstance(DependencySummaries.class);
+
+    @Nullable
+    private final DependencySummaryStore store;
+
+    public DependencySummaries() {
+        DependencySummaryStore openedStore = null;
+        try {
+            openedStore = DependencySummaryStore.open(Paths.get(PathManager.getSystemPath(), "closure-plugin", "dependency-summaries.dat"),
+                    ClosureDependenciesExtractor.VERSION);
+        } catch (IOException e) {
+            LOG.warn("Cannot open the dependency summary store, summaries will not be persisted", e);
+        }
+        this.store = openedStore;
+    }
+
+    public static DependencySummaries getInstance() {
+        return ServiceManager.getService(DependencySummaries.class);
+    }
+
+    /**
+     * @return the summary of the given JavaScript file (as last committed, including unsaved changes), or null if the
+     * file is not valid anymore. Must not be called within a read action if the PSI of the file might have to be built,
+     * as that is done in a read action of its own.
+     */
+    @Nullable
+    public DependencySummary getSummary(Project project, VirtualFile file) {
+        CharSequence text = loadText(project, file);
+        if (text == null) {
+            return null;
+        }
+        DependencySummary storedSummary = getStoredSummary(file, text);
+        if (storedSummary != null) {
+            return storedSummary;
+        }
+        return ReadAction.compute(() -> summarize(file.isValid() ? PsiManager.getInstance(project).findFile(file) : null, file));
+    }
+
+    /**
+     * Like {@link #getSummary(Project, VirtualFile)}, but summarizes the saved content of the file, without unsaved
+     * changes of its document (e.g. for files written to disk for other tools).
+     */
+    @Nullable
+    public DependencySummary getSavedSummary(Project project, VirtualFile file) {
+        CharSequence text = ReadAction.compute(() -> file.isValid() ? LoadTextUtil.loadText(file) : null);
+        if (text == null) {
+            return null;
+        }
+        DependencySummary storedSummary = getStoredSummary(file, text);
+        if (storedSummary != null) {
+            return storedSummary;
+        }
+        return ReadAction.compute(() -> {
+            if (!file.isValid()) {
+                return null;
+            }
+            // The PSI of a file with unsaved changes is built from its document, so the saved content is parsed separately
+            PsiFile psiFile = FileDocumentManager.getInstance().isFileModified(file)
+                    ? PsiFileFactory.getInstance(project).createFileFromText(file.getName(), file.getFileType(), text)
+                    : PsiManager.getInstance(project).findFile(file);
+            return summarize(psiFile, file);
+        });
+    }
+
+    @Nullable
+    private DependencySummary getStoredSummary(VirtualFile file, CharSequence text) {
+        if (store == null) {
+            return null;
+        }
+        try {
+            return store.get(ContentHash.of(file.getFileType().getName(), text));
+        } catch (IOException e) {
+            LOG.warn("Cannot read the dependency summary of " + file.getPath(), e);
+            return null;
+        }
+    }
+
+    @Nullable
+    private DependencySummary summarize(@Nullable PsiFile psiFile, VirtualFile file) {
+        if (psiFile == null) {
+            return null;
+        }
+        DependencySummary summary = DependencySummary.of(ClosureDependenciesExtractor.forFile(psiFile));
+        // Stored under the text the PSI was built from, which may have been committed since the text was loaded
+        storeSummary(ContentHash.of(psiFile.getFileType().getName(), psiFile.getViewProvider().getContents()), summary, file);
+        return summary;
+    }
+
+    private void storeSummary(ContentHash hash, DependencySummary summary, VirtualFile file) {
+        if (store == null) {
+            return;
+        }
+        try {
+            store.put(hash, summary);
+        } catch (IOException e) {
+            LOG.warn("Cannot store the dependency summary of " + file.getPath(), e);
+        }
+    }
+
+    /**
+     * @return the text the PSI of the given file is (or would be) built from: the last committed text of its document,
+     * or the file content if it has no document.
+     */
+    @Nullable
+    private static CharSequence loadText(Project project, VirtualFile file) {
+        return ReadAction.compute(() -> {
+            if (!file.isValid()) {
+                return null;
+            }
+            Document document = FileDocumentManager.getInstance().getCachedDocument(file);
+            return document != null ? PsiDocumentManager.getInstance(project).getLastCommittedText(document) : LoadTextUtil.loadText(file);
+        });
+    }
+
+    @Override
+    public void dispose() {
+        if (store == null) {
+            return;
+        }
+        try {
+            store.close();
+        } catch (IOException e) {
+            LOG.warn("Cannot close the dependency summary store", e);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package de.veihelmann.closureplugin.summary;
+
+import de.veihelmann.closureplugin.ClosureDependenciesExtractor;
+import de.veihelmann.closureplugin.utils.NamespaceInterner;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * The namespace-level results of a {@link ClosureDependenciesExtractor} (without PSI elements), small enough to be
+ * stored for every file of a project. All namespaces are interned.
+ */
+public class DependencySummary {
+
+    public final List<String> googRequires;
+
+    public final List<String> googProvides;
+
+    public final List<String> googModules;
+
+    /**
+     * Full namespace -> short reference, see {@link ClosureDependenciesExtractor#namespaceAliases}.
+     */
+    public final Map<String, String> namespaceAliases;
+
+    public final List<String> dependencies;
+
+    public final Set<String> namespacesInComments;
+
+    /**
+     * See {@link ClosureDependenciesExtractor#typeRequires}.
+     */
+    public final List<String> typeRequires;
+
+    DependencySummary(List<String> googRequires, List<String> googProvides, List<String> googModules, Map<String, String> namespaceAliases,
+                              List<String> dependencies, Set<String> namespacesInComments, List<String> typeRequires) {
+        this.googRequires = Collections.unmodifiableList(googRequires);
+        this.googProvides = Collections.unmodifiableList(googProvides);
+        this.googModules = Collections.unmodifiableList(googModules);
+        this.namespaceAliases = Collections.unmodifiableMap(namespaceAliases);
+        this.dependencies = Collections.unmodifiableList(dependencies);
+        this.namespacesInComments = Collections.unmodifiableSet(namespacesInComments);
+        this.typeRequires = Collections.unmodifiableList(typeRequires);
+    }
+
+    public static DependencySummary of(ClosureDependenciesExtractor extractor) {
+        Map<String, String> aliases = new TreeMap<>();
+        for (String fullNamespace : extractor.namespaceAliases.fullNamespaces()) {
+            String shortReference = extractor.namespaceAliases.getShortReference(fullNamespace);
+            if (shortReference != null) {
+                aliases.put(NamespaceInterner.intern(fullNamespace), shortReference);
+            }
+        }
+        return new DependencySummary(interned(extractor.googRequires.keySet()), interned(extractor.googProvides.keySet()),
+                interned(extractor.googModules.keySet()), aliases, interned(extractor.dependencies.keys()),
+                new HashSet<>(interned(extractor.namespacesInComments)), interned(extractor.typeRequires));
+    }
+
+    /**
+     * @return the namespaces provided via goog.provide or goog.module.
+     */
+    public List<String> getDeclaredNamespaces() {
+        List<String> declaredNamespaces = new ArrayList<>(googProvides);
+        declaredNamespaces.addAll(googModules);
+        return declaredNamespaces;
+    }
+
+    void write(DataOutput out) throws IOException {
+        writeNamespaces(out, googRequires);
+        writeNamespaces(out, googProvides);
+        writeNamespaces(out, googModules);
+        out.writeInt(namespaceAliases.size());
+        for (Map.Entry<String, String> alias : namespaceAliases.entrySet()) {
+            out.writeUTF(alias.getKey());
+            out.writeUTF(alias.getValue());
+        }
+        writeNamespaces(out, dependencies);
+        writeNamespaces(out, namespacesInComments);
+        writeNamespaces(out, typeRequires);
+    }
+
+    static DependencySummary read(DataInput in) throws IOException {
+        List<String> googRequires = readNamespaces(in);
+        List<String> googProvides = readNamespaces(in);
+        List<String> googModules = readNamespaces(in);
+        int aliasCount = in.readInt();
+        Map<String, String> aliases = new TreeMap<>();
+        for (int i = 0; i < aliasCount; i++) {
+            aliases.put(NamespaceInterner.intern(in.readUTF()), in.readUTF());
+        }
+        List<String> dependencies = readNamespaces(in);
+        Set<String> namespacesInComments = new HashSet<>(readNamespaces(in));
+        List<String> typeRequires = readNamespaces(in);
+        return new DependencySummary(googRequires, googProvides, googModules, aliases, dependencies, namespacesInComments, typeRequires);
+    }
+
+    private static List<String> interned(Collection<String> namespaces) {
+        List<String> result = new ArrayList<>(namespaces.size());
+        namespaces.forEach(namespace -> result.add(NamespaceInterner.intern(namespace)));
+        return result;
+    }
+
+    private static void writeNamespaces(DataOutput out, Collection<String> namespaces) throws IOException {
+        out.writeInt(namespaces.size());
+        for (String namespace : namespaces) {
+            out.writeUTF(namespace);
+        }
+    }
+
+    private static List<String> readNamespaces(DataInput in) throws IOException {
+        int size = in.readInt();
+        List<String> namespaces = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            namespaces.add(NamespaceInterner.intern(in.readUTF()));
+        }
+        return namespaces;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof DependencySummary)) {
+            return false;
+        }
+        DependencySummary summary = (DependencySummary) other;
+        return googRequires.equals(summary.googRequires) && googProvides.equals(summary.googProvides) && googModules.equals(summary.googModules)
+                && namespaceAliases.equals(summary.namespaceAliases) && dependencies.equals(summary.dependencies)
+                && namespacesInComments.equals(summary.namespacesInComments) && typeRequires.equals(summary.typeRequires);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(googRequires, googProvides, googModules, dependencies);
+    }
+}
@@ -0,0 +1,206 @@
+package de.veihelmann.closureplugin.summary;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Persistent store of {@link DependencySummary dependency summaries}, keyed by {@link ContentHash}. The store is an
+ * append-only file of records (hash, payload length, payload). On opening, the record headers are scanned once to build
+ * the in-memory index from hash to payload offset, and the file is memory-mapped; payloads are only decoded on lookup. Summaries added later
+ * are appended to the file and read back from it on lookup, so only their offsets are kept in memory.
+ * <p>
+ * A record cut off by a crash is dropped (the file is truncated to the last complete record). A store with a different
+ * format or content version (see {@link #open(Path, int)}) is started from scratch. The file never grows beyond
+ * {@link #MAX_FILE_SIZE}: once full, summaries are not stored anymore, and a store grown beyond three quarters of it is
+ * started from scratch when it is opened the next time.
+ * <p>
+ * Thread-safe.
+ */
+public class DependencySummaryStore implements Closeable {
+
+    private static final int MAGIC = 0x436c5353;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 12;
+
+    private static final long MAX_FILE_SIZE = 256L * 1024 * 1024;
+
+    private final FileChannel channel;
+
+    private final MappedByteBuffer mappedRecords;
+
+    private final long maxFileSize;
+
+    private final Map<ContentHash, Long> payloadOffsets = new HashMap<>();
+
+    private DependencySummaryStore(FileChannel channel, MappedByteBuffer mappedRecords, long maxFileSize, Map<ContentHash, Long> payloadOffsets) {
+        this.channel = channel;
+        this.mappedRecords = mappedRecords;
+        this.maxFileSize = maxFileSize;
+        this.payloadOffsets.putAll(payloadOffsets);
+    }
+
+    /**
+     * @param contentVersion the version of the stored summaries' computation, e.g.
+     *                       {@link de.veihelmann.closureplugin.ClosureDependenciesExtractor#VERSION}.
+     */
+    public static DependencySummaryStore open(Path file, int contentVersion) throws IOException {
+        return open(file, contentVersion, MAX_FILE_SIZE);
+    }
+
+    static DependencySummaryStore open(Path file, int contentVersion, long maxFileSize) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() > maxFileSize / 4 * 3 || !hasValidHeader(channel, contentVersion)) {
+                channel.truncate(0);
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).putInt(contentVersion);
+                header.flip();
+                channel.write(header, 0);
+            }
+
+            // Indexed (and truncated) before mapping, as mapped files cannot be truncated on all platforms
+            Map<ContentHash, Long> payloadOffsets = new HashMap<>();
+            long validEnd = indexRecords(file, channel.size(), payloadOffsets);
+            if (validEnd < channel.size()) {
+                channel.truncate(validEnd);
+            }
+            channel.position(validEnd);
+            return new DependencySummaryStore(channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, validEnd), maxFileSize, payloadOffsets);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static boolean hasValidHeader(FileChannel channel, int contentVersion) throws IOException {
+        if (channel.size() < HEADER_SIZE) {
+            return false;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        channel.read(header, 0);
+        header.flip();
+        return header.getInt() == MAGIC && header.getInt() == VERSION && header.getInt() == contentVersion;
+    }
+
+    /**
+     * Reads the record headers of the given file and stores the payload offsets in the given map.
+     *
+     * @return the end of the last complete record.
+     */
+    private static long indexRecords(Path file, long fileSize, Map<ContentHash, Long> payloadOffsets) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            in.skipBytes(HEADER_SIZE);
+            long position = HEADER_SIZE;
+            while (position + ContentHash.BYTES + 4 <= fileSize) {
+                ContentHash hash = new ContentHash(in.readLong(), in.readLong());
+                int payloadLength = in.readInt();
+                long payloadOffset = position + ContentHash.BYTES + 4;
+                if (payloadLength < 0 || payloadOffset + payloadLength > fileSize || in.skipBytes(payloadLength) != payloadLength) {
+                    break;
+                }
+                payloadOffsets.put(hash, payloadOffset);
+                position = payloadOffset + payloadLength;
+            }
+            return position;
+        }
+    }
+
+    /**
+     * @return the summary stored for the given content, or null.
+     */
+    public synchronized DependencySummary get(ContentHash hash) throws IOException {
+        Long payloadOffset = payloadOffsets.get(hash);
+        if (payloadOffset == null) {
+            return null;
+        }
+        ByteBuffer payload;
+        if (payloadOffset < mappedRecords.limit()) {
+            // Within the mapped records, which are smaller than the maximum file size
+            int mappedOffset = payloadOffset.intValue();
+            payload = mappedRecords.duplicate();
+            payload.position(mappedOffset);
+            payload.limit(mappedOffset + mappedRecords.getInt(mappedOffset - 4));
+        } else {
+            // Appended after opening
+            payload = readFully(payloadOffset - 4, 4);
+            payload = readFully(payloadOffset, payload.getInt());
+        }
+        return DependencySummary.read(new DataInputStream(new ByteBufferInputStream(payload)));
+    }
+
+    private ByteBuffer readFully(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Stores the summary of the given content, unless the store is full.
+     */
+    public synchronized void put(ContentHash hash, DependencySummary summary) throws IOException {
+        if (payloadOffsets.containsKey(hash)) {
+            return;
+        }
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        summary.write(new DataOutputStream(payload));
+        if (channel.position() + ContentHash.BYTES + 4 + payload.size() > maxFileSize) {
+            return;
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(ContentHash.BYTES + 4 + payload.size());
+        record.putLong(hash.high).putLong(hash.low).putInt(payload.size()).put(payload.toByteArray());
+        record.flip();
+        long payloadOffset = channel.position() + ContentHash.BYTES + 4;
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+        payloadOffsets.put(hash, payloadOffset);
+    }
+
+    public synchronized int size() {
+        return payloadOffsets.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package de.veihelmann.closureplugin.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses Closure type expressions (the part between the braces of e.g. <code>@param {...}</code>) and collects the
+ * referenced type names. Supports unions, type arguments (also in the old 'Array.&lt;string&gt;' syntax), records,
+ * function types (including 'this:' and 'new:'), nullability modifiers, optional parameters and var args. Record field
+ * names and keywords are not reported, only actual types.
+ * <p>
+ * Malformed expressions are parsed on a best-effort basis: unexpected characters are skipped.
+ */
+public class ClosureTypeParser {
+
+    private final CharSequence text;
+
+    private final List<String> typeNames = new ArrayList<>();
+
+    private int position;
+
+    private ClosureTypeParser(CharSequence text) {
+        this.text = text;
+    }
+
+    /**
+     * @return the (interned) names of all types referenced in the given type expression, in order of appearance.
+     * For example, 'Object&lt;string, !x.y.Z&gt;' yields 'Object', 'string' and 'x.y.Z'.
+     */
+    public static List<String> parseTypeNames(CharSequence typeExpression) {
+        ClosureTypeParser parser = new ClosureTypeParser(typeExpression);
+        while (parser.skipWhitespace() < typeExpression.length()) {
+            int start = parser.position;
+            parser.parseParameterType();
+            if (parser.position == start) {
+                // Unexpected character
+                parser.position++;
+            }
+        }
+        return parser.typeNames;
+    }
+
+    /**
+     * A type as used for parameters, e.g. '...string' or 'number='.
+     */
+    private void parseParameterType() {
+        consume("...");
+        parseUnionType();
+        consume('=');
+    }
+
+    private void parseUnionType() {
+        do {
+            parseNonUnionType();
+        } while (consume('|'));
+    }
+
+    private void parseNonUnionType() {
+        if (consume('?') || consume('!')) {
+            // A single '?' is the unknown type
+            if (!startsBaseType()) {
+                return;
+            }
+        }
+        parseBaseType();
+        while (consume('?') || consume('!')) {
+            // Postfix nullability, e.g. 'string?'
+        }
+    }
+
+    private boolean startsBaseType() {
+        if (skipWhitespace() >= text.length()) {
+            return false;
+        }
+        char character = text.charAt(position);
+        return character == '(' || character == '*' || character == '{' || isNameStart(character);
+    }
+
+    private void parseBaseType() {
+        if (!startsBaseType()) {
+            return;
+        }
+        char character = text.charAt(position);
+        if (character == '(') {
+            position++;
+            parseUnionType();
+            consume(')');
+        } else if (character == '*') {
+            position++;
+        } else if (character == '{') {
+            parseRecordType();
+        } else {
+            parseNamedType();
+        }
+    }
+
+    private void parseNamedType() {
+        int start = position;
+        int end = readName();
+        if (isKeyword(start, end, "function") && consume('(')) {
+            parseFunctionType();
+            return;
+        }
+        if (isKeyword(start, end, "typeof")) {
+            parseBaseType();
+            return;
+        }
+        typeNames.add(NamespaceInterner.intern(text.subSequence(start, end).toString()));
+        parseTypeArguments();
+    }
+
+    private void parseTypeArguments() {
+        skipWhitespace();
+        if (position + 1 < text.length() && text.charAt(position) == '.' && text.charAt(position + 1) == '<') {
+            position++;
+        }
+        if (!consume('<')) {
+            return;
+        }
+        do {
+            parseParameterType();
+        } while (consume(','));
+        consume('>');
+    }
+
+    /**
+     * Parses e.g. '{name: string, count: number}', starting at the opening brace.
+     */
+    private void parseRecordType() {
+        position++;
+        while (skipWhitespace() < text.length() && !consume('}')) {
+            int fieldStart = position;
+            if (isNameStart(text.charAt(position))) {
+                readName();
+            } else if (text.charAt(position) == '\'' || text.charAt(position) == '"') {
+                skipStringLiteral();
+            }
+            if (consume(':')) {
+                parseParameterType();
+            }
+            if (!consume(',') && position == fieldStart) {
+                // Unexpected character
+                position++;
+            }
+        }
+    }
+
+    /**
+     * Parses e.g. 'function(this:x.Y, string=): number', starting after the opening parenthesis.
+     */
+    private void parseFunctionType() {
+        while (skipWhitespace() < text.length() && !consume(')')) {
+            int parameterStart = position;
+            int nameEnd = isNameStart(text.charAt(position)) ? peekName() : position;
+            if ((isKeyword(parameterStart, nameEnd, "this") || isKeyword(parameterStart, nameEnd, "new")) && peekAfter(nameEnd) == ':') {
+                position = nameEnd;
+                consume(':');
+            }
+            parseParameterType();
+            if (!consume(',') && position == parameterStart) {
+                // Unexpected character
+                position++;
+            }
+        }
+        if (consume(':')) {
+            parseNonUnionType();
+        }
+    }
+
+    /**
+     * Reads a (dotted) name and returns its end. A dot directly followed by '&lt;' (old type argument syntax) and
+     * trailing dots are not part of the name.
+     */
+    private int readName() {
+        position = peekName();
+        return position;
+    }
+
+    private int peekName() {
+        int end = position;
+        while (end < text.length() && isNameCharacter(text.charAt(end))) {
+            end++;
+        }
+        while (end > position && text.charAt(end - 1) == '.') {
+            end--;
+        }
+        return end;
+    }
+
+    private void skipStringLiteral() {
+        char quote = text.charAt(position++);
+        while (position < text.length() && text.charAt(position++) != quote) {
+            // Skip literal contents
+        }
+    }
+
+    private boolean isKeyword(int start, int end, String keyword) {
+        if (end - start != keyword.length()) {
+            return false;
+        }
+        for (int i = 0; i < keyword.length(); i++) {
+            if (text.charAt(start + i) != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private char peekAfter(int index) {
+        while (index < text.length() && Character.isWhitespace(text.charAt(index))) {
+            index++;
+        }
+        return index < text.length() ? text.charAt(index) : 0;
+    }
+
+    private boolean consume(char expected) {
+        if (skipWhitespace() < text.length() && text.charAt(position) == expected) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean consume(String expected) {
+        skipWhitespace();
+        for (int i = 0; i < expected.length(); i++) {
+            if (position + i >= text.length() || text.charAt(position + i) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        position += expected.length();
+        return true;
+    }
+
+    private int skipWhitespace() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    private static boolean isNameStart(char character) {
+        return character == '_' || character == '$' || Character.isLetter(character);
+    }
+
+    private static boolean isNameCharacter(char character) {
+        return character == '.' || character == '_' || character == '$' || Character.isLetterOrDigit(character);
+    }
+}
@@ -0,0 +1,41 @@
+package de.veihelmann.closureplugin.utils;
+
+import com.intellij.lang.javascript.psi.JSAssignmentExpression;
+import com.intellij.lang.javascript.psi.JSExpression;
+import com.intellij.lang.javascript.psi.JSObjectLiteralExpression;
+import com.intellij.lang.javascript.psi.JSProperty;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.util.PsiTreeUtil;
+
+import java.util.Map;
+
+/**
+ * Finds the members a goog.module exports, either one by one (<code>exports.foo = ...;</code>) or as object literal
+ * (<code>exports = {foo, bar: baz};</code>).
+ */
+public class GoogModuleExports {
+
+    private static final String EXPORTS = "exports";
+
+    /**
+     * Collects the members exported by the given assignment (if it is an export), mapped to the element declaring them
+     * (the assignment target or the property of the exported object literal). Members exported before are kept.
+     */
+    public static void collectExports(JSAssignmentExpression assignment, Map<String, PsiElement> exports) {
+        JSExpression target = assignment.getLOperand();
+        // Cheap pre-check without the text of the target, as most assignments are no exports
+        if (target == null || !PsiTreeUtil.getDeepestFirst(target).textMatches(EXPORTS)) {
+            return;
+        }
+        String targetName = NamespaceAliases.normalizeNamespace(target.getText());
+        if (targetName.startsWith(EXPORTS + ".") && targetName.indexOf('.', EXPORTS.length() + 1) < 0) {
+            exports.putIfAbsent(targetName.substring(EXPORTS.length() + 1), target);
+        } else if (targetName.equals(EXPORTS) && assignment.getROperand() instanceof JSObjectLiteralExpression) {
+            for (JSProperty property : ((JSObjectLiteralExpression) assignment.getROperand()).getProperties()) {
+                if (property.getName() != null) {
+                    exports.putIfAbsent(property.getName(), property);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package de.veihelmann.closureplugin.utils;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bidirectional mapping between goog.require'd namespaces and their short references. For example, for
+ * <code>const test = goog.require('x.y.test');</code>
+ * the mapping will be 'x.y.test' <-> 'test'. Both directions are plain hash lookups, so resolving a short reference
+ * does not depend on the number of aliases in a file.
+ */
+public class NamespaceAliases {
+
+    private final Map<String, String> fullNamespacesToShortReferences = new HashMap<>();
+
+    private final Map<String, String> shortReferencesToFullNamespaces = new HashMap<>();
+
+    /**
+     * Order-independent hash of both mappings, see {@link #fingerprint()}.
+     */
+    private long fingerprint;
+
+    public NamespaceAliases() {
+    }
+
+    /**
+     * Creates a copy of the given aliases.
+     */
+    public NamespaceAliases(NamespaceAliases other) {
+        fullNamespacesToShortReferences.putAll(other.fullNamespacesToShortReferences);
+        shortReferencesToFullNamespaces.putAll(other.shortReferencesToFullNamespaces);
+        fingerprint = other.fingerprint;
+    }
+
+    /**
+     * Registers a short reference for a full namespace. If the same short reference is used for several namespaces,
+     * the first registered namespace wins when resolving it.
+     */
+    public void put(String fullNamespace, String shortReference) {
+        String previousShortReference = fullNamespacesToShortReferences.put(fullNamespace, shortReference);
+        if (previousShortReference != null) {
+            fingerprint ^= hashMapping(fullNamespace, previousShortReference, 1);
+            if (fullNamespace.equals(shortReferencesToFullNamespaces.get(previousShortReference))) {
+                shortReferencesToFullNamespaces.remove(previousShortReference);
+                fingerprint ^= hashMapping(previousShortReference, fullNamespace, 2);
+            }
+        }
+        fingerprint ^= hashMapping(fullNamespace, shortReference, 1);
+        if (shortReferencesToFullNamespaces.putIfAbsent(shortReference, fullNamespace) == null) {
+            fingerprint ^= hashMapping(shortReference, fullNamespace, 2);
+        }
+    }
+
+    /**
+     * @return a hash of the current aliases, maintained with each change. Equal fingerprints mean (with a very high
+     * probability) that namespaces are resolved the same way, which allows reusing results computed with other
+     * instances.
+     */
+    public long fingerprint() {
+        return fingerprint;
+    }
+
+    private static long hashMapping(String key, String value, int direction) {
+        // Finalizer of MurmurHash3, to spread the bits before combining the hashes with XOR
+        long hash = (key.hashCode() * 0x9E3779B97F4A7C15L + value.hashCode()) * 31 + direction;
+        hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+        hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    public boolean containsFullNamespace(String fullNamespace) {
+        return fullNamespacesToShortReferences.containsKey(fullNamespace);
+    }
+
+    public @Nullable
+    String getShortReference(String fullNamespace) {
+        return fullNamespacesToShortReferences.get(fullNamespace);
+    }
+
+    public @Nullable
+    String getFullNamespace(String shortReference) {
+        return shortReferencesToFullNamespaces.get(shortReference);
+    }
+
+    public Set<String> fullNamespaces() {
+        return fullNamespacesToShortReferences.keySet();
+    }
+
+    public boolean isEmpty() {
+        return fullNamespacesToShortReferences.isEmpty();
+    }
+
+    /**
+     * Resolves the given reference to its full namespace if it is a registered short reference, and removes any
+     * whitespace from the result (see {@link #normalizeNamespace(String)}).
+     */
+    public String resolveAndNormalize(String namespace) {
+        if (namespace == null) {
+            return null;
+        }
+        String resolvedFullNamespace = shortReferencesToFullNamespaces.get(namespace);
+        if (resolvedFullNamespace != null) {
+            return normalizeNamespace(resolvedFullNamespace);
+        }
+        return normalizeNamespace(namespace);
+    }
+
+    /**
+     * Removes all whitespace (incl. line breaks) from the given namespace, e.g. for references spanning several lines.
+     * Returns the input instance if there is nothing to remove, which is by far the most common case.
+     */
+    public static String normalizeNamespace(String namespace) {
+        int firstWhitespace = 0;
+        while (firstWhitespace < namespace.length() && !isWhitespace(namespace.charAt(firstWhitespace))) {
+            firstWhitespace++;
+        }
+        if (firstWhitespace == namespace.length()) {
+            return namespace;
+        }
+
+        StringBuilder builder = new StringBuilder(namespace.length()).append(namespace, 0, firstWhitespace);
+        for (int i = firstWhitespace + 1; i < namespace.length(); i++) {
+            char character = namespace.charAt(i);
+            if (!isWhitespace(character)) {
+                builder.append(character);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Same character class as '\s' in regular expressions.
+     */
+    private static boolean isWhitespace(char character) {
+        return character == ' ' || character == '\t' || character == '\n' || character == '\u000B' || character == '\f' || character == '\r';
+    }
+}
@@ -0,0 +1,27 @@
+package de.veihelmann.closureplugin.utils;
+
+import com.intellij.util.containers.WeakInterner;
+
+/**
+ * Shares one string instance per namespace. The same namespaces are mentioned over and over again in a project (in
+ * comments, requires and code), so analysis results referencing interned namespaces retain far less memory.
+ * <p>
+ * The namespaces are only weakly referenced: a namespace is dropped as soon as no analysis result (of any project)
+ * references it anymore, so namespaces of edited-away code or closed projects are not kept until the IDE exits. The
+ * platform's interner is thread-safe without a global lock, as highlighting, batch runs and the deps.js generation
+ * intern namespaces in parallel.
+ * <p>
+ * Namespaces get no int ids: ids could not be reused safely once their namespaces are dropped, so an id table would
+ * grow for the whole IDE session. Instead {@link NamespaceMultimap} keys its table by the interned string itself.
+ */
+public class NamespaceInterner {
+
+    private static final WeakInterner<String> NAMESPACES = new WeakInterner<>();
+
+    /**
+     * @return the shared instance equal to the given namespace.
+     */
+    public static String intern(String namespace) {
+        return NAMESPACES.intern(namespace);
+    }
+}
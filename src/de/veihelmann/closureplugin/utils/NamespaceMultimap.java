@@ -0,0 +1,205 @@
+package de.veihelmann.closureplugin.utils;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * A map from namespaces to lists of values. Keys and values are stored in flat arrays (the values of a key form a linked list of offsets), so lookups of absent keys and iteration
+ * do not allocate:
+ * <pre>
+ * for (int key = 0; key &lt; map.keyCount(); key++) {
+ *     for (int offset = map.firstValueOffset(key); offset != NamespaceMultimap.NO_VALUE; offset = map.nextValueOffset(offset)) {
+ *         ... map.keyAt(key), map.valueAt(offset) ...
+ *     }
+ * }
+ * </pre>
+ * Keys are kept in insertion order, values in insertion order per key. Not thread-safe.
+ */
+public class NamespaceMultimap<V> {
+
+    public static final int NO_VALUE = -1;
+
+    private String[] keyNamespaces = new String[4];
+
+    private int[] firstValueOffsets = new int[4];
+
+    private int[] lastValueOffsets = new int[4];
+
+    private int keyCount;
+
+    /**
+     * Open addressing hash table from namespace hash to key index + 1 (0 marks free slots).
+     */
+    private int[] keyTable = new int[8];
+
+    private Object[] values = new Object[4];
+
+    private int[] nextValueOffsets = new int[4];
+
+    private int valueCount;
+
+    private final List<String> keys = new AbstractList<String>() {
+        @Override
+        public String get(int index) {
+            return keyAt(index);
+        }
+
+        @Override
+        public int size() {
+            return keyCount;
+        }
+    };
+
+    public void put(String namespace, V value) {
+        int key = findOrAddKey(namespace);
+        if (valueCount == values.length) {
+            values = Arrays.copyOf(values, valueCount * 2);
+            nextValueOffsets = Arrays.copyOf(nextValueOffsets, valueCount * 2);
+        }
+        values[valueCount] = value;
+        nextValueOffsets[valueCount] = NO_VALUE;
+        if (firstValueOffsets[key] == NO_VALUE) {
+            firstValueOffsets[key] = valueCount;
+        } else {
+            nextValueOffsets[lastValueOffsets[key]] = valueCount;
+        }
+        lastValueOffsets[key] = valueCount;
+        valueCount++;
+    }
+
+    /**
+     * Adds all values of the given map, key by key.
+     */
+    public void putAll(NamespaceMultimap<? extends V> other) {
+        for (int key = 0; key < other.keyCount; key++) {
+            String namespace = other.keyAt(key);
+            for (int offset = other.firstValueOffsets[key]; offset != NO_VALUE; offset = other.nextValueOffsets[offset]) {
+                put(namespace, other.valueAt(offset));
+            }
+        }
+    }
+
+    public boolean containsKey(String namespace) {
+        return findKey(namespace) >= 0;
+    }
+
+    public boolean isEmpty() {
+        return keyCount == 0;
+    }
+
+    /**
+     * @return a (read-only) view of the keys, in insertion order.
+     */
+    public List<String> keys() {
+        return keys;
+    }
+
+    public int keyCount() {
+        return keyCount;
+    }
+
+    public String keyAt(int key) {
+        return keyNamespaces[key];
+    }
+
+    /**
+     * @return the offset of the first value of the key with the given index (see {@link #keyCount()}).
+     */
+    public int firstValueOffset(int key) {
+        return firstValueOffsets[key];
+    }
+
+    /**
+     * @return the offset of the value following the given one (of the same key), or {@link #NO_VALUE}.
+     */
+    public int nextValueOffset(int offset) {
+        return nextValueOffsets[offset];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V valueAt(int offset) {
+        return (V) values[offset];
+    }
+
+    /**
+     * @return a copy of the values of the given namespace (an empty list, without allocation, if there are none).
+     */
+    public List<V> get(String namespace) {
+        int key = findKey(namespace);
+        if (key < 0) {
+            return Collections.emptyList();
+        }
+        List<V> result = new ArrayList<>();
+        for (int offset = firstValueOffsets[key]; offset != NO_VALUE; offset = nextValueOffsets[offset]) {
+            result.add(valueAt(offset));
+        }
+        return result;
+    }
+
+    /**
+     * Calls the given consumer for all values, with their namespace.
+     */
+    public void forEach(BiConsumer<String, ? super V> consumer) {
+        for (int key = 0; key < keyCount; key++) {
+            String namespace = keyAt(key);
+            for (int offset = firstValueOffsets[key]; offset != NO_VALUE; offset = nextValueOffsets[offset]) {
+                consumer.accept(namespace, valueAt(offset));
+            }
+        }
+    }
+
+    private int findKey(String namespace) {
+        for (int slot = slotOf(namespace, keyTable.length); keyTable[slot] != 0; slot = (slot + 1) & (keyTable.length - 1)) {
+            if (namespace.equals(keyNamespaces[keyTable[slot] - 1])) {
+                return keyTable[slot] - 1;
+            }
+        }
+        return -1;
+    }
+
+    private int findOrAddKey(String namespace) {
+        int slot = slotOf(namespace, keyTable.length);
+        for (; keyTable[slot] != 0; slot = (slot + 1) & (keyTable.length - 1)) {
+            if (namespace.equals(keyNamespaces[keyTable[slot] - 1])) {
+                return keyTable[slot] - 1;
+            }
+        }
+
+        if (keyCount == keyNamespaces.length) {
+            keyNamespaces = Arrays.copyOf(keyNamespaces, keyCount * 2);
+            firstValueOffsets = Arrays.copyOf(firstValueOffsets, keyCount * 2);
+            lastValueOffsets = Arrays.copyOf(lastValueOffsets, keyCount * 2);
+        }
+        int key = keyCount++;
+        keyNamespaces[key] = NamespaceInterner.intern(namespace);
+        firstValueOffsets[key] = NO_VALUE;
+        lastValueOffsets[key] = NO_VALUE;
+        keyTable[slot] = key + 1;
+
+        if (keyCount * 2 > keyTable.length) {
+            rehash();
+        }
+        return key;
+    }
+
+    private void rehash() {
+        int[] newTable = new int[keyTable.length * 2];
+        for (int key = 0; key < keyCount; key++) {
+            int slot = slotOf(keyNamespaces[key], newTable.length);
+            while (newTable[slot] != 0) {
+                slot = (slot + 1) & (newTable.length - 1);
+            }
+            newTable[slot] = key + 1;
+        }
+        keyTable = newTable;
+    }
+
+    private static int slotOf(String namespace, int tableLength) {
+        int hash = namespace.hashCode() * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (tableLength - 1);
+    }
+}
@@ -0,0 +1,35 @@
+package de.veihelmann.closureplugin.utils;
+
+import java.util.NavigableSet;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+/**
+ * Prefix queries on sorted namespace collections. All strings starting with a given prefix form a contiguous range
+ * in sorted order, beginning at the prefix itself, so each query is a logarithmic lookup instead of a linear scan.
+ */
+public class NamespacePrefixes {
+
+    /**
+     * @return whether any of the given namespaces starts with the given prefix (including the prefix itself).
+     */
+    public static boolean isPrefixOfAny(SortedSet<String> sortedNamespaces, String prefix) {
+        SortedSet<String> tail = sortedNamespaces.tailSet(prefix);
+        return !tail.isEmpty() && tail.first().startsWith(prefix);
+    }
+
+    /**
+     * @return whether any key of the given map starts with the given prefix (including the prefix itself).
+     */
+    public static boolean isPrefixOfAnyKey(SortedMap<String, ?> sortedNamespaces, String prefix) {
+        SortedMap<String, ?> tail = sortedNamespaces.tailMap(prefix);
+        return !tail.isEmpty() && tail.firstKey().startsWith(prefix);
+    }
+
+    /**
+     * @return a view of all given namespaces starting with the given prefix, in sorted order.
+     */
+    public static NavigableSet<String> withPrefix(NavigableSet<String> sortedNamespaces, String prefix) {
+        return sortedNamespaces.subSet(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+}
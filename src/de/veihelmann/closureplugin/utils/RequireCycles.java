@@ -0,0 +1,263 @@
+package de.veihelmann.closureplugin.utils;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Finds goog.require cycles with Tarjan's algorithm for strongly connected components. The graph is explored lazily
+ * (via the given function returning the namespaces requiring a namespace), starting at the queried namespace, so only
+ * the part of the graph reachable from it is visited. Finished components are remembered, so later queries for any
+ * namespace visited before are answered without exploring the graph again.
+ * <p>
+ * When the requires of namespaces change, {@link #invalidate(Collection)} drops only the components which can reach
+ * one of them, as no other component can have changed.
+ * <p>
+ * Thread-safe: the graph is explored without holding a lock (so slow dependents lookups do not block other queries),
+ * only storing the found components is synchronized.
+ */
+public class RequireCycles {
+
+    /**
+     * A finished component, as seen by one of its members.
+     */
+    private static class ComponentMember {
+        final List<String> cycle;
+        /**
+         * The number of components stored before this one, so explorations only rely on components which were finished
+         * before they started.
+         */
+        final long sequenceNumber;
+
+        ComponentMember(List<String> cycle, long sequenceNumber) {
+            this.cycle = cycle;
+            this.sequenceNumber = sequenceNumber;
+        }
+    }
+
+    private final Function<String, Collection<String>> dependentsProvider;
+
+    /**
+     * Maps each visited namespace to its cycle (empty if the namespace is not part of a cycle).
+     */
+    private final Map<String, ComponentMember> membersByNamespace = new HashMap<>();
+
+    /**
+     * The explored edges of the visited namespaces, from the namespaces requiring them to the required ones, to find
+     * the components to drop on {@link #invalidate(Collection)}.
+     */
+    private final Map<String, Collection<String>> dependentsByNamespace = new HashMap<>();
+
+    private final Map<String, Set<String>> requiredByNamespace = new HashMap<>();
+
+    private long storedComponentCount;
+
+    /**
+     * Incremented by each invalidation, so explorations started before it do not store their outdated components.
+     */
+    private long generation;
+
+    /**
+     * @param dependentsProvider returns the namespaces which (directly) require the given namespace.
+     */
+    public RequireCycles(Function<String, Collection<String>> dependentsProvider) {
+        this.dependentsProvider = dependentsProvider;
+    }
+
+    /**
+     * @return a require cycle through the given namespace in require order, starting and ending with the namespace
+     * (e.g. [a, b, a] if a requires b and b requires a), or an empty list if the namespace is not part of a cycle.
+     */
+    public List<String> findCycle(String namespace) {
+        Exploration exploration;
+        synchronized (this) {
+            ComponentMember member = membersByNamespace.get(namespace);
+            if (member != null) {
+                return member.cycle;
+            }
+            exploration = new Exploration(storedComponentCount, generation);
+        }
+        return exploration.computeComponents(namespace);
+    }
+
+    /**
+     * Drops the components of the given namespaces, whose requiring namespaces changed, and of all namespaces which are
+     * (indirectly) required by them, i.e. all components which could become part of a new or broken cycle.
+     */
+    public synchronized void invalidate(Collection<String> changedNamespaces) {
+        generation++;
+        Deque<String> queue = new ArrayDeque<>(changedNamespaces);
+        while (!queue.isEmpty()) {
+            String namespace = queue.poll();
+            if (membersByNamespace.remove(namespace) == null) {
+                continue;
+            }
+            for (String dependent : dependentsByNamespace.remove(namespace)) {
+                Set<String> requiredNamespaces = requiredByNamespace.get(dependent);
+                if (requiredNamespaces != null) {
+                    requiredNamespaces.remove(namespace);
+                }
+            }
+            Set<String> requiredNamespaces = requiredByNamespace.remove(namespace);
+            if (requiredNamespaces != null) {
+                queue.addAll(requiredNamespaces);
+            }
+        }
+    }
+
+    /**
+     * Drops all components.
+     */
+    public synchronized void clear() {
+        generation++;
+        membersByNamespace.clear();
+        dependentsByNamespace.clear();
+        requiredByNamespace.clear();
+    }
+
+    /**
+     * @return whether the given namespace is part of a component that was finished before the exploration with the
+     * given start state began.
+     */
+    private synchronized boolean isFinishedBefore(String namespace, long explorationStart) {
+        ComponentMember member = membersByNamespace.get(namespace);
+        return member != null && member.sequenceNumber < explorationStart;
+    }
+
+    private synchronized void storeComponent(Set<String> component, Map<String, Collection<String>> dependents, long explorationGeneration) {
+        if (explorationGeneration != generation) {
+            // The explored graph may be outdated
+            return;
+        }
+        long sequenceNumber = storedComponentCount++;
+        for (String member : component) {
+            membersByNamespace.put(member, new ComponentMember(findCycleWithinComponent(member, component, dependents), sequenceNumber));
+            Collection<String> memberDependents = dependents.get(member);
+            dependentsByNamespace.put(member, memberDependents);
+            for (String dependent : memberDependents) {
+                requiredByNamespace.computeIfAbsent(dependent, key -> new HashSet<>()).add(member);
+            }
+        }
+    }
+
+    /**
+     * One run of the iterative variant of Tarjan's algorithm (to avoid stack overflows for long require chains),
+     * following the edges from required namespaces to the namespaces requiring them.
+     */
+    private class Exploration {
+        final long startSequenceNumber;
+        final long startGeneration;
+
+        final Map<String, Integer> indices = new HashMap<>();
+        final Map<String, Integer> lowLinks = new HashMap<>();
+        final Map<String, Collection<String>> dependents = new HashMap<>();
+        final Deque<String> componentStack = new ArrayDeque<>();
+        final Set<String> onComponentStack = new HashSet<>();
+
+        final Deque<String> callStack = new ArrayDeque<>();
+        final Deque<Iterator<String>> edgeIterators = new ArrayDeque<>();
+
+        Exploration(long startSequenceNumber, long startGeneration) {
+            this.startSequenceNumber = startSequenceNumber;
+            this.startGeneration = startGeneration;
+        }
+
+        /**
+         * @return the cycle of the given root, see {@link #findCycle(String)}.
+         */
+        List<String> computeComponents(String root) {
+            List<String> rootCycle = null;
+            open(root);
+            while (!callStack.isEmpty()) {
+                String node = callStack.peek();
+                Iterator<String> edges = edgeIterators.peek();
+
+                if (edges.hasNext()) {
+                    String next = edges.next();
+                    if (!indices.containsKey(next)) {
+                        if (!isFinishedBefore(next, startSequenceNumber)) {
+                            open(next);
+                        }
+                        // Otherwise part of a finished component, which cannot lead back to the current one
+                    } else if (onComponentStack.contains(next)) {
+                        lowLinks.put(node, Math.min(lowLinks.get(node), indices.get(next)));
+                    }
+                    continue;
+                }
+
+                callStack.pop();
+                edgeIterators.pop();
+                if (!callStack.isEmpty()) {
+                    String parent = callStack.peek();
+                    lowLinks.put(parent, Math.min(lowLinks.get(parent), lowLinks.get(node)));
+                }
+
+                if (lowLinks.get(node).equals(indices.get(node))) {
+                    Set<String> component = new HashSet<>();
+                    String member;
+                    do {
+                        member = componentStack.pop();
+                        onComponentStack.remove(member);
+                        component.add(member);
+                    } while (!member.equals(node));
+                    storeComponent(component, dependents, startGeneration);
+                    if (component.contains(root)) {
+                        rootCycle = findCycleWithinComponent(root, component, dependents);
+                    }
+                }
+            }
+            return rootCycle;
+        }
+
+        private void open(String node) {
+            int index = indices.size();
+            indices.put(node, index);
+            lowLinks.put(node, index);
+            componentStack.push(node);
+            onComponentStack.add(node);
+
+            Collection<String> nodeDependents = dependentsProvider.apply(node);
+            dependents.put(node, nodeDependents);
+            callStack.push(node);
+            edgeIterators.push(nodeDependents.iterator());
+        }
+    }
+
+    /**
+     * Breadth-first search for the shortest way back to the start within its component.
+     */
+    private static List<String> findCycleWithinComponent(String start, Set<String> component, Map<String, Collection<String>> dependents) {
+        Map<String, String> predecessors = new HashMap<>();
+        Deque<String> queue = new ArrayDeque<>();
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            String node = queue.poll();
+            for (String dependent : dependents.get(node)) {
+                if (!component.contains(dependent)) {
+                    continue;
+                }
+                if (dependent.equals(start)) {
+                    return toRequireOrder(start, node, predecessors);
+                }
+                if (!predecessors.containsKey(dependent)) {
+                    predecessors.put(dependent, node);
+                    queue.add(dependent);
+                }
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * The search follows 'is required by' edges, so the found path is reversed: the start requires the last node, which
+     * requires its predecessor and so on.
+     */
+    private static List<String> toRequireOrder(String start, String last, Map<String, String> predecessors) {
+        List<String> cycle = new ArrayList<>();
+        cycle.add(start);
+        for (String node = last; !node.equals(start); node = predecessors.get(node)) {
+            cycle.add(node);
+        }
+        cycle.add(start);
+        return cycle;
+    }
+}
@@ -0,0 +1,32 @@
+package de.veihelmann.closureplugin;
+
+import com.intellij.psi.PsiFile;
+import de.veihelmann.closureplugin.summary.DependencySummary;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+
+public class ClosureDependenciesExtractorTest extends LightFixtureTestBase {
+
+    @Test
+    public void typeRequiresAreCollectedSeparately() throws Throwable {
+        PsiFile file = configure("test.js", "goog.module('x.y.Z');\n"
+                + "\n"
+                + "const dom = goog.require('goog.dom');\n"
+                + "const Component = goog.requireType('goog.ui.Component');\n"
+                + "goog.forwardDeclare('goog.events.Event');\n"
+                + "\n"
+                + "exports = dom.getElement('z');\n");
+        onEdt(() -> {
+            ClosureDependenciesExtractor extractor = ClosureDependenciesExtractor.forFile(file);
+            assertEquals(singletonList("goog.dom"), asList(extractor.googRequires.keySet().toArray()));
+            assertEquals(asList("goog.ui.Component", "goog.events.Event"), asList(extractor.typeRequires.toArray()));
+
+            DependencySummary summary = DependencySummary.of(extractor);
+            assertEquals(singletonList("goog.dom"), summary.googRequires);
+            assertEquals(asList("goog.ui.Component", "goog.events.Event"), summary.typeRequires);
+        });
+    }
+}
@@ -0,0 +1,65 @@
+package de.veihelmann.closureplugin;
+
+import com.intellij.codeInsight.daemon.impl.HighlightInfo;
+import com.intellij.codeInspection.LocalInspectionTool;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the inspections based on the {@link ClosureFileAnalysis} report their problems, also in JavaScript files
+ * which are no .js files and in JavaScript embedded in HTML files (both have no Closure dependencies).
+ */
+public class FileAnalysisInspectionsTest extends LightFixtureTestBase {
+
+    @Test
+    public void useOfBracketNotation() throws Throwable {
+        String text = "var x = {};\nx['field'] = 1;\n";
+        assertReported(new UseOfBracketNotationInspection(), "test.js", text, "Access of property 'field' cannot be type-checked (bracket notation)");
+        assertReported(new UseOfBracketNotationInspection(), "test.ts", text, "Access of property 'field' cannot be type-checked (bracket notation)");
+        assertReported(new UseOfBracketNotationInspection(), "test.html", inScriptTag(text), "Access of property 'field' cannot be type-checked (bracket notation)");
+    }
+
+    @Test
+    public void misplacedTypeInComment() throws Throwable {
+        String text = "/**\n * @param name {string}\n */\nfunction greet(name) {}\n";
+        assertReported(new MisplacedTypeInCommentInspection(), "test.js", text, "Type and parameter name are in wrong order");
+        assertReported(new MisplacedTypeInCommentInspection(), "test.ts", text, "Type and parameter name are in wrong order");
+        assertReported(new MisplacedTypeInCommentInspection(), "test.html", inScriptTag(text), "Type and parameter name are in wrong order");
+    }
+
+    @Test
+    public void missingMethodComment() throws Throwable {
+        String text = "var x = {};\nx.Y = class {\n  run() {}\n};\n";
+        assertReported(new MissingMethodCommentInspection(), "test.js", text, "Method has no JSDoc comment");
+        assertReported(new MissingMethodCommentInspection(), "test.ts", text, "Method has no JSDoc comment");
+        assertReported(new MissingMethodCommentInspection(), "test.html", inScriptTag(text), "Method has no JSDoc comment");
+    }
+
+    @Test
+    public void convertToGoogModule() throws Throwable {
+        String text = "goog.provide('x.y.Z');\n\nx.y.Z = function() {};\n";
+        assertReported(new ConvertToGoogModuleInspection(), "test.js", text, "Convert to goog.module");
+        assertReported(new ConvertToGoogModuleInspection(), "test.ts", text, "Convert to goog.module");
+        assertReported(new ConvertToGoogModuleInspection(), "test.html", inScriptTag(text), "Convert to goog.module");
+    }
+
+    private static String inScriptTag(String text) {
+        return "<html>\n<body>\n<script>\n" + text + "</script>\n</body>\n</html>\n";
+    }
+
+    private void assertReported(LocalInspectionTool inspection, String fileName, String text, String expectedDescription) throws Throwable {
+        List<String> descriptions = new ArrayList<>();
+        onEdt(() -> {
+            fixture.enableInspections(inspection);
+            fixture.configureByText(fileName, text);
+            for (HighlightInfo info : fixture.doHighlighting()) {
+                descriptions.add(info.getDescription());
+            }
+        });
+        assertTrue(fileName + ": " + descriptions, descriptions.contains(expectedDescription));
+    }
+}
@@ -0,0 +1,130 @@
+package de.veihelmann.closureplugin;
+
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that re-extracting only the changed statements of a file gives the same result as extracting the whole file.
+ */
+public class IncrementalExtractionTest extends LightFixtureTestBase {
+
+    private static final String PROVIDE_FILE = "goog.provide('x.y.Z');\n"
+            + "\n"
+            + "goog.require('goog.dom');\n"
+            + "goog.require('goog.events.EventType');\n"
+            + "\n"
+            + "/**\n"
+            + " * @param {!goog.events.EventType} type\n"
+            + " * @constructor\n"
+            + " */\n"
+            + "x.y.Z = function(type) {\n"
+            + "  this.element = goog.dom.getElement('z');\n"
+            + "};\n";
+
+    private static final String MODULE_FILE = "goog.module('x.y.Z');\n"
+            + "\n"
+            + "const dom = goog.require('goog.dom');\n"
+            + "const EventType = goog.require('goog.events.EventType');\n"
+            + "\n"
+            + "class Z extends goog.events.EventTarget {\n"
+            + "  /** @param {!EventType} type */\n"
+            + "  listen(type) {\n"
+            + "    return dom.getElement('z');\n"
+            + "  }\n"
+            + "\n"
+            + "  /** @return {!Element} */\n"
+            + "  create() {\n"
+            + "    return dom.createDom('div');\n"
+            + "  }\n"
+            + "}\n"
+            + "\n"
+            + "exports = Z;\n";
+
+    private int fileCount;
+
+    @Test
+    public void editInsideRequire() throws Throwable {
+        assertIncrementalEqualsFull(PROVIDE_FILE, "goog.require('goog.", "goog.require('goog.".length(), "ui.");
+        assertIncrementalEqualsFull(MODULE_FILE, "const dom", "const ".length(), "my");
+    }
+
+    @Test
+    public void editBeforeRequires() throws Throwable {
+        assertIncrementalEqualsFull(PROVIDE_FILE, "\ngoog.require('goog.dom')", 0, "\ngoog.require('goog.array');");
+        assertIncrementalEqualsFull(MODULE_FILE, "\nconst dom", 0, "\nconst array = goog.require('goog.array');");
+    }
+
+    @Test
+    public void editAfterRequires() throws Throwable {
+        assertIncrementalEqualsFull(PROVIDE_FILE, "x.y.Z = function", 0, "goog.array.forEach([], goog.nullFunction);\n");
+        assertIncrementalEqualsFull(MODULE_FILE, "exports = Z;", 0, "const z = new goog.ui.Component();\n");
+    }
+
+    @Test
+    public void editInsideClassBody() throws Throwable {
+        assertIncrementalEqualsFull(MODULE_FILE, "return dom.getElement", "return ".length(), "goog.array.peek([]) || ");
+        assertIncrementalEqualsFull(MODULE_FILE, "\n  /** @return", 0, "\n  static create() {\n    return new goog.ui.Component();\n  }\n");
+        assertIncrementalEqualsFull(MODULE_FILE, "goog.events.EventTarget", 0, "goog.ui.Component || ");
+    }
+
+    /**
+     * Extracts the dependencies of the file, inserts the given text at the offset relative to the given anchor, and
+     * compares the incremental re-extraction with the extraction of a fresh copy of the changed file.
+     */
+    private void assertIncrementalEqualsFull(String text, String anchor, int offsetInAnchor, String insertedText) throws Throwable {
+        assertTrue(text.contains(anchor));
+        PsiFile file = configure("test" + fileCount++ + ".js", text);
+        onEdt(() -> {
+            ClosureFileAnalysis.forFile(file);
+
+            Document document = PsiDocumentManager.getInstance(file.getProject()).getDocument(file);
+            WriteCommandAction.runWriteCommandAction(file.getProject(), () ->
+                    document.insertString(text.indexOf(anchor) + offsetInAnchor, insertedText));
+            PsiDocumentManager.getInstance(file.getProject()).commitDocument(document);
+
+            ClosureFileAnalysis incremental = ClosureFileAnalysis.forFile(file);
+            // Copies are not physical, so their analysis never reuses previous pieces
+            ClosureFileAnalysis full = ClosureFileAnalysis.forFile((PsiFile) file.copy());
+            assertEquals(describe(full), describe(incremental));
+        });
+    }
+
+    private static String describe(ClosureFileAnalysis analysis) {
+        ClosureDependenciesExtractor extractor = analysis.dependencies;
+        StringBuilder description = new StringBuilder();
+        describe(description, "googRequires", extractor.googRequires);
+        describe(description, "googProvides", extractor.googProvides);
+        describe(description, "googModules", extractor.googModules);
+        for (String fullNamespace : new TreeSet<>(extractor.namespaceAliases.fullNamespaces())) {
+            description.append("alias ").append(fullNamespace).append(" = ").append(extractor.namespaceAliases.getShortReference(fullNamespace)).append('\n');
+        }
+        extractor.dependencies.forEach((namespace, element) -> describe(description, "dependency " + namespace, element));
+        extractor.getDuplicateGoogRequires().forEach((namespace, element) -> describe(description, "duplicateGoogRequire " + namespace, element));
+        extractor.getDuplicateGoogProvides().forEach((namespace, element) -> describe(description, "duplicateGoogProvide " + namespace, element));
+        description.append("namespacesInComments ").append(new TreeSet<>(extractor.namespacesInComments)).append('\n');
+        description.append("typeRequires ").append(extractor.typeRequires).append('\n');
+
+        analysis.classMethods.forEach(method -> describe(description, "classMethod", method));
+        analysis.paramTags.forEach(tag -> describe(description, "paramTag", tag));
+        analysis.bracketAccesses.forEach(access -> describe(description, "bracketAccess", access));
+        analysis.googProvideCalls.forEach(call -> describe(description, "googProvideCall", call));
+        return description.toString();
+    }
+
+    private static void describe(StringBuilder description, String name, Map<String, ? extends PsiElement> elements) {
+        elements.forEach((namespace, element) -> describe(description, name + " " + namespace, element));
+    }
+
+    private static void describe(StringBuilder description, String name, PsiElement element) {
+        description.append(name).append(" at ").append(element.getTextRange()).append(": ").append(element.getText()).append('\n');
+    }
+}
@@ -0,0 +1,44 @@
+package de.veihelmann.closureplugin;
+
+import com.intellij.psi.PsiFile;
+import com.intellij.testFramework.EdtTestUtil;
+import com.intellij.testFramework.LightProjectDescriptor;
+import com.intellij.testFramework.fixtures.CodeInsightTestFixture;
+import com.intellij.testFramework.fixtures.IdeaProjectTestFixture;
+import com.intellij.testFramework.fixtures.IdeaTestFixtureFactory;
+import com.intellij.testFramework.fixtures.TestFixtureBuilder;
+import com.intellij.util.ThrowableRunnable;
+import org.junit.After;
+import org.junit.Before;
+
+/**
+ * Base class for tests that need PSI, indexes or other IntelliJ services: starts a light IntelliJ test fixture (just
+ * like the benchmarks do) for each test. The fixture must be used on the EDT, see {@link #onEdt(ThrowableRunnable)}.
+ */
+public abstract class LightFixtureTestBase {
+
+    protected CodeInsightTestFixture fixture;
+
+    @Before
+    public void setUpFixture() throws Throwable {
+        TestFixtureBuilder<IdeaProjectTestFixture> projectBuilder =
+                IdeaTestFixtureFactory.getFixtureFactory().createLightFixtureBuilder(LightProjectDescriptor.EMPTY_PROJECT_DESCRIPTOR);
+        fixture = IdeaTestFixtureFactory.getFixtureFactory().createCodeInsightFixture(projectBuilder.getFixture());
+        onEdt(() -> fixture.setUp());
+    }
+
+    @After
+    public void tearDownFixture() throws Throwable {
+        onEdt(() -> fixture.tearDown());
+    }
+
+    protected static void onEdt(ThrowableRunnable<Throwable> runnable) throws Throwable {
+        EdtTestUtil.runInEdtAndWait(runnable);
+    }
+
+    protected PsiFile configure(String fileName, String text) throws Throwable {
+        PsiFile[] file = new PsiFile[1];
+        onEdt(() -> file[0] = fixture.configureByText(fileName, text));
+        return file[0];
+    }
+}
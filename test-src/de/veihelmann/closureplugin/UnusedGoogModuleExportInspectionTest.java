@@ -0,0 +1,61 @@
+package de.veihelmann.closureplugin;
+
+import com.intellij.codeInsight.daemon.impl.HighlightInfo;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+public class UnusedGoogModuleExportInspectionTest extends LightFixtureTestBase {
+
+    @Test
+    public void reportsOnlyExportsUnusedInOtherFiles() throws Throwable {
+        Set<String> descriptions = new TreeSet<>();
+        onEdt(() -> {
+            fixture.addFileToProject("destructuring.js", "goog.module('x.destructuring');\n"
+                    + "/** @suppress {extraRequire} */\n"
+                    + "const {create} = goog.require('x.foo');\n");
+            fixture.addFileToProject("moduleGet.js", "goog.provide('x.moduleGet');\n"
+                    + "x.moduleGet.run = function() {\n"
+                    + "  return goog.module.get('x.foo').helper;\n"
+                    + "};\n");
+            fixture.addFileToProject("typeUse.js", "goog.module('x.typeUse');\n"
+                    + "const foo = goog.require('x.foo');\n"
+                    + "/** @param {!foo.Type} type */\n"
+                    + "exports.use = function(type) {};\n");
+
+            fixture.enableInspections(new UnusedGoogModuleExportInspection());
+            fixture.configureByText("foo.js", "goog.module('x.foo');\n"
+                    + "exports.create = function() {};\n"
+                    + "exports.unused = 1;\n"
+                    + "exports = {helper: 2, Type: 3, other: 4};\n");
+            for (HighlightInfo info : fixture.doHighlighting()) {
+                if (info.getDescription() != null && info.getDescription().startsWith("Export ")) {
+                    descriptions.add(info.getDescription());
+                }
+            }
+        });
+        assertEquals(new TreeSet<>(asList("Export 'other' of 'x.foo' is not used in any other file",
+                "Export 'unused' of 'x.foo' is not used in any other file")), descriptions);
+    }
+
+    @Test
+    public void skipsModulesDeclaringLegacyNamespace() throws Throwable {
+        Set<String> descriptions = new TreeSet<>();
+        onEdt(() -> {
+            fixture.enableInspections(new UnusedGoogModuleExportInspection());
+            fixture.configureByText("foo.js", "goog.module('x.foo');\n"
+                    + "goog.module.declareLegacyNamespace();\n"
+                    + "exports.unused = 1;\n");
+            for (HighlightInfo info : fixture.doHighlighting()) {
+                if (info.getDescription() != null && info.getDescription().startsWith("Export ")) {
+                    descriptions.add(info.getDescription());
+                }
+            }
+        });
+        assertEquals(new TreeSet<String>(), descriptions);
+    }
+}
@@ -0,0 +1,69 @@
+package de.veihelmann.closureplugin;
+
+import com.intellij.analysis.AnalysisScope;
+import com.intellij.codeInspection.CommonProblemDescriptor;
+import com.intellij.codeInspection.InspectionManager;
+import com.intellij.codeInspection.QuickFix;
+import com.intellij.codeInspection.ex.GlobalInspectionToolWrapper;
+import com.intellij.codeInspection.ex.InspectionManagerEx;
+import com.intellij.testFramework.InspectionTestUtil;
+import com.intellij.testFramework.fixtures.impl.CodeInsightTestFixtureImpl;
+import com.intellij.testFramework.fixtures.impl.GlobalInspectionContextForTests;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+
+public class UnusedGoogNamespaceInspectionTest extends LightFixtureTestBase {
+
+    @Test
+    public void reportsNamespacesRequiredNowhere() throws Throwable {
+        Map<String, List<String>> fixesByProblem = new TreeMap<>();
+        onEdt(() -> {
+            fixture.addFileToProject("used.js", "goog.provide('x.used');\n");
+            fixture.addFileToProject("unused.js", "goog.provide('x.unused');\n");
+            fixture.addFileToProject("parent.js", "goog.provide('x.parent');\n");
+            fixture.addFileToProject("child.js", "goog.module('x.parent.Child');\n");
+            fixture.addFileToProject("typeOnly.js", "goog.module('x.typeOnly');\n");
+            fixture.addFileToProject("partly.js", "goog.provide('x.partly.A');\ngoog.provide('x.partly.B');\n");
+            fixture.addFileToProject("user.js", "goog.module('x.user');\n"
+                    + "goog.require('x.used');\n"
+                    + "goog.require('x.parent.Child');\n"
+                    + "goog.requireType('x.typeOnly');\n"
+                    + "goog.require('x.partly.B');\n");
+            // Requires the user, so only the unused namespaces above remain
+            fixture.addFileToProject("main.js", "goog.require('x.user');\n");
+
+            for (CommonProblemDescriptor problem : runInspection()) {
+                List<String> fixes = new ArrayList<>();
+                if (problem.getFixes() != null) {
+                    for (QuickFix fix : problem.getFixes()) {
+                        fixes.add(fix.getFamilyName());
+                    }
+                }
+                fixesByProblem.put(problem.getDescriptionTemplate(), fixes);
+            }
+        });
+
+        Map<String, List<String>> expected = new TreeMap<>();
+        expected.put("Namespace 'x.unused' is provided, but never required", asList("Delete unused file", "Mark as entry point"));
+        // The file also declares a required namespace, so it must not be deleted
+        expected.put("Namespace 'x.partly.A' is provided, but never required", singletonList("Mark as entry point"));
+        assertEquals(expected, fixesByProblem);
+    }
+
+    private List<CommonProblemDescriptor> runInspection() {
+        GlobalInspectionToolWrapper toolWrapper = new GlobalInspectionToolWrapper(new UnusedGoogNamespaceInspection());
+        AnalysisScope scope = new AnalysisScope(fixture.getProject());
+        GlobalInspectionContextForTests context = CodeInsightTestFixtureImpl.createGlobalContextForTool(scope, fixture.getProject(),
+                (InspectionManagerEx) InspectionManager.getInstance(fixture.getProject()), toolWrapper);
+        InspectionTestUtil.runTool(toolWrapper, scope, context);
+        return new ArrayList<>(context.getPresentation(toolWrapper).getProblemDescriptors());
+    }
+}
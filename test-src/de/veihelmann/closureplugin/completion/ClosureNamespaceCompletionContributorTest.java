@@ -0,0 +1,103 @@
+package de.veihelmann.closureplugin.completion;
+
+import com.intellij.codeInsight.lookup.Lookup;
+import com.intellij.codeInsight.lookup.LookupElement;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
+import de.veihelmann.closureplugin.LightFixtureTestBase;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class ClosureNamespaceCompletionContributorTest extends LightFixtureTestBase {
+
+    private PsiFile arrayFile;
+
+    @Before
+    public void addProvidingFiles() throws Throwable {
+        onEdt(() -> {
+            arrayFile = fixture.addFileToProject("array.js", "goog.provide('goog.array');\n");
+            fixture.addFileToProject("dom.js", "goog.provide('goog.dom');\n");
+            fixture.addFileToProject("events.js", "goog.module('goog.events');\n");
+            fixture.addFileToProject("z.js", "goog.module('x.y.Z');\n");
+        });
+    }
+
+    @Test
+    public void namespaceArgument() throws Throwable {
+        List<String> completions = complete("goog.provide('x.test');\n\ngoog.require('goog.<caret>');\n");
+        assertEquals(asList("goog.array", "goog.dom", "goog.events"), completions);
+    }
+
+    @Test
+    public void removedDeclarationIsNotCompletedAnyMore() throws Throwable {
+        assertTrue(complete("goog.require('goog.<caret>');\n").contains("goog.array"));
+
+        setArrayFileText("// No declaration anymore\n");
+        assertEquals(asList("goog.dom", "goog.events"), complete("goog.require('goog.<caret>');\n"));
+    }
+
+    @Test
+    public void declarationsOfRepeatedlyChangedFileAreUpdated() throws Throwable {
+        assertTrue(complete("goog.require('goog.<caret>');\n").contains("goog.array"));
+
+        setArrayFileText("goog.provide('goog.arrays');\n");
+        assertEquals(asList("goog.arrays", "goog.dom", "goog.events"), complete("goog.require('goog.<caret>');\n"));
+
+        setArrayFileText("goog.provide('goog.array');\n");
+        assertEquals(asList("goog.array", "goog.dom", "goog.events"), complete("goog.require('goog.<caret>');\n"));
+    }
+
+    @Test
+    public void namespacePart() throws Throwable {
+        List<String> completions = complete("goog.provide('x.test');\n\nx.test.run = function() {\n  goog.<caret>\n};\n");
+        assertTrue(completions.toString(), completions.containsAll(asList("array", "dom", "events")));
+    }
+
+    @Test
+    public void namespacePartAddsRequireInGoogModule() throws Throwable {
+        onEdt(() -> {
+            fixture.configureByText("test.js", "goog.module('x.test');\n\nexports = function() {\n  return goog.ar<caret>;\n};\n");
+            LookupElement[] elements = fixture.completeBasic();
+            if (elements != null) {
+                LookupElement arrayElement = null;
+                for (LookupElement element : elements) {
+                    if (element.getLookupString().equals("array")) {
+                        arrayElement = element;
+                    }
+                }
+                assertNotNull(arrayElement);
+                fixture.getLookup().setCurrentItem(arrayElement);
+                fixture.finishLookup(Lookup.NORMAL_SELECT_CHAR);
+            }
+            fixture.checkResult("goog.module('x.test');\n\nconst array = goog.require('goog.array');\n\nexports = function() {\n  return array;\n};\n");
+        });
+    }
+
+    private void setArrayFileText(String text) throws Throwable {
+        onEdt(() -> {
+            Document document = PsiDocumentManager.getInstance(fixture.getProject()).getDocument(arrayFile);
+            WriteCommandAction.runWriteCommandAction(fixture.getProject(), () -> document.setText(text));
+            PsiDocumentManager.getInstance(fixture.getProject()).commitAllDocuments();
+        });
+    }
+
+    private List<String> complete(String text) throws Throwable {
+        List<String> completions = new ArrayList<>();
+        onEdt(() -> {
+            fixture.configureByText("test.js", text);
+            fixture.completeBasic();
+            List<String> lookupStrings = fixture.getLookupElementStrings();
+            assertNotNull(lookupStrings);
+            completions.addAll(lookupStrings);
+        });
+        return completions;
+    }
+}
@@ -0,0 +1,101 @@
+package de.veihelmann.closureplugin.deps;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DepsManifestTest {
+
+    @Test
+    public void formatLine() {
+        assertEquals("goog.addDependency('x/y.js', ['x.y'], ['goog.dom', 'goog.events'], {});",
+                DepsManifest.formatLine("x/y.js", Collections.singletonList("x.y"), Arrays.asList("goog.dom", "goog.events"), false));
+        assertEquals("goog.addDependency('../a\\'b.js', ['a.B', 'a.C'], [], {'module': 'goog'});",
+                DepsManifest.formatLine("../a'b.js", Arrays.asList("a.B", "a.C"), Collections.emptyList(), true));
+    }
+
+    @Test
+    public void writesLinesSortedByPath() throws IOException {
+        DepsManifest<String> manifest = new DepsManifest<>();
+        manifest.put("b.js", Collections.singletonList("b"), Collections.singletonList("a"), false);
+        manifest.put("a.js", Collections.singletonList("a"), Collections.emptyList(), false);
+
+        StringWriter output = new StringWriter();
+        manifest.write(output);
+        assertEquals(DepsManifest.HEADER
+                + "goog.addDependency('a.js', ['a'], [], {});\n"
+                + "goog.addDependency('b.js', ['b'], ['a'], {});\n", output.toString());
+    }
+
+    @Test
+    public void reportsChanges() {
+        DepsManifest<String> manifest = new DepsManifest<>();
+        assertTrue(manifest.put("a.js", Collections.singletonList("a"), Collections.emptyList(), false));
+        assertFalse(manifest.put("a.js", Collections.singletonList("a"), Collections.emptyList(), false));
+        assertTrue(manifest.put("a.js", Collections.singletonList("a"), Collections.singletonList("b"), false));
+
+        assertTrue(manifest.remove("a.js"));
+        assertFalse(manifest.remove("a.js"));
+        assertEquals(0, manifest.size());
+    }
+
+    @Test
+    public void movedFileReplacesItsLine() throws IOException {
+        DepsManifest<String> manifest = new DepsManifest<>();
+        assertTrue(manifest.putFile("file", "a.js", Collections.singletonList("a"), Collections.emptyList(), false));
+        assertTrue(manifest.putFile("file", "x/a.js", Collections.singletonList("a"), Collections.emptyList(), false));
+
+        StringWriter output = new StringWriter();
+        manifest.write(output);
+        assertEquals(DepsManifest.HEADER + "goog.addDependency('x/a.js', ['a'], [], {});\n", output.toString());
+    }
+
+    @Test
+    public void movedFileWithUnchangedLineIsAChange() {
+        DepsManifest<String> manifest = new DepsManifest<>();
+        manifest.putFile("file", "a.js", Collections.singletonList("a"), Collections.emptyList(), false);
+        manifest.put("x/a.js", Collections.singletonList("a"), Collections.emptyList(), false);
+
+        assertTrue(manifest.putFile("file", "x/a.js", Collections.singletonList("a"), Collections.emptyList(), false));
+        assertEquals(1, manifest.size());
+    }
+
+    @Test
+    public void removesFileWhichStoppedDeclaringNamespaces() {
+        DepsManifest<String> manifest = new DepsManifest<>();
+        manifest.putFile("file", "a.js", Collections.singletonList("a"), Collections.emptyList(), false);
+        manifest.putFile("other", "b.js", Collections.singletonList("b"), Collections.emptyList(), false);
+
+        // Same path as before
+        assertTrue(manifest.removeFile("file"));
+        assertFalse(manifest.removeFile("file"));
+        assertEquals(1, manifest.size());
+    }
+
+    @Test
+    public void removesDeletedFileAfterMove() {
+        DepsManifest<String> manifest = new DepsManifest<>();
+        manifest.putFile("file", "a.js", Collections.singletonList("a"), Collections.emptyList(), false);
+        manifest.putFile("file", "x/a.js", Collections.singletonList("a"), Collections.emptyList(), false);
+
+        assertTrue(manifest.removeFile("file"));
+        assertEquals(0, manifest.size());
+        assertFalse(manifest.remove("a.js"));
+    }
+
+    @Test
+    public void clearForgetsFiles() {
+        DepsManifest<String> manifest = new DepsManifest<>();
+        manifest.putFile("file", "a.js", Collections.singletonList("a"), Collections.emptyList(), false);
+        manifest.clear();
+
+        assertFalse(manifest.removeFile("file"));
+    }
+}
@@ -0,0 +1,46 @@
+package de.veihelmann.closureplugin.fixes;
+
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
+import de.veihelmann.closureplugin.LightFixtureTestBase;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests {@link GoogRequireBlock#addRequire(PsiFile, Document, String)}.
+ */
+public class AddRequireTest extends LightFixtureTestBase {
+
+    @Test
+    public void addsToExistingRequiresInOrder() throws Throwable {
+        assertAddRequire("goog.provide('x.y.Z');\n\ngoog.require('goog.dom');\n\nx.y.Z = function() {\n  goog.array.peek([]);\n};\n",
+                "goog.array",
+                "goog.provide('x.y.Z');\n\ngoog.require('goog.array');\ngoog.require('goog.dom');\n\nx.y.Z = function() {\n  goog.array.peek([]);\n};\n");
+    }
+
+    @Test
+    public void insertsAfterGoogModuleWithShortReference() throws Throwable {
+        assertAddRequire("goog.module('x.y.Z');\n\nexports = function() {\n  return goog.array.peek([]);\n};\n",
+                "goog.array",
+                "goog.module('x.y.Z');\n\nconst array = goog.require('goog.array');\n\nexports = function() {\n  return array.peek([]);\n};\n");
+    }
+
+    @Test
+    public void keepsCommentsWithTheirRequires() throws Throwable {
+        assertAddRequire("goog.provide('x.y.Z');\n\ngoog.require('goog.dom');\n// For the listeners\ngoog.require('goog.events');  // Events\n\nx.y.Z = 1;\n",
+                "goog.array",
+                "goog.provide('x.y.Z');\n\ngoog.require('goog.array');\ngoog.require('goog.dom');\n// For the listeners\ngoog.require('goog.events'); // Events\n\nx.y.Z = 1;\n");
+    }
+
+    private void assertAddRequire(String text, String namespace, String expectedText) throws Throwable {
+        PsiFile file = configure("test.js", text);
+        onEdt(() -> {
+            Document document = PsiDocumentManager.getInstance(file.getProject()).getDocument(file);
+            WriteCommandAction.runWriteCommandAction(file.getProject(), () -> GoogRequireBlock.addRequire(file, document, namespace));
+            assertEquals(expectedText, document.getText());
+        });
+    }
+}
@@ -1,11 +1,13 @@
 package de.veihelmann.closureplugin.fixes;
 
+import com.intellij.openapi.util.TextRange;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.*;
 
 import static org.junit.Assert.assertEquals;
 
@@ -28,6 +30,42 @@ public class FixUtilsTest {
         assertNamespaceSuggestion("goog.dragger.EventType", "EventType");
     }
 
+    @Test
+    public void collectQualifierNames() {
+        Set<String> qualifierNames = FixUtils.collectQualifierNames(" goog.dom.getElement(x.y, a.b);\nconst c = d.e.f; // g.h\n");
+        assertEquals(new HashSet<>(Arrays.asList("goog", "x", "a", "d", "g")), qualifierNames);
+    }
+
+    @Test
+    public void findSafeReferenceForGoogRequireWithQualifierNames() {
+        Set<String> qualifierNames = new HashSet<>(Arrays.asList("goog", "x"));
+        assertEquals("strings", FixUtils.findSafeReferenceForGoogRequire(qualifierNames, "goog.string"));
+        assertEquals("StructsMap", FixUtils.findSafeReferenceForGoogRequire(qualifierNames, "goog.structs.Map"));
+        assertEquals("array", FixUtils.findSafeReferenceForGoogRequire(qualifierNames, "goog.array"));
+        assertEquals("EventType", FixUtils.findSafeReferenceForGoogRequire(qualifierNames, "goog.events.EventType"));
+        assertEquals("EventType", FixUtils.findSafeReferenceForGoogRequire(qualifierNames, "goog.dragger.EventType"));
+    }
+
+    @Test
+    public void findSafeReferenceForGoogRequireAvoidsQualifierNames() {
+        Set<String> qualifierNames = new HashSet<>(Arrays.asList("goog", "array", "EventType"));
+        assertEquals("strings", FixUtils.findSafeReferenceForGoogRequire(qualifierNames, "goog.string"));
+        assertEquals("goog_array", FixUtils.findSafeReferenceForGoogRequire(qualifierNames, "goog.array"));
+        assertEquals("Events_EventType", FixUtils.findSafeReferenceForGoogRequire(qualifierNames, "goog.events.EventType"));
+    }
+
+    @Test
+    public void findNamespaceReferencesPrefersLongestNamespace() {
+        String text = "goog.require('goog.dom');\nnew goog.dom.classlist.Foo(goog.dom.x, this.goog.dom);\n/** @type {!goog.dom.classlist} */";
+        Map<TextRange, String> references = FixUtils.findNamespaceReferences(text, new HashSet<>(Arrays.asList("goog.dom", "goog.dom.classlist")));
+
+        assertEquals(Arrays.asList("goog.dom.classlist", "goog.dom", "goog.dom.classlist"), new ArrayList<>(references.values()));
+        for (Map.Entry<TextRange, String> reference : references.entrySet()) {
+            TextRange range = reference.getKey();
+            assertEquals(reference.getValue(), text.substring(range.getStartOffset(), range.getEndOffset()));
+        }
+    }
+
     private void assertNamespaceSuggestion(String inputNamespace, String expectedShortNamespace) {
         assertEquals(expectedShortNamespace, FixUtils.findSafeReferenceForGoogRequire(testDocument, inputNamespace));
     }
@@ -0,0 +1,50 @@
+package de.veihelmann.closureplugin.fixes;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GoogRequireBlockTest {
+
+    @Test
+    public void findTrailingCommentEnd() {
+        String line = "goog.require('a.b'); // for a.b.c\ngoog.require('c');";
+        int statementEnd = line.indexOf(';') + 1;
+        assertEquals(line.indexOf('\n'), GoogRequireBlock.findTrailingCommentEnd(line, statementEnd));
+
+        line = "goog.require('a.b');  /* why */\n";
+        statementEnd = line.indexOf(';') + 1;
+        assertEquals(line.indexOf('\n'), GoogRequireBlock.findTrailingCommentEnd(line, statementEnd));
+    }
+
+    @Test
+    public void findTrailingCommentEndWithoutComment() {
+        String line = "goog.require('a.b');\n// Comment of the next line\n";
+        int statementEnd = line.indexOf(';') + 1;
+        assertEquals(statementEnd, GoogRequireBlock.findTrailingCommentEnd(line, statementEnd));
+
+        // Block comments spanning several lines belong to the next statement
+        line = "goog.require('a.b'); /*\n * Comment\n */\n";
+        assertEquals(statementEnd, GoogRequireBlock.findTrailingCommentEnd(line, statementEnd));
+    }
+
+    @Test
+    public void containsCode() {
+        assertFalse(containsCode("\n\n"));
+        assertFalse(containsCode("// Comment\n"));
+        assertFalse(containsCode("/**\n * @suppress {extraRequire}\n */\n"));
+        assertFalse(containsCode("// Comment /* not closed\n\n/* other */ // end\n"));
+
+        assertTrue(containsCode("goog.setTestOnly();\n"));
+        assertTrue(containsCode("// Comment\nwindow.x = 1;\n"));
+        assertTrue(containsCode("/* not closed\n"));
+    }
+
+    private static boolean containsCode(String gap) {
+        String text = "goog.require('a');\n" + gap + "goog.require('b');\n";
+        int gapStart = text.indexOf('\n') + 1;
+        return GoogRequireBlock.containsCode(text, gapStart, gapStart + gap.length());
+    }
+}
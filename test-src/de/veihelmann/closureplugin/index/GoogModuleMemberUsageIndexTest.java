@@ -0,0 +1,51 @@
+package de.veihelmann.closureplugin.index;
+
+import com.intellij.psi.PsiFile;
+import de.veihelmann.closureplugin.LightFixtureTestBase;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+public class GoogModuleMemberUsageIndexTest extends LightFixtureTestBase {
+
+    @Test
+    public void accessesViaShortReference() throws Throwable {
+        assertUsages("goog.module('x.user');\n"
+                        + "const foo = goog.require('x.foo');\n"
+                        + "const bar = goog.require('x.bar');\n"
+                        + "/** @type {!foo.Type} */\n"
+                        + "const value = foo.create();\n"
+                        + "use(bar);\n",
+                "x.bar#*", "x.foo#Type", "x.foo#create");
+    }
+
+    @Test
+    public void destructuredMembers() throws Throwable {
+        assertUsages("goog.module('x.user');\n"
+                        + "const {create, Type: FooType} = goog.require('x.foo');\n"
+                        + "/** @suppress {extraRequire} */\n"
+                        + "const {helper} = goog.require('x.bar');\n",
+                "x.bar#helper", "x.foo#Type", "x.foo#create");
+    }
+
+    @Test
+    public void accessesViaModuleGet() throws Throwable {
+        assertUsages("goog.provide('x.user');\n"
+                        + "x.user.run = function() {\n"
+                        + "  goog.module.get('x.foo').create();\n"
+                        + "  use(goog.module.get('x.bar'));\n"
+                        + "};\n",
+                "x.bar#*", "x.foo#create");
+    }
+
+    private void assertUsages(String text, String... expectedUsageKeys) throws Throwable {
+        PsiFile file = configure("user.js", text);
+        Set<String> usageKeys = new TreeSet<>();
+        onEdt(() -> GoogModuleMemberUsageIndex.collectUsages(file, usageKeys));
+        assertEquals(new TreeSet<>(asList(expectedUsageKeys)), usageKeys);
+    }
+}
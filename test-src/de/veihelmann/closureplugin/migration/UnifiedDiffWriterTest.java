@@ -0,0 +1,60 @@
+package de.veihelmann.closureplugin.migration;
+
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import de.veihelmann.closureplugin.LightFixtureTestBase;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+
+public class UnifiedDiffWriterTest extends LightFixtureTestBase {
+
+    @Test
+    public void changedLine() throws IOException {
+        assertEquals("--- a/x.js\n+++ b/x.js\n"
+                        + "@@ -1,3 +1,3 @@\n a\n-b\n+c\n d\n",
+                diff("a\nb\nd\n", "a\nc\nd\n"));
+    }
+
+    @Test
+    public void unchangedText() throws IOException {
+        assertEquals("", diff("a\nb\n", "a\nb\n"));
+        assertEquals("", diff("a\nb", "a\nb"));
+    }
+
+    @Test
+    public void addedNewlineAtEnd() throws IOException {
+        assertEquals("--- a/x.js\n+++ b/x.js\n"
+                        + "@@ -1,2 +1,2 @@\n a\n-b\n\\ No newline at end of file\n+b\n",
+                diff("a\nb", "a\nb\n"));
+    }
+
+    @Test
+    public void removedNewlineAtEnd() throws IOException {
+        assertEquals("--- a/x.js\n+++ b/x.js\n"
+                        + "@@ -1,2 +1,2 @@\n a\n-b\n+b\n\\ No newline at end of file\n",
+                diff("a\nb\n", "a\nb"));
+    }
+
+    @Test
+    public void unchangedLastLineWithoutNewline() throws IOException {
+        assertEquals("--- a/x.js\n+++ b/x.js\n"
+                        + "@@ -1,2 +1,2 @@\n-a\n+c\n b\n\\ No newline at end of file\n",
+                diff("a\nb", "c\nb"));
+    }
+
+    @Test
+    public void emptyText() throws IOException {
+        assertEquals("--- a/x.js\n+++ b/x.js\n"
+                        + "@@ -0,0 +1,1 @@\n+a\n",
+                diff("", "a\n"));
+    }
+
+    private static String diff(String before, String after) throws IOException {
+        StringWriter output = new StringWriter();
+        new UnifiedDiffWriter(output).writeFileDiff("x.js", before, after, new EmptyProgressIndicator());
+        return output.toString();
+    }
+}
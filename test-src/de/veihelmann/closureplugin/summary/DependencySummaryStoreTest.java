@@ -0,0 +1,151 @@
+package de.veihelmann.closureplugin.summary;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.*;
+
+public class DependencySummaryStoreTest {
+
+    private Path directory;
+
+    private Path storeFile;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("summaries");
+        storeFile = directory.resolve("store.dat");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        Files.deleteIfExists(storeFile);
+        Files.deleteIfExists(directory);
+    }
+
+    @Test
+    public void summariesArePersisted() throws IOException {
+        ContentHash first = hash("goog.provide('x.y.Z');");
+        ContentHash second = hash("goog.module('x.y.Module');");
+        try (DependencySummaryStore store = DependencySummaryStore.open(storeFile, 1)) {
+            store.put(first, summary("x.y.Z"));
+            store.put(second, summary("x.y.Module"));
+            assertEquals(summary("x.y.Z"), store.get(first));
+        }
+
+        try (DependencySummaryStore store = DependencySummaryStore.open(storeFile, 1)) {
+            assertEquals(2, store.size());
+            assertEquals(summary("x.y.Z"), store.get(first));
+            assertEquals(summary("x.y.Module"), store.get(second));
+            assertNull(store.get(hash("other content")));
+        }
+    }
+
+    @Test
+    public void incompleteRecordIsDropped() throws IOException {
+        ContentHash first = hash("first");
+        try (DependencySummaryStore store = DependencySummaryStore.open(storeFile, 1)) {
+            store.put(first, summary("x.First"));
+            store.put(hash("second"), summary("x.Second"));
+        }
+        try (RandomAccessFile file = new RandomAccessFile(storeFile.toFile(), "rw")) {
+            file.setLength(file.length() - 3);
+        }
+
+        try (DependencySummaryStore store = DependencySummaryStore.open(storeFile, 1)) {
+            assertEquals(1, store.size());
+            assertEquals(summary("x.First"), store.get(first));
+            store.put(hash("third"), summary("x.Third"));
+        }
+        try (DependencySummaryStore store = DependencySummaryStore.open(storeFile, 1)) {
+            assertEquals(summary("x.Third"), store.get(hash("third")));
+        }
+    }
+
+    @Test
+    public void invalidFileIsReplaced() throws IOException {
+        Files.write(storeFile, "not a store".getBytes(StandardCharsets.UTF_8));
+        try (DependencySummaryStore store = DependencySummaryStore.open(storeFile, 1)) {
+            assertEquals(0, store.size());
+        }
+    }
+
+    @Test
+    public void appendedSummariesAreReadFromFile() throws IOException {
+        try (DependencySummaryStore store = DependencySummaryStore.open(storeFile, 1)) {
+            store.put(hash("first"), summary("x.First"));
+        }
+        try (DependencySummaryStore store = DependencySummaryStore.open(storeFile, 1)) {
+            store.put(hash("second"), summary("x.Second"));
+            store.put(hash("third"), summary("x.Third"));
+            assertEquals(3, store.size());
+            assertEquals(summary("x.First"), store.get(hash("first")));
+            assertEquals(summary("x.Second"), store.get(hash("second")));
+            assertEquals(summary("x.Third"), store.get(hash("third")));
+        }
+    }
+
+    @Test
+    public void otherContentVersionIsDropped() throws IOException {
+        try (DependencySummaryStore store = DependencySummaryStore.open(storeFile, 1)) {
+            store.put(hash("first"), summary("x.First"));
+        }
+        try (DependencySummaryStore store = DependencySummaryStore.open(storeFile, 2)) {
+            assertEquals(0, store.size());
+            assertNull(store.get(hash("first")));
+        }
+    }
+
+    @Test
+    public void fullStoreStopsGrowingAndIsStartedFromScratch() throws IOException {
+        long maxFileSize = 1024;
+        try (DependencySummaryStore store = DependencySummaryStore.open(storeFile, 1, maxFileSize)) {
+            for (int i = 0; i < 100; i++) {
+                store.put(hash("content " + i), summary("x.Summary" + i));
+            }
+            assertTrue(store.size() < 100);
+            assertEquals(summary("x.Summary0"), store.get(hash("content 0")));
+            assertNull(store.get(hash("content 99")));
+        }
+        assertTrue(Files.size(storeFile) <= maxFileSize);
+
+        try (DependencySummaryStore store = DependencySummaryStore.open(storeFile, 1, maxFileSize)) {
+            assertEquals(0, store.size());
+        }
+    }
+
+    @Test
+    public void contentHashesDependOnContentOnly() {
+        assertEquals(hash("content"), hash("content"));
+        assertNotEquals(hash("content"), hash("content "));
+    }
+
+    @Test
+    public void contentHashesDependOnFileType() {
+        assertEquals(ContentHash.of("JavaScript", "content"), ContentHash.of("JavaScript", "content"));
+        assertNotEquals(ContentHash.of("JavaScript", "content"), ContentHash.of("TypeScript", "content"));
+        assertNotEquals(ContentHash.of("JavaScript", "content"), hash("content"));
+    }
+
+    private static ContentHash hash(String content) {
+        return ContentHash.of(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static DependencySummary summary(String providedNamespace) {
+        Map<String, String> aliases = new TreeMap<>();
+        aliases.put("goog.events.EventType", "EventType");
+        return new DependencySummary(asList("goog.dom", "goog.events.EventType"), singletonList(providedNamespace), emptyList(), aliases,
+                singletonList("goog.dom"), new HashSet<>(asList("goog", "goog.events")), singletonList("goog.ui.Component"));
+    }
+}
@@ -0,0 +1,58 @@
+package de.veihelmann.closureplugin.utils;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ClosureTypeParserTest {
+
+    @Test
+    public void namesAndTypeArguments() {
+        assertEquals(asList("Array", "ts.my.Namespace"), ClosureTypeParser.parseTypeNames("Array<!ts.my.Namespace>"));
+        assertEquals(asList("Object", "string", "x.y.Z"), ClosureTypeParser.parseTypeNames("Object<string, x.y.Z>"));
+        assertEquals(asList("Array", "x.y.Z"), ClosureTypeParser.parseTypeNames("Array.<x.y.Z>"));
+    }
+
+    @Test
+    public void unionsAndModifiers() {
+        assertEquals(asList("x.A", "x.B", "undefined"), ClosureTypeParser.parseTypeNames("?x.A|(!x.B|undefined)"));
+        assertEquals(asList("x.A", "x.B"), ClosureTypeParser.parseTypeNames("(x.A|x.B)="));
+        assertEquals(asList("number"), ClosureTypeParser.parseTypeNames("...number"));
+        assertEquals(asList("string"), ClosureTypeParser.parseTypeNames("string?"));
+        assertEquals(emptyList(), ClosureTypeParser.parseTypeNames("?"));
+        assertEquals(emptyList(), ClosureTypeParser.parseTypeNames("*"));
+    }
+
+    @Test
+    public void recordsDoNotReportFieldNames() {
+        assertEquals(asList("string", "x.y.Handler"), ClosureTypeParser.parseTypeNames("{name: string, 'handler': x.y.Handler}"));
+        assertEquals(asList("Array", "number"), ClosureTypeParser.parseTypeNames("Array<{count: number, flag}>"));
+    }
+
+    @Test
+    public void functionTypes() {
+        assertEquals(asList("x.Owner", "number", "string", "x.Result"),
+                ClosureTypeParser.parseTypeNames("function(this:x.Owner, number=, ...string): ?x.Result"));
+        assertEquals(asList("x.Created"), ClosureTypeParser.parseTypeNames("function(new:x.Created)"));
+        assertEquals(asList("x.y.Z"), ClosureTypeParser.parseTypeNames("typeof x.y.Z"));
+    }
+
+    @Test
+    public void malformedExpressions() {
+        assertEquals(asList("x.A"), ClosureTypeParser.parseTypeNames("x.A<"));
+        assertEquals(asList("x.B"), ClosureTypeParser.parseTypeNames("}>x.B"));
+        assertEquals(asList("x.C", "x.D"), ClosureTypeParser.parseTypeNames("function(x.C: x.D"));
+    }
+
+    @Test
+    public void namesAreInterned() {
+        List<String> first = ClosureTypeParser.parseTypeNames("x.y.Z");
+        List<String> second = ClosureTypeParser.parseTypeNames("Array<x.y.Z>");
+        assertSame(first.get(0), second.get(1));
+    }
+}
@@ -0,0 +1,58 @@
+package de.veihelmann.closureplugin.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class NamespaceAliasesTest {
+
+    @Test
+    public void resolveAndNormalize() {
+        NamespaceAliases aliases = new NamespaceAliases();
+        aliases.put("goog.events.EventType", "EventType");
+        aliases.put("goog.structs.Map", "StructsMap");
+
+        assertEquals("goog.events.EventType", aliases.resolveAndNormalize("EventType"));
+        assertEquals("goog.structs.Map", aliases.resolveAndNormalize("StructsMap"));
+        assertEquals("goog.array", aliases.resolveAndNormalize("goog.array"));
+        assertEquals("goog.array", aliases.resolveAndNormalize("goog\n    .array"));
+        assertNull(aliases.resolveAndNormalize(null));
+    }
+
+    @Test
+    public void reRegisteringANamespaceReplacesItsShortReference() {
+        NamespaceAliases aliases = new NamespaceAliases();
+        aliases.put("goog.events.EventType", "EventType");
+        aliases.put("goog.events.EventType", "Events");
+
+        assertEquals("Events", aliases.getShortReference("goog.events.EventType"));
+        assertEquals("goog.events.EventType", aliases.getFullNamespace("Events"));
+        assertNull(aliases.getFullNamespace("EventType"));
+    }
+
+    @Test
+    public void fingerprintDependsOnContentOnly() {
+        NamespaceAliases aliases = new NamespaceAliases();
+        aliases.put("goog.events.EventType", "EventType");
+        aliases.put("goog.structs.Map", "StructsMap");
+
+        NamespaceAliases otherAliases = new NamespaceAliases();
+        otherAliases.put("goog.structs.Map", "Map");
+        otherAliases.put("goog.structs.Map", "StructsMap");
+        otherAliases.put("goog.events.EventType", "EventType");
+        assertEquals(aliases.fingerprint(), otherAliases.fingerprint());
+
+        NamespaceAliases copy = new NamespaceAliases(aliases);
+        assertEquals(aliases.fingerprint(), copy.fingerprint());
+        copy.put("goog.array", "array");
+        assertNotEquals(aliases.fingerprint(), copy.fingerprint());
+        assertNull(aliases.getFullNamespace("array"));
+    }
+
+    @Test
+    public void normalizeNamespaceKeepsInstanceWithoutWhitespace() {
+        String namespace = "x.y.Z";
+        assertSame(namespace, NamespaceAliases.normalizeNamespace(namespace));
+        assertEquals("x.y.Z", NamespaceAliases.normalizeNamespace(" x.\r\n\ty.Z "));
+    }
+}
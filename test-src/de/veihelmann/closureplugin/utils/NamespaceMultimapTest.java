@@ -0,0 +1,74 @@
+package de.veihelmann.closureplugin.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.*;
+
+public class NamespaceMultimapTest {
+
+    @Test
+    public void valuesAreKeptInInsertionOrder() {
+        NamespaceMultimap<Integer> map = new NamespaceMultimap<>();
+        map.put("x.y.Z", 1);
+        map.put("goog.dom", 2);
+        map.put("x.y.Z", 3);
+
+        assertEquals(asList("x.y.Z", "goog.dom"), map.keys());
+        assertEquals(asList(1, 3), map.get("x.y.Z"));
+        assertEquals(asList(2), map.get("goog.dom"));
+        assertTrue(map.containsKey("goog.dom"));
+    }
+
+    @Test
+    public void absentKeys() {
+        NamespaceMultimap<Integer> map = new NamespaceMultimap<>();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey("never.seen.Namespace"));
+        assertSame(emptyList(), map.get("never.seen.Namespace"));
+    }
+
+    @Test
+    public void iterationByOffsets() {
+        NamespaceMultimap<String> map = new NamespaceMultimap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put("ns" + (i % 30), "value" + i);
+        }
+
+        assertEquals(30, map.keyCount());
+        List<String> valuesOfFirstKey = new ArrayList<>();
+        for (int offset = map.firstValueOffset(0); offset != NamespaceMultimap.NO_VALUE; offset = map.nextValueOffset(offset)) {
+            valuesOfFirstKey.add(map.valueAt(offset));
+        }
+        assertEquals("ns0", map.keyAt(0));
+        assertEquals(asList("value0", "value30", "value60", "value90"), valuesOfFirstKey);
+        assertEquals(map.get("ns29"), asList("value29", "value59", "value89"));
+    }
+
+    @Test
+    public void putAll() {
+        NamespaceMultimap<Integer> first = new NamespaceMultimap<>();
+        first.put("a", 1);
+        NamespaceMultimap<Integer> second = new NamespaceMultimap<>();
+        second.put("b", 2);
+        second.put("a", 3);
+
+        first.putAll(second);
+        assertEquals(asList("a", "b"), first.keys());
+        assertEquals(asList(1, 3), first.get("a"));
+    }
+
+    @Test
+    public void keysAreInterned() {
+        String namespace = NamespaceInterner.intern(new String("x.y.Interned"));
+        assertSame(namespace, NamespaceInterner.intern(new String("x.y.Interned")));
+
+        NamespaceMultimap<Integer> map = new NamespaceMultimap<>();
+        map.put(new String("x.y.Interned"), 1);
+        assertSame(namespace, map.keyAt(0));
+    }
+}
@@ -0,0 +1,40 @@
+package de.veihelmann.closureplugin.utils;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NamespacePrefixesTest {
+
+    private final TreeSet<String> namespaces = new TreeSet<>(Arrays.asList("goog.dom", "goog.dom.classlist", "x.y.Z", "x.y.Z.Inner", "x.yy"));
+
+    @Test
+    public void isPrefixOfAny() {
+        assertTrue(NamespacePrefixes.isPrefixOfAny(namespaces, "x.y"));
+        assertTrue(NamespacePrefixes.isPrefixOfAny(namespaces, "x.y.Z"));
+        assertTrue(NamespacePrefixes.isPrefixOfAny(namespaces, "goog.dom.class"));
+        assertFalse(NamespacePrefixes.isPrefixOfAny(namespaces, "x.y.Z.Other"));
+        assertFalse(NamespacePrefixes.isPrefixOfAny(namespaces, "a"));
+        assertFalse(NamespacePrefixes.isPrefixOfAny(namespaces, "z"));
+    }
+
+    @Test
+    public void isPrefixOfAnyKey() {
+        SortedMap<String, Object> map = new TreeMap<>();
+        namespaces.forEach(namespace -> map.put(namespace, null));
+
+        assertTrue(NamespacePrefixes.isPrefixOfAnyKey(map, "x.y"));
+        assertFalse(NamespacePrefixes.isPrefixOfAnyKey(map, "goog.events"));
+        assertFalse(NamespacePrefixes.isPrefixOfAnyKey(new TreeMap<>(), "goog"));
+    }
+
+    @Test
+    public void withPrefix() {
+        assertEquals(Arrays.asList("x.y.Z", "x.y.Z.Inner", "x.yy"), new ArrayList<>(NamespacePrefixes.withPrefix(namespaces, "x.y")));
+        assertTrue(NamespacePrefixes.withPrefix(namespaces, "ts.").isEmpty());
+    }
+}
@@ -0,0 +1,86 @@
+package de.veihelmann.closureplugin.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertEquals;
+
+public class RequireCyclesTest {
+
+    private final Map<String, Set<String>> dependents = new HashMap<>();
+
+    private final List<String> queriedNamespaces = new ArrayList<>();
+
+    private RequireCycles requireCycles;
+
+    @Before
+    public void setup() {
+        // a -> b -> c -> a, c -> d, d -> e, e -> e, f -> a
+        addRequire("a", "b");
+        addRequire("b", "c");
+        addRequire("c", "a");
+        addRequire("c", "d");
+        addRequire("d", "e");
+        addRequire("e", "e");
+        addRequire("f", "a");
+
+        requireCycles = new RequireCycles(namespace -> {
+            queriedNamespaces.add(namespace);
+            return dependents.getOrDefault(namespace, Collections.emptySet());
+        });
+    }
+
+    private void addRequire(String requiringNamespace, String requiredNamespace) {
+        dependents.computeIfAbsent(requiredNamespace, key -> new TreeSet<>()).add(requiringNamespace);
+    }
+
+    @Test
+    public void findCycle() {
+        assertEquals(asList("a", "b", "c", "a"), requireCycles.findCycle("a"));
+        assertEquals(asList("b", "c", "a", "b"), requireCycles.findCycle("b"));
+        assertEquals(asList("e", "e"), requireCycles.findCycle("e"));
+        assertEquals(emptyList(), requireCycles.findCycle("d"));
+        assertEquals(emptyList(), requireCycles.findCycle("f"));
+    }
+
+    @Test
+    public void visitsEachNamespaceOnlyOnce() {
+        requireCycles.findCycle("e");
+        requireCycles.findCycle("a");
+        requireCycles.findCycle("c");
+        requireCycles.findCycle("f");
+
+        assertEquals(new HashSet<>(queriedNamespaces).size(), queriedNamespaces.size());
+        assertEquals(new HashSet<>(asList("a", "b", "c", "d", "e", "f")), new HashSet<>(queriedNamespaces));
+    }
+
+    @Test
+    public void invalidateDropsOnlyAffectedComponents() {
+        requireCycles.findCycle("f");
+        queriedNamespaces.clear();
+
+        // e no longer requires itself, and d now requires a (closing the cycle a -> b -> c -> d -> a)
+        dependents.get("e").remove("e");
+        addRequire("d", "a");
+        requireCycles.invalidate(asList("e", "a"));
+
+        assertEquals(emptyList(), requireCycles.findCycle("e"));
+        assertEquals(asList("d", "a", "b", "c", "d"), requireCycles.findCycle("d"));
+        assertEquals(emptyList(), requireCycles.findCycle("f"));
+        // f is not required by any of the changed namespaces, so its component is kept
+        assertEquals(new HashSet<>(asList("a", "b", "c", "d", "e")), new HashSet<>(queriedNamespaces));
+    }
+
+    @Test
+    public void clear() {
+        requireCycles.findCycle("a");
+        dependents.get("a").remove("c");
+        requireCycles.clear();
+
+        assertEquals(emptyList(), requireCycles.findCycle("a"));
+    }
+}